@@ -0,0 +1,117 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * JDBC 계측 방식별 연산당 시간
+ * - none: 계측 없음
+ * - metrics: InstrumentedDataSource (모든 statement 측정, 히스토그램, 파라미터 수집)
+ * - p6spy: 모든 statement 를 파라미터를 채운 SQL 로 파일에 기록
+ * 메모리 H2 라 쿼리 자체가 빨라서 운영 DB 보다 계측 비용의 비율이 크게 나온다. (최악의 경우)
+ * ./gradlew jmh -PjmhIncludes=JdbcInstrumentationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JdbcInstrumentationBenchmark {
+
+    @Param({"none", "metrics", "p6spy"})
+    String instrumentation;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate tx;
+    TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh-jdbc-" + instrumentation + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.org.hibernate.SQL=info",
+                        "logging.level.org.hibernate.type=info",
+                        "querydsl.jdbc-metrics.enabled=" + instrumentation.equals("metrics"),
+                        "querydsl.jdbc-metrics.slow-query-threshold=1s",
+                        "decorator.datasource.enabled=" + instrumentation.equals("p6spy"),
+                        "decorator.datasource.p6spy.enable-logging=true",
+                        "decorator.datasource.p6spy.logging=file",
+                        "decorator.datasource.p6spy.log-file=build/jmh-p6spy.log")
+                .run();
+        em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 1_000; i++) {
+                em.persist(new Member("member" + i, i % 100, teamA));
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Member lookup() {
+        return readOnly.execute(status -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq("member500"))
+                .fetchOne());
+    }
+
+    /**
+     * 100 건, ResultSet.next() 호출마다 프록시를 거친다.
+     */
+    @Benchmark
+    public List<Member> page() {
+        return readOnly.execute(status -> queryFactory
+                .selectFrom(member)
+                .orderBy(member.id.asc())
+                .offset(200)
+                .limit(100)
+                .fetch());
+    }
+
+    /**
+     * insert 한 건 + commit
+     */
+    @Benchmark
+    public Long insert() {
+        return tx.execute(status -> {
+            Member m = new Member("inserted", 1);
+            em.persist(m);
+            return m.getId();
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.query.PreparedQuery;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 매번 Querydsl 쿼리를 만들어 실행 vs PreparedQuery 에 값만 바인딩해서 실행 (연산당 시간, 할당량)
+ * 결과가 한 건인 쿼리라 DB 실행 비용보다 쿼리 생성/직렬화 비용의 차이가 드러난다.
+ * ./gradlew jmh -PjmhIncludes=PreparedQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreparedQueryBenchmark {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+    PreparedQuery<Member> prepared;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh-prepared;DB_CLOSE_DELAY=-1",
+                        "logging.level.org.hibernate.SQL=info",
+                        "logging.level.org.hibernate.type=info",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        EntityManager em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+        });
+
+        prepared = PreparedQuery.of(em, queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(member.username.eq(USERNAME), team.name.eq(TEAM_NAME), member.age.between(0, 100)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Member dynamic() {
+        return readOnly.execute(status -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(member.username.eq("member1"), team.name.eq("teamA"), member.age.between(0, 100))
+                .fetchOne());
+    }
+
+    @Benchmark
+    public Member prepared() {
+        return readOnly.execute(status -> prepared
+                .bind(USERNAME, "member1")
+                .bind(TEAM_NAME, "teamA")
+                .fetchOne());
+    }
+}
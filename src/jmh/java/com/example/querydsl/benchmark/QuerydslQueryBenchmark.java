@@ -0,0 +1,267 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest 의 쿼리 모양별 처리량(ops/s)과 연산당 할당량(gc 프로파일러)
+ *
+ * 스프링 컨텍스트(JPA)는 한 번만 띄우고, 메모리 H2 에 팀/회원을 미리 넣어둔다.
+ * 벤치마크마다 읽기 전용 트랜잭션(새 영속성 컨텍스트)에서 쿼리를 실행한다.
+ * ./gradlew jmh 로 실행한다. (build.gradle 의 jmh 설정 참고)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QuerydslQueryBenchmark {
+
+    @Param("10")
+    int teams;
+
+    @Param("100000")
+    int members;
+
+    // 엔티티 목록을 반환하는 쿼리는 결과 크기가 측정값을 좌우하지 않도록 이만큼만 가져온다.
+    @Param("100")
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1", // 파일 DB 의 디스크 I/O 를 빼고 측정한다.
+                        "logging.level.org.hibernate.SQL=info",
+                        "logging.level.org.hibernate.type=info",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        seed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 팀 team0..teamN, 회원 member0..memberM (나이 0~99, 50명마다 이름 null)
+     * 세타 조인 결과가 있도록 팀 이름과 같은 이름의 회원도 팀마다 한 명씩 넣는다.
+     */
+    private void seed() {
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<Long> teamIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                Team t = new Team("team" + i);
+                em.persist(t);
+                ids.add(t.getId());
+            }
+            return ids;
+        });
+
+        MemberBulkInsertService bulkInsert = context.getBean(MemberBulkInsertService.class);
+        bulkInsert.insertAllJdbc(() -> new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < members;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                int n = i++;
+                return new MemberImportRow(n % 50 == 0 ? null : "member" + n, n % 100, teamIds.get(n % teams));
+            }
+        });
+        List<MemberImportRow> sameAsTeam = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            sameAsTeam.add(new MemberImportRow("team" + i, 0, null));
+        }
+        bulkInsert.insertAllJdbc(sameAsTeam);
+    }
+
+    private <T> T inReadOnly(TransactionCallback<T> query) {
+        return readOnly.execute(query);
+    }
+
+    /**
+     * search(): 이름과 나이로 단건 조회
+     */
+    @Benchmark
+    public Member simpleWhere() {
+        return inReadOnly(status -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq("member1"), member.age.eq(1))
+                .fetchOne());
+    }
+
+    /**
+     * sort(): 나이 내림차순, 이름 오름차순(null 은 마지막)
+     */
+    @Benchmark
+    public List<Member> sortNullsLast() {
+        return inReadOnly(status -> queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(50))
+                .orderBy(member.age.desc(), member.username.asc().nullsLast())
+                .limit(pageSize)
+                .fetch());
+    }
+
+    /**
+     * paging1(): 중간 페이지 offset 페이징
+     */
+    @Benchmark
+    public List<Member> offsetPaging() {
+        return inReadOnly(status -> queryFactory
+                .selectFrom(member)
+                .orderBy(member.username.desc())
+                .offset(members / 2)
+                .limit(pageSize)
+                .fetch());
+    }
+
+    /**
+     * paging2(): 페이지 + count 쿼리
+     */
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public QueryResults<Member> fetchResults() {
+        return inReadOnly(status -> queryFactory
+                .selectFrom(member)
+                .orderBy(member.username.desc())
+                .offset(members / 2)
+                .limit(pageSize)
+                .fetchResults());
+    }
+
+    @Benchmark
+    public Tuple aggregation() {
+        return inReadOnly(status -> queryFactory
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.max(), member.age.min())
+                .from(member)
+                .fetchOne());
+    }
+
+    @Benchmark
+    public List<Tuple> groupBy() {
+        return inReadOnly(status -> queryFactory
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> innerJoin() {
+        return inReadOnly(status -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("team0"))
+                .limit(pageSize)
+                .fetch());
+    }
+
+    /**
+     * theta_join(): 연관관계 없이 회원 이름 = 팀 이름
+     */
+    @Benchmark
+    public List<Member> thetaJoin() {
+        return inReadOnly(status -> queryFactory
+                .select(member)
+                .from(member, team)
+                .where(member.username.eq(team.name))
+                .fetch());
+    }
+
+    /**
+     * join_on_filtering(): teamA 인 팀만 조인, 회원은 모두
+     */
+    @Benchmark
+    public List<Tuple> leftJoinOn() {
+        return inReadOnly(status -> queryFactory
+                .select(member, team)
+                .from(member)
+                .leftJoin(member.team, team).on(team.name.eq("team0"))
+                .limit(pageSize)
+                .fetch());
+    }
+
+    /**
+     * fetchJoinNo(): 회원 조회 후 지연 로딩으로 팀 이름 접근 (배치 로딩, 2차 캐시 설정이 그대로 적용된다)
+     */
+    @Benchmark
+    public List<String> lazyTeam() {
+        return inReadOnly(status -> {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .limit(pageSize)
+                    .fetch();
+            List<String> teamNames = new ArrayList<>(result.size());
+            for (Member m : result) {
+                teamNames.add(m.getTeam() == null ? null : m.getTeam().getName());
+            }
+            return teamNames;
+        });
+    }
+
+    /**
+     * fetchJoinUse(): 페치 조인으로 한 번에 조회
+     */
+    @Benchmark
+    public List<String> fetchJoin() {
+        return inReadOnly(status -> {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .limit(pageSize)
+                    .fetch();
+            List<String> teamNames = new ArrayList<>(result.size());
+            for (Member m : result) {
+                teamNames.add(m.getTeam() == null ? null : m.getTeam().getName());
+            }
+            return teamNames;
+        });
+    }
+}
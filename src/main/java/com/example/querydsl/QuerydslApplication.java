@@ -1,7 +1,11 @@
 package com.example.querydsl;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import javax.persistence.EntityManager;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -10,4 +14,11 @@ public class QuerydslApplication {
         SpringApplication.run(QuerydslApplication.class, args);
     }
 
+    // JPAQueryFactory 는 멀티스레드 환경에서 동시성 문제가 없다.
+    // 주입되는 EntityManager 는 트랜잭션 단위로 바인딩되는 프록시이기 때문에 싱글톤 빈으로 등록해도 된다.
+    @Bean
+    JPAQueryFactory jpaQueryFactory(EntityManager em) {
+        return new JPAQueryFactory(em);
+    }
+
 }
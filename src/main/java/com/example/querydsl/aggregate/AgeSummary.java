@@ -0,0 +1,36 @@
+package com.example.querydsl.aggregate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * aggregation() 과 같은 회원 나이 집계 (count, sum, avg, max, min)
+ * 회원이 없으면 min, max 는 null
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgeSummary {
+
+    private long count;
+    private long sum;
+    private Integer min;
+    private Integer max;
+
+    public Double getAvg() {
+        return count == 0 ? null : (double) sum / count;
+    }
+
+    AgeSummary merge(AgeSummary other) {
+        return new AgeSummary(count + other.count, sum + other.sum, min(min, other.min), max(max, other.max));
+    }
+
+    private static Integer min(Integer a, Integer b) {
+        return a == null ? b : b == null ? a : Integer.valueOf(Math.min(a, b));
+    }
+
+    private static Integer max(Integer a, Integer b) {
+        return a == null ? b : b == null ? a : Integer.valueOf(Math.max(a, b));
+    }
+}
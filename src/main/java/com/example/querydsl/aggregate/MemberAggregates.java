@@ -0,0 +1,85 @@
+package com.example.querydsl.aggregate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.query.MemberExpressions.AGE_SUM;
+
+/**
+ * 회원 테이블에 자주 쓰는 부분 집계
+ */
+public final class MemberAggregates {
+
+    private MemberAggregates() {
+    }
+
+    /**
+     * count, sum, min, max (avg 는 합친 뒤 sum / count)
+     */
+    public static PartialAggregate<AgeSummary> ageSummary() {
+        return new PartialAggregate<>() {
+            @Override
+            public List<Expression<?>> select() {
+                return List.of(member.count(), AGE_SUM, member.age.min(), member.age.max());
+            }
+
+            @Override
+            public AgeSummary partial(List<Tuple> rows) {
+                Tuple t = rows.get(0);
+                Long sum = t.get(AGE_SUM);
+                return new AgeSummary(t.get(member.count()), sum == null ? 0 : sum, t.get(member.age.min()), t.get(member.age.max()));
+            }
+
+            @Override
+            public AgeSummary merge(AgeSummary left, AgeSummary right) {
+                return left.merge(right);
+            }
+        };
+    }
+
+    /**
+     * 나이 구간별 회원 수, 키는 구간의 시작 나이 (bucketSize=10 이면 0, 10, 20, ...)
+     */
+    public static PartialAggregate<Map<Integer, Long>> ageHistogram(int bucketSize) {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("bucketSize 는 1 이상이어야 합니다. bucketSize=" + bucketSize);
+        }
+        // select 와 group by 의 식이 같아야 하기 때문에 파라미터(?)가 아니라 SQL 에 숫자를 넣는다.
+        NumberExpression<Integer> bucket = Expressions.numberTemplate(Integer.class,
+                "{0} / " + bucketSize + " * " + bucketSize, member.age);
+        return new PartialAggregate<>() {
+            @Override
+            public List<Expression<?>> select() {
+                return List.of(bucket, member.count());
+            }
+
+            @Override
+            public List<Expression<?>> groupBy() {
+                return List.of(bucket);
+            }
+
+            @Override
+            public Map<Integer, Long> partial(List<Tuple> rows) {
+                Map<Integer, Long> histogram = new TreeMap<>();
+                for (Tuple t : rows) {
+                    histogram.put(t.get(bucket), t.get(member.count()));
+                }
+                return histogram;
+            }
+
+            @Override
+            public Map<Integer, Long> merge(Map<Integer, Long> left, Map<Integer, Long> right) {
+                Map<Integer, Long> merged = new TreeMap<>(left);
+                right.forEach((key, count) -> merged.merge(key, count, Long::sum));
+                return merged;
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.querydsl.aggregate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+
+import java.util.List;
+
+/**
+ * 파티션(id 범위)별로 계산한 부분 집계와 그 결과를 합치는 방법
+ *
+ * avg 처럼 부분 결과끼리 합칠 수 없는 집계는 sum, count 로 나눠서 조회하고 합친 뒤에 계산한다.
+ *
+ * @param <R> 부분 집계 결과이자 최종 결과
+ */
+public interface PartialAggregate<R> {
+
+    /**
+     * 파티션마다 조회할 집계식 (group by 식도 포함해야 결과에서 꺼낼 수 있다)
+     */
+    List<Expression<?>> select();
+
+    /**
+     * 비어 있으면 파티션마다 한 줄이 나온다.
+     */
+    default List<Expression<?>> groupBy() {
+        return List.of();
+    }
+
+    /**
+     * 파티션 하나의 조회 결과
+     */
+    R partial(List<Tuple> rows);
+
+    /**
+     * 두 부분 결과를 합친다. 파티션 순서와 상관없이 같은 결과가 나와야 한다.
+     */
+    R merge(R left, R right);
+}
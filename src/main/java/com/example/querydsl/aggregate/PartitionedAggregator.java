@@ -0,0 +1,89 @@
+package com.example.querydsl.aggregate;
+
+import com.example.querydsl.async.AsyncQueryExecutor;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 전체를 훑는 집계를 id 범위 N 개로 나눠서 동시에 실행하고 합친다.
+ *
+ * 집계 쿼리 하나는 DB 에서 한 스레드(코어)로 실행되기 때문에, 범위를 나눠 별도 커넥션으로 실행하면 여러 코어를 쓸 수 있다.
+ * 파티션은 AsyncQueryExecutor 로 실행되어 각자 읽기 전용 트랜잭션을 쓰고, 동시 실행 수는 querydsl.async.max-concurrency 로 제한된다.
+ *
+ * 참고: 파티션마다 트랜잭션이 달라서 집계 도중 커밋된 변경은 일부 파티션에만 반영될 수 있다. (한 시점의 스냅샷이 아니다)
+ * 참고: id 가 고르게 분포되어 있다고 보고 범위를 같은 폭으로 나눈다.
+ */
+@Component
+public class PartitionedAggregator {
+
+    private final JPAQueryFactory queryFactory;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final TransactionTemplate readOnly;
+
+    public PartitionedAggregator(JPAQueryFactory queryFactory, AsyncQueryExecutor asyncQueryExecutor,
+                                 PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * ex) aggregate(member.age.goe(20), 8, MemberAggregates.ageSummary())
+     *
+     * @param condition  null 이면 전체 회원
+     * @param partitions 나눌 id 범위 수
+     */
+    public <R> R aggregate(Predicate condition, int partitions, PartialAggregate<R> aggregate) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions 는 1 이상이어야 합니다. partitions=" + partitions);
+        }
+        Tuple range = readOnly.execute(status -> queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(condition)
+                .fetchOne());
+        Long min = range.get(member.id.min());
+        Long max = range.get(member.id.max());
+        if (min == null) {
+            // 대상 회원이 없을 때의 결과 (group by 가 없으면 count = 0 인 한 줄, 있으면 빈 목록)
+            return readOnly.execute(status -> aggregate.partial(partialQuery(queryFactory, condition, 0, -1, aggregate)));
+        }
+
+        long width = Math.max(1, (max - min + partitions) / partitions); // 올림
+        List<Function<JPAQueryFactory, R>> queries = new ArrayList<>();
+        for (long start = min; start <= max; start += width) {
+            long from = start;
+            long to = Math.min(start + width - 1, max);
+            queries.add(qf -> aggregate.partial(partialQuery(qf, condition, from, to, aggregate)));
+        }
+
+        List<R> partials = asyncQueryExecutor.fetchAll(queries);
+        R result = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            result = aggregate.merge(result, partials.get(i));
+        }
+        return result;
+    }
+
+    private <R> List<Tuple> partialQuery(JPAQueryFactory qf, Predicate condition, long from, long to,
+                                         PartialAggregate<R> aggregate) {
+        return qf
+                .select(aggregate.select().toArray(new Expression<?>[0]))
+                .from(member)
+                .where(member.id.between(from, to), condition)
+                .groupBy(aggregate.groupBy().toArray(new Expression<?>[0]))
+                .fetch();
+    }
+}
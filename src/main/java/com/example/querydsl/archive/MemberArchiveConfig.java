@@ -0,0 +1,33 @@
+package com.example.querydsl.archive;
+
+import com.example.querydsl.cache.NaturalKeyTables;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.stats.TeamStatsService;
+import com.example.querydsl.writebehind.MemberWriteBuffer;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+@Configuration
+@EnableConfigurationProperties(MemberArchiveProperties.class)
+public class MemberArchiveConfig {
+
+    /**
+     * MemberArchivePolicy 빈이 없으면 백그라운드로 옮기지 않는다. (archive() 를 직접 호출하는 것은 가능)
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    MemberArchiver memberArchiver(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate, EntityManager em,
+                                  JPAQueryFactory queryFactory, TeamStatsService teamStatsService,
+                                  MemberSearchIndex memberSearchIndex, NaturalKeyTables naturalKeyTables,
+                                  MemberWriteBuffer memberWriteBuffer, MemberArchiveProperties properties,
+                                  ObjectProvider<MemberArchivePolicy> policy) {
+        return new MemberArchiver(transactionManager, jdbcTemplate, em, queryFactory, teamStatsService,
+                memberSearchIndex, naturalKeyTables, memberWriteBuffer, properties, policy.getIfAvailable());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.querydsl.archive;
+
+import com.querydsl.core.types.Predicate;
+
+/**
+ * 보관할 회원 조건, 빈으로 등록하면 MemberArchiver 가 querydsl.archive.interval 마다 조건에 맞는 회원을 옮긴다.
+ * 조회할 때마다 호출하기 때문에 현재 시각 기준 조건도 쓸 수 있다.
+ *
+ * ex) 팀이 없는 회원
+ * @Bean
+ * MemberArchivePolicy memberArchivePolicy() {
+ *     return () -> member.team.isNull();
+ * }
+ */
+@FunctionalInterface
+public interface MemberArchivePolicy {
+
+    Predicate condition();
+}
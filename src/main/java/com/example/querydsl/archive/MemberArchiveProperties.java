@@ -0,0 +1,21 @@
+package com.example.querydsl.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.archive")
+public class MemberArchiveProperties {
+
+    // MemberArchivePolicy 빈이 있으면 이 간격마다 조건에 맞는 회원을 보관 테이블로 옮긴다.
+    private Duration interval = Duration.ofMinutes(10);
+
+    // 한 트랜잭션에서 옮기는 회원 수
+    private int batchSize = 1000;
+
+    // batch 사이에 쉬는 시간, 서비스 요청이 쓸 DB 자원(lock, IO)을 남긴다.
+    private Duration batchPause = Duration.ofMillis(200);
+}
@@ -0,0 +1,85 @@
+package com.example.querydsl.archive;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.QMemberWithArchive;
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+
+/**
+ * member 쿼리를 보관된 회원(member_archive)까지 포함하는 쿼리로 바꾼다.
+ *
+ * JPQL 에는 union 이 없어서 두 테이블을 합친 MemberWithArchive(@Subselect) 엔티티로 from 절만 바꾼다.
+ * alias 이름이 같기 때문에 where, group by, order by, 프로젝션은 그대로 쓴다. (member.age 는 alias.age 로 직렬화된다.)
+ * ex) memberArchiveQuery.withArchive(queryFactory.select(member.count()).from(member).where(member.age.goe(20))).fetchOne()
+ *
+ * 참고: 엔티티(Member) 프로젝션은 바꿀 수 없다. 결과가 Member 가 아니라 MemberWithArchive 가 된다.
+ * 참고: 서브쿼리 안의 member 는 바꾸지 않는다. JPAQuery 에 지정한 힌트, lock mode 는 복사하지 않는다.
+ * 참고: 보관 테이블까지 읽기 때문에 hot 쿼리보다 느리다. 보관된 회원이 꼭 필요한 화면(전체 이력, 통계)에서만 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberArchiveQuery {
+
+    private final EntityManager em;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> JPAQuery<T> withArchive(JPAQuery<T> query) {
+        QueryMetadata source = query.getMetadata();
+        Expression<?> projection = source.getProjection();
+        if (projection == null || projection.getType() == Member.class) {
+            throw new IllegalArgumentException("엔티티(Member) 프로젝션은 보관된 회원을 포함할 수 없습니다: " + query);
+        }
+
+        QueryMetadata target = new DefaultQueryMetadata();
+        boolean replaced = false;
+        for (JoinExpression join : source.getJoins()) {
+            Expression<?> joinTarget = join.getTarget();
+            if (joinTarget instanceof Path && joinTarget.getType() == Member.class) { // from(member), join(member).on(...)
+                joinTarget = new QMemberWithArchive(((Path<?>) joinTarget).getMetadata().getName());
+                replaced = true;
+            }
+            target.addJoin(join.getType(), joinTarget);
+            for (JoinFlag flag : join.getFlags()) {
+                target.addJoinFlag(flag);
+            }
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+        }
+        if (!replaced) {
+            throw new IllegalArgumentException("from 절에 member 가 없습니다: " + query);
+        }
+
+        if (source.getWhere() != null) {
+            target.addWhere(source.getWhere());
+        }
+        source.getGroupBy().forEach(target::addGroupBy);
+        if (source.getHaving() != null) {
+            target.addHaving(source.getHaving());
+        }
+        for (OrderSpecifier<?> order : source.getOrderBy()) {
+            target.addOrderBy(order);
+        }
+        target.setProjection(projection);
+        target.setModifiers(source.getModifiers());
+        target.setDistinct(source.isDistinct());
+        target.setUnique(source.isUnique());
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+        source.getFlags().forEach(target::addFlag);
+        return new JPAQuery<>(em, target);
+    }
+}
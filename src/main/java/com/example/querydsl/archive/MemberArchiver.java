@@ -0,0 +1,190 @@
+package com.example.querydsl.archive;
+
+import com.example.querydsl.cache.JdbcCacheInvalidation;
+import com.example.querydsl.cache.NaturalKeyTables;
+import com.example.querydsl.entity.ArchivedMember;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.stats.TeamStatsService;
+import com.example.querydsl.writebehind.MemberWriteBuffer;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 조건에 맞는 회원을 member(hot) 테이블에서 member_archive(cold) 테이블로 옮긴다.
+ *
+ * 회원 테이블이 커지면 정렬, 페이징, group by 가 더 이상 쓰지 않는 회원까지 읽는다.
+ * 보관할 회원을 옮겨서 member 테이블을 작게 유지하고, 보관된 회원은 필요할 때만 MemberArchiveQuery.withArchive() 로 함께 조회한다.
+ *
+ * batch-size 명씩 한 트랜잭션으로 옮긴다.
+ * 1. 조건에 맞는 회원 id 를 id 순서로 조회하고 잠근다. (select ... for update)
+ * 2. insert into member_archive select ... from member, delete from member (JDBC)
+ * 3. 엔티티 이벤트가 없기 때문에 팀 통계(TeamStats)를 다시 계산하고, 커밋한 뒤 검색 색인, 2차 캐시, 쿼리 캐시, 자연 키 캐시에서 뺀다.
+ * batch 마다 커밋하고 batch-pause 만큼 쉰다. 한 번에 수백만 건을 옮기면서 lock 을 오래 잡지 않는다.
+ *
+ * 참고: 옮기기 전에 MemberWriteBuffer 를 반영한다. 옮긴 뒤에 들어온 나이 변경은 대상 회원이 없어서 반영되지 않는다.
+ * 참고: 옮기는 중에 같은 회원을 엔티티로 수정하던 트랜잭션은 커밋할 때 실패한다. (삭제된 회원)
+ */
+@Slf4j
+public class MemberArchiver {
+
+    private static final String ARCHIVE_SQL = "insert into member_archive (member_id, username, age, team_id, archived_at)" +
+            " select member_id, username, age, team_id, ? from member where member_id in (%s)";
+    private static final String DELETE_SQL = "delete from member where member_id in (%s)";
+
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TeamStatsService teamStatsService;
+    private final MemberSearchIndex memberSearchIndex;
+    private final NaturalKeyTables naturalKeyTables;
+    private final MemberWriteBuffer memberWriteBuffer;
+    private final MemberArchiveProperties properties;
+    private final MemberArchivePolicy policy; // 없으면 백그라운드로 옮기지 않는다.
+
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private ScheduledExecutorService scheduler;
+
+    public MemberArchiver(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate, EntityManager em,
+                          JPAQueryFactory queryFactory, TeamStatsService teamStatsService, MemberSearchIndex memberSearchIndex,
+                          NaturalKeyTables naturalKeyTables, MemberWriteBuffer memberWriteBuffer,
+                          MemberArchiveProperties properties, MemberArchivePolicy policy) {
+        this.transactionManager = transactionManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.teamStatsService = teamStatsService;
+        this.memberSearchIndex = memberSearchIndex;
+        this.naturalKeyTables = naturalKeyTables;
+        this.memberWriteBuffer = memberWriteBuffer;
+        this.properties = properties;
+        this.policy = policy;
+    }
+
+    public void start() {
+        if (policy == null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-archiver-"));
+        long interval = properties.getInterval().toNanos();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                long count = archive(policy.condition());
+                if (count > 0) {
+                    log.info("회원 {}명 보관", count);
+                }
+            } catch (RuntimeException e) {
+                log.warn("회원 보관 실패, 다음 주기에 다시 시도합니다.", e);
+            }
+        }, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 옮기는 중이면 지금 batch 까지만 커밋하고 멈춘다.
+     */
+    public void close() throws InterruptedException {
+        closed.countDown();
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * 조건에 맞는 회원이 없을 때까지 batch-size 명씩 옮긴다.
+     * batch 마다 커밋하기 때문에 중간에 실패하면 앞의 batch 는 이미 옮겨져 있다.
+     *
+     * @return 옮긴 회원 수
+     */
+    public long archive(Predicate condition) {
+        // 바깥 트랜잭션이 있으면 batch 마다 커밋해도 바깥 트랜잭션이 잡은 lock 이 남아 있다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("archive 는 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        long total = 0;
+        while (closed.getCount() > 0) {
+            int count = archiveBatch(condition);
+            total += count;
+            if (count < properties.getBatchSize() || pause()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return 옮긴 회원 수
+     */
+    private int archiveBatch(Predicate condition) {
+        memberWriteBuffer.flush();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Integer count = tx.execute(status -> {
+            List<Long> ids = queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(condition)
+                    .orderBy(member.id.asc())
+                    .limit(properties.getBatchSize())
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetch();
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            Set<Long> teamIds = new TreeSet<>(queryFactory // 팀 id 순서로 통계 row lock 을 잡는다. (TeamStatsChanges 와 같은 순서)
+                    .select(member.team.id).distinct()
+                    .from(member)
+                    .where(member.id.in(ids), member.team.isNotNull())
+                    .fetch());
+
+            JdbcCacheInvalidation.afterCommit(em, Member.class, ids, ArchivedMember.class);
+            String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            Object[] args = new Object[ids.size() + 1];
+            args[0] = Timestamp.valueOf(LocalDateTime.now());
+            for (int i = 0; i < ids.size(); i++) {
+                args[i + 1] = ids.get(i);
+            }
+            jdbcTemplate.update(String.format(ARCHIVE_SQL, in), args);
+            jdbcTemplate.update(String.format(DELETE_SQL, in), ids.toArray());
+
+            teamStatsService.rebuild(teamIds);
+            memberSearchIndex.removeMembersAfterCommit(ids);
+            naturalKeyTables.clearAfterCommit(Member.class);
+            return ids.size();
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return 종료 중이면 true
+     */
+    private boolean pause() {
+        try {
+            return closed.await(properties.getBatchPause().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.querydsl.async;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties(AsyncQueryProperties.class)
+public class AsyncQueryConfig {
+
+    /**
+     * 가상 스레드는 블로킹(JDBC) 동안 캐리어 스레드를 놓아주기 때문에 스레드 수를 제한하지 않는다. 동시 실행 수는 세마포어로 제한한다.
+     */
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService asyncQueryThreads(AsyncQueryProperties properties) {
+        if (properties.isVirtualThreads()) {
+            return VirtualThreads.newExecutor();
+        }
+        return Executors.newFixedThreadPool(properties.getMaxConcurrency(), new CustomizableThreadFactory("async-query-"));
+    }
+
+    @Bean
+    AsyncQueryExecutor asyncQueryExecutor(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                          ExecutorService asyncQueryThreads, AsyncQueryProperties properties) {
+        return new AsyncQueryExecutor(queryFactory, transactionManager, asyncQueryThreads, properties);
+    }
+
+    /**
+     * 톰캣 요청 처리 스레드 풀(기본 200개)을 가상 스레드로 바꾼다.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.async.virtual-threads", havingValue = "true")
+    TomcatProtocolHandlerCustomizer<?> virtualThreadTomcatCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor());
+    }
+}
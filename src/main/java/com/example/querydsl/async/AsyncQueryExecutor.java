@@ -0,0 +1,143 @@
+package com.example.querydsl.async;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 서로 독립적인 쿼리를 동시에 실행한다.
+ *
+ * 쿼리마다 별도 스레드의 읽기 전용 트랜잭션에서 실행하기 때문에 EntityManager(영속성 컨텍스트)도 각자 따로 쓴다.
+ * 반환된 엔티티는 트랜잭션이 끝난 뒤라 준영속 상태이므로, 지연 로딩이 필요 없는 DTO 조회에 사용한다.
+ * 동시에 잡는 커넥션 수는 max-concurrency 로 제한해서 요청이 몰려도 커넥션 풀이 고갈되지 않게 한다.
+ *
+ * 참고: 호출한 쪽 트랜잭션에서 커밋하지 않은 변경은 보이지 않는다.
+ * 참고: 다른 스레드에서 실행되기 때문에 QueryCounter(요청별 SQL 수)에 집계되지 않는다.
+ */
+public class AsyncQueryExecutor {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnly;
+    private final Executor executor;
+    private final Semaphore connections;
+    private final Duration timeout;
+
+    public AsyncQueryExecutor(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                              Executor executor, AsyncQueryProperties properties) {
+        this.queryFactory = queryFactory;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.executor = executor;
+        this.connections = new Semaphore(properties.getMaxConcurrency());
+        this.timeout = properties.getTimeout();
+    }
+
+    public <T> CompletableFuture<T> submit(Function<JPAQueryFactory, T> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                connections.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return readOnly.execute(status -> query.apply(queryFactory));
+            } finally {
+                connections.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * 두 쿼리를 동시에 실행하고 결과를 합친다. 하나라도 실패하면 나머지는 취소하고 예외를 던진다.
+     */
+    public <A, B, R> R fetchAll(Function<JPAQueryFactory, A> a, Function<JPAQueryFactory, B> b,
+                                BiFunction<A, B, R> combine) {
+        CompletableFuture<A> fa = submit(a);
+        CompletableFuture<B> fb = submit(b);
+        await(fa, fb);
+        return combine.apply(fa.join(), fb.join());
+    }
+
+    public <A, B, C, R> R fetchAll(Function<JPAQueryFactory, A> a, Function<JPAQueryFactory, B> b,
+                                   Function<JPAQueryFactory, C> c, Combiner3<A, B, C, R> combine) {
+        CompletableFuture<A> fa = submit(a);
+        CompletableFuture<B> fb = submit(b);
+        CompletableFuture<C> fc = submit(c);
+        await(fa, fb, fc);
+        return combine.apply(fa.join(), fb.join(), fc.join());
+    }
+
+    /**
+     * 개수가 정해지지 않은 쿼리를 동시에 실행한다. 결과는 queries 순서와 같다.
+     */
+    public <T> List<T> fetchAll(List<Function<JPAQueryFactory, T>> queries) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(queries.size());
+        for (Function<JPAQueryFactory, T> query : queries) {
+            futures.add(submit(query));
+        }
+        await(futures.toArray(new CompletableFuture<?>[0]));
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private void await(CompletableFuture<?>... futures) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures);
+        for (CompletableFuture<?> future : futures) {
+            // 먼저 실패한 쿼리가 있으면 나머지를 기다리지 않는다.
+            future.whenComplete((result, e) -> {
+                if (e != null) {
+                    all.completeExceptionally(e);
+                }
+            });
+        }
+        try {
+            all.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("비동기 쿼리를 기다리다 인터럽트되었습니다.", e);
+        } catch (TimeoutException e) {
+            cancel(futures);
+            throw new IllegalStateException("비동기 쿼리가 " + timeout + " 안에 끝나지 않았습니다.", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 아직 시작하지 않은 쿼리는 실행하지 않는다. 실행 중인 쿼리는 끝날 때까지 둔다.
+     */
+    private void cancel(CompletableFuture<?>... futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Combiner3<A, B, C, R> {
+        R apply(A a, B b, C c);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.querydsl.async;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.async")
+public class AsyncQueryProperties {
+
+    // 동시에 실행하는 비동기 쿼리 수, 쿼리마다 커넥션을 하나씩 쓰기 때문에 커넥션 풀 크기보다 작게 잡는다.
+    private int maxConcurrency = 4;
+
+    // fetchAll 이 모든 쿼리를 기다리는 최대 시간
+    private Duration timeout = Duration.ofSeconds(10);
+
+    // true 이면 비동기 쿼리와 톰캣 요청을 가상 스레드에서 실행한다. (Java 21 이상)
+    private boolean virtualThreads = false;
+}
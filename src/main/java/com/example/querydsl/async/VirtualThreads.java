@@ -0,0 +1,23 @@
+package com.example.querydsl.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 빌드는 Java 17 이라 Executors.newVirtualThreadPerTaskExecutor() 를 직접 호출할 수 없어서 리플렉션으로 찾는다.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("가상 스레드는 Java 21 이상에서 사용할 수 있습니다. 현재 " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 executor 를 만들 수 없습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.config.HibernateEventListeners;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * 2차 캐시, 쿼리 캐시 설정 (hibernate-jcache + Caffeine, 애플리케이션 메모리에 저장한다)
+ *
+ * 캐시 매니저는 스프링 컨텍스트마다 따로 만든다.
+ * 테스트처럼 한 JVM 에 컨텍스트(DB)가 여러 개 뜰 때 기본 캐시 매니저를 같이 쓰면 다른 DB 의 팀이 캐시에서 나온다.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    // Querydsl 에서 .setHint(QueryHints.CACHE_REGION, TEAM_QUERIES) 로 지정한다.
+    public static final String TEAM_QUERIES = "team-queries";
+
+    static final String DEFAULT_QUERY_RESULTS = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    static final String UPDATE_TIMESTAMPS = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(CacheProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("querydsl-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Team.class.getName(), configuration(properties.getTeam()));
+        cacheManager.createCache(Member.class.getName(), configuration(properties.getMember()));
+        cacheManager.createCache(TEAM_QUERIES, configuration(properties.getQueries()));
+        cacheManager.createCache(DEFAULT_QUERY_RESULTS, configuration(properties.getQueries()));
+        // 테이블별 마지막 수정 시각, 항목이 사라지면 오래된 쿼리 결과를 최신으로 판단하기 때문에 크기 제한, 만료를 두지 않는다.
+        cacheManager.createCache(UPDATE_TIMESTAMPS, configuration(null));
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * 세션 팩토리가 만들어질 때 NaturalKeyListener 를 Hibernate 이벤트 리스너로 등록한다.
+     */
+    @Bean
+    HibernatePropertiesCustomizer naturalKeyListenerCustomizer(NaturalKeyTables naturalKeyTables) {
+        return HibernateEventListeners.customizer(new NaturalKeyListener(naturalKeyTables));
+    }
+
+    /**
+     * 캐시별 hit/miss/put/eviction 수를 /actuator/metrics/cache.gets, cache.evictions 등으로 노출한다.
+     */
+    @Bean
+    MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> hibernateCacheManager.getCacheNames().forEach(name ->
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(name), Tags.of("cacheManager", "hibernate")));
+    }
+
+    private CaffeineConfiguration<Object, Object> configuration(CacheProperties.Region region) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStatisticsEnabled(true);
+        configuration.setStoreByValue(false); // 기본값(true)이면 읽을 때마다 직렬화해서 복사한다.
+        if (region != null) {
+            configuration.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+        }
+        return configuration;
+    }
+}
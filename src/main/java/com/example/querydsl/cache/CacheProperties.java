@@ -0,0 +1,42 @@
+package com.example.querydsl.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.cache")
+public class CacheProperties {
+
+    // Team 엔티티 캐시 (2차 캐시)
+    private Region team = new Region(10_000, Duration.ofMinutes(30));
+
+    // Member 엔티티 캐시 (2차 캐시), 자연 키(이름)로 조회한 회원을 SQL 없이 꺼낸다.
+    private Region member = new Region(100_000, Duration.ofMinutes(10));
+
+    // 엔티티 타입별 자연 키 → id 캐시 크기, 항목마다 16 byte 를 미리 잡는다. (2의 거듭제곱으로 올림)
+    private int naturalKeyMaxSize = 131_072;
+
+    // 쿼리 결과 캐시 (팀 이름으로 조회, 팀별 나이 통계 등)
+    private Region queries = new Region(1_000, Duration.ofMinutes(5));
+
+    @Getter @Setter
+    public static class Region {
+
+        // 이 개수를 넘으면 자주 쓰이지 않는 항목부터 제거한다. (Caffeine W-TinyLFU)
+        private long maxSize;
+
+        // 저장 후 이 시간이 지나면 제거한다.
+        private Duration ttl;
+
+        public Region() {
+        }
+
+        public Region(long maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.querydsl.cache;
+
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * JDBC 로 바꾼 엔티티를 2차 캐시, 쿼리 캐시에서 지운다.
+ * 벌크 JPQL(update/delete)은 Hibernate 가 엔티티 캐시 영역 전체를 지우지만 JDBC 는 알지 못해서 이전 값이 계속 조회된다.
+ *
+ * JDBC 를 실행하기 전에 같은 트랜잭션 안에서 호출한다.
+ * - 지금: 테이블의 쿼리 캐시를 미리 무효화(preInvalidate)해서 커밋 전까지 다른 트랜잭션이 조회한 결과를 캐시에 넣지 못하게 한다.
+ * - 커밋 후: ids 엔티티만 2차 캐시에서 지우고 쿼리 캐시를 무효화한다.
+ */
+public final class JdbcCacheInvalidation {
+
+    private JdbcCacheInvalidation() {
+    }
+
+    /**
+     * @param type ids 로 2차 캐시에서 지울 엔티티
+     * @param written 함께 바꾼 엔티티(테이블), 쿼리 캐시만 무효화한다.
+     */
+    public static void afterCommit(EntityManager em, Class<?> type, Collection<?> ids, Class<?>... written) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        String[] spaces = querySpaces(session.getFactory(), type, written);
+        timestamps.preInvalidate(spaces, session);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Object id : ids) {
+                    em.getEntityManagerFactory().getCache().evict(type, id);
+                }
+                timestamps.invalidate(spaces, session);
+            }
+        });
+    }
+
+    private static String[] querySpaces(SessionFactoryImplementor factory, Class<?> type, Class<?>... written) {
+        Set<String> spaces = new LinkedHashSet<>();
+        for (Class<?> entity : concat(type, written)) {
+            for (Serializable space : factory.getMetamodel().entityPersister(entity).getQuerySpaces()) {
+                spaces.add(String.valueOf(space));
+            }
+        }
+        return spaces.toArray(String[]::new);
+    }
+
+    private static Class<?>[] concat(Class<?> type, Class<?>... written) {
+        Class<?>[] all = Arrays.copyOf(written, written.length + 1);
+        all[written.length] = type;
+        return all;
+    }
+}
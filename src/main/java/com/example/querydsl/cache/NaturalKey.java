@@ -0,0 +1,17 @@
+package com.example.querydsl.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 자연 키(회원 이름, 팀 이름처럼 id 대신 조회에 쓰는 문자열 필드), NaturalKeyCache 가 값 → id 를 캐시한다.
+ *
+ * Hibernate @NaturalId 는 unique 제약을 만들기 때문에 쓰지 않는다. (회원 이름은 중복될 수 있다)
+ * 값이 중복되면 캐시를 쓰더라도 DB 조회와 같이 NonUniqueResultException 이 발생한다.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NaturalKey {
+}
@@ -0,0 +1,64 @@
+package com.example.querydsl.cache;
+
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Field;
+
+/**
+ * 자연 키(@NaturalKey)로 엔티티 한 건 조회, 키 → id → 엔티티 순서로 캐시를 거친다.
+ * 1. 키 → id: NaturalKeyTable (애플리케이션 메모리, long 배열)
+ * 2. id → 엔티티: em.find(), 영속성 컨텍스트 → 2차 캐시 순서로 찾는다. (Team, Member 모두 2차 캐시 대상)
+ * 캐시에 있으면 SQL 을 실행하지 않는다. 없으면 where 키 = ? 로 조회하고 id 를 캐시에 넣는다.
+ *
+ * 1번에서 찾은 id 는 해시 충돌, 이름 변경 때문에 다른 엔티티일 수 있어서 찾은 엔티티의 키 값이 같을 때만 돌려준다.
+ * 같은 트랜잭션에서 이름을 바꿨다면 영속성 컨텍스트의 엔티티와 비교하기 때문에 바뀐 이름으로 조회된다.
+ * 호출한 쪽 트랜잭션(영속성 컨텍스트)을 사용한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class NaturalKeyCache {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final NaturalKeyTables tables;
+
+    /**
+     * @return 키가 같은 엔티티, 없으면 null
+     * @throws com.querydsl.core.NonUniqueResultException 키가 같은 엔티티가 여러 개인 경우
+     */
+    public <T> T find(Class<T> type, String key) {
+        Field keyField = tables.keyField(type);
+        if (keyField == null) {
+            throw new IllegalArgumentException(type.getName() + " 에 @NaturalKey 필드가 없습니다.");
+        }
+        if (key == null) {
+            return null;
+        }
+
+        NaturalKeyTable table = tables.table(type);
+        long id = table.get(key);
+        if (id != NaturalKeyTable.MISSING) {
+            T entity = em.find(type, id);
+            if (entity != null && key.equals(ReflectionUtils.getField(keyField, Hibernate.unproxy(entity)))) {
+                return entity;
+            }
+        }
+
+        long generation = table.generation();
+        PathBuilder<T> path = new PathBuilder<>(type, "e");
+        T entity = queryFactory
+                .selectFrom(path)
+                .where(path.getString(keyField.getName()).eq(key))
+                .fetchOne();
+        if (entity != null) {
+            table.put(key, (Long) em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity), generation);
+        }
+        return entity;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.config.HibernateEventListeners;
+import com.example.querydsl.config.HibernateEventListeners.PerSession;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @NaturalKey 값이 생기거나 바뀌거나 사라진 키를 모았다가 커밋한 뒤 NaturalKeyTables 에서 지운다.
+ * - insert: 같은 키를 가진 다른 엔티티가 캐시되어 있으면 지워야 다음 조회에서 중복(NonUniqueResultException)이 드러난다.
+ * - update: 이전 키와 새 키를 모두 지운다.
+ * - delete: 지운 엔티티의 키를 지운다.
+ *
+ * 참고: 이전 키를 지우지 못해도(준영속 엔티티 update(), 벌크 update) NaturalKeyCache 가 엔티티의 현재 키와 비교하기 때문에 잘못된 엔티티를 돌려주지는 않는다.
+ */
+public class NaturalKeyListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final NaturalKeyTables tables;
+
+    // 세션(트랜잭션)별로 모은 키, 트랜잭션이 끝나면 지운다.
+    private final PerSession<Invalidations> pending = HibernateEventListeners.perSession(Invalidations::new);
+
+    public NaturalKeyListener(NaturalKeyTables tables) {
+        this.tables = tables;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        int i = keyIndex(event.getPersister());
+        if (i >= 0) {
+            invalidations(event.getSession()).add(event.getPersister().getMappedClass(), event.getState()[i]);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        int i = keyIndex(event.getPersister());
+        if (i < 0) {
+            return;
+        }
+        Object[] oldState = event.getOldState(); // 준영속 엔티티를 update() 로 저장한 경우 null
+        Object key = event.getState()[i];
+        if (oldState != null && Objects.equals(oldState[i], key)) {
+            return;
+        }
+        Invalidations invalidations = invalidations(event.getSession());
+        invalidations.add(event.getPersister().getMappedClass(), key);
+        if (oldState != null) {
+            invalidations.add(event.getPersister().getMappedClass(), oldState[i]);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        int i = keyIndex(event.getPersister());
+        if (i >= 0) {
+            invalidations(event.getSession()).add(event.getPersister().getMappedClass(), event.getDeletedState()[i]);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * @return @NaturalKey 속성의 위치, 없으면 -1
+     */
+    private int keyIndex(EntityPersister persister) {
+        Field field = tables.keyField(persister.getMappedClass());
+        if (field == null) {
+            return -1;
+        }
+        String[] properties = persister.getPropertyNames();
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].equals(field.getName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Invalidations invalidations(EventSource session) {
+        return pending.get(session);
+    }
+
+    /**
+     * 롤백되면 DB 값이 그대로이기 때문에 지우지 않는다.
+     * 트랜잭션 안에서 넣은 키(커밋 전 값)도 커밋한 뒤 여기서 지워진다.
+     */
+    private class Invalidations implements AfterTransactionCompletionProcess {
+
+        private final List<Class<?>> types = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+
+        void add(Class<?> type, Object key) {
+            if (key != null) {
+                types.add(type);
+                keys.add((String) key);
+            }
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            if (success) {
+                for (int i = 0; i < keys.size(); i++) {
+                    tables.invalidate(types.get(i), keys.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.querydsl.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 자연 키 → id 캐시, 키의 64비트 해시와 id 를 long 배열 하나에 [해시, id] 쌍으로 저장한다.
+ * 항목마다 16 byte 이고 객체를 만들지 않는다. 크기가 고정이라 메모리가 늘어나지 않는다.
+ *
+ * 키마다 들어갈 수 있는 칸이 두 개로 정해져 있어서(2-way set associative) 두 칸이 모두 차 있으면 둘 중 하나를 덮어쓴다.
+ * 잠금 없이 읽고 쓰기 때문에 해시 충돌이나 쓰는 도중에 읽은 값으로 다른 id 가 나올 수 있다.
+ * 여기서 찾은 id 는 힌트로만 쓰고, NaturalKeyCache 가 엔티티의 키 값과 비교해서 확인한다.
+ */
+final class NaturalKeyTable {
+
+    static final long MISSING = Long.MIN_VALUE;
+
+    private final long[] entries;
+    private final int mask;
+
+    // invalidate() 횟수, DB 에서 읽는 동안 키가 바뀌었으면 읽은 값을 넣지 않는다.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    NaturalKeyTable(int maxSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, maxSize) - 1) << 1;
+        entries = new long[capacity * 2];
+        mask = capacity / 2 - 1; // 칸 두 개씩 묶음
+    }
+
+    /**
+     * @return id, 없으면 MISSING
+     */
+    long get(String key) {
+        long hash = hash(key);
+        int i = slot(hash);
+        if (entries[i] == hash) {
+            return entries[i + 1];
+        }
+        return entries[i + 2] == hash ? entries[i + 3] : MISSING;
+    }
+
+    /**
+     * DB 에서 읽기 전에 호출한다.
+     */
+    long generation() {
+        return invalidations.get();
+    }
+
+    /**
+     * @param generation DB 에서 읽기 전의 generation(), 그 사이에 무효화된 키가 있으면 넣지 않는다.
+     */
+    void put(String key, long id, long generation) {
+        if (invalidations.get() != generation) {
+            return;
+        }
+        long hash = hash(key);
+        int i = slot(hash);
+        // 같은 키가 있는 칸 > 빈칸 > 둘 다 다른 키면 해시로 고른 칸
+        if (entries[i] != hash
+                && (entries[i + 2] == hash || entries[i] != 0 && (entries[i + 2] == 0 || (hash & 1) == 1))) {
+            i += 2;
+        }
+        entries[i + 1] = id;
+        entries[i] = hash;
+    }
+
+    void invalidate(String key) {
+        invalidations.incrementAndGet();
+        long hash = hash(key);
+        int i = slot(hash);
+        if (entries[i] == hash) {
+            entries[i] = 0;
+        }
+        if (entries[i + 2] == hash) {
+            entries[i + 2] = 0;
+        }
+    }
+
+    void clear() {
+        invalidations.incrementAndGet();
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * @return 두 칸 중 첫 번째 칸의 위치
+     */
+    private int slot(long hash) {
+        return ((int) (hash ^ (hash >>> 32)) & mask) << 2;
+    }
+
+    /**
+     * FNV-1a 64비트, 빈칸(0)과 구분하기 위해 0 은 1 로 바꾼다.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
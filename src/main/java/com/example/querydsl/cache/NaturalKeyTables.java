@@ -0,0 +1,100 @@
+package com.example.querydsl.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔티티 타입별 NaturalKeyTable, NaturalKeyListener(무효화)와 NaturalKeyCache(조회)가 같이 사용한다.
+ * 엔티티 매니저에 의존하지 않기 때문에 Hibernate 이벤트 리스너를 등록할 때 주입할 수 있다.
+ */
+@Component
+public class NaturalKeyTables {
+
+    private final int maxSize;
+    private final Map<Class<?>, NaturalKeyTable> tables = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Optional<Field>> keyFields = new ConcurrentHashMap<>();
+
+    public NaturalKeyTables(CacheProperties properties) {
+        this.maxSize = properties.getNaturalKeyMaxSize();
+    }
+
+    /**
+     * @return @NaturalKey 가 붙은 필드, 없으면 null
+     */
+    Field keyField(Class<?> type) {
+        return keyFields.computeIfAbsent(type, t -> {
+            for (Class<?> c = t; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(NaturalKey.class)) {
+                        field.setAccessible(true);
+                        return Optional.of(field);
+                    }
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    NaturalKeyTable table(Class<?> type) {
+        return tables.computeIfAbsent(type, t -> new NaturalKeyTable(maxSize));
+    }
+
+    void invalidate(Class<?> type, String key) {
+        NaturalKeyTable table = tables.get(type);
+        if (table != null) {
+            table.invalidate(key);
+        }
+    }
+
+    /**
+     * 모든 타입의 키를 지운다.
+     */
+    public void clear() {
+        tables.values().forEach(NaturalKeyTable::clear);
+    }
+
+    /**
+     * 벌크 update/delete, JDBC 로 자연 키를 바꾼 뒤에 호출한다. 트랜잭션 안이면 커밋한 뒤에 type 의 키를 모두 지운다.
+     * 엔티티 이벤트가 없어서 어떤 키가 바뀌었는지 알 수 없다.
+     */
+    public void clearAfterCommit(Class<?> type) {
+        afterCommit(() -> clear(type));
+    }
+
+    /**
+     * 바뀐 키를 알고 있으면 clearAfterCommit 대신 그 키만 지운다. 바뀌기 전, 바뀐 후의 키를 모두 넘긴다.
+     */
+    public void invalidateAfterCommit(Class<?> type, Collection<String> keys) {
+        List<String> copy = keys.stream().filter(Objects::nonNull).toList();
+        afterCommit(() -> copy.forEach(key -> invalidate(type, key)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void clear(Class<?> type) {
+        NaturalKeyTable table = tables.get(type);
+        if (table != null) {
+            table.clear();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.querydsl.columnar;
+
+import com.querydsl.core.types.Expression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 결과 한 열, 값 타입에 맞는 배열(int[], long[] ...)에 row 순서대로 저장한다.
+ * null 은 비트맵(nulls)에 표시하고 배열에는 0 을 넣는다. null 이 없으면 비트맵을 만들지 않는다.
+ */
+abstract class Column {
+
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte STRING = 4;
+    static final byte OBJECT = 5;
+
+    private long[] nulls;
+
+    static Column of(Expression<?> expr, int capacity) {
+        Class<?> type = expr.getType();
+        if (type == Integer.class) {
+            return new IntColumn(capacity);
+        }
+        if (type == Long.class) {
+            return new LongColumn(capacity);
+        }
+        if (type == Double.class) {
+            return new DoubleColumn(capacity);
+        }
+        if (type == String.class) {
+            return new StringColumn(capacity);
+        }
+        return new ObjectColumn(capacity);
+    }
+
+    abstract byte type();
+
+    /**
+     * row 번호 순서대로 호출한다.
+     */
+    final void add(int row, Object value) {
+        if (value == null) {
+            if (nulls == null) {
+                nulls = new long[Math.max(1, (capacity() + 63) >>> 6)];
+            } else if ((row >>> 6) >= nulls.length) {
+                nulls = Arrays.copyOf(nulls, Math.max(nulls.length * 2, (row >>> 6) + 1));
+            }
+            nulls[row >>> 6] |= 1L << row;
+        }
+        ensureCapacity(row + 1);
+        set(row, value);
+    }
+
+    final boolean isNull(int row) {
+        return nulls != null && (row >>> 6) < nulls.length && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return 값, null 이면 null (박싱한다)
+     */
+    final Object get(int row) {
+        return isNull(row) ? null : value(row);
+    }
+
+    final long[] nulls() {
+        return nulls;
+    }
+
+    /**
+     * @param value null 이면 0 을 넣는다.
+     */
+    abstract void set(int row, Object value);
+
+    abstract Object value(int row);
+
+    abstract int capacity();
+
+    abstract void ensureCapacity(int size);
+
+    abstract void write(ColumnarOutput out, int size) throws IOException;
+
+    /**
+     * 배열은 그대로 두고 값을 비운다. 다음 chunk 를 row 0 부터 다시 채운다.
+     */
+    void clear(int size) {
+        if (nulls != null) {
+            Arrays.fill(nulls, 0);
+        }
+    }
+
+    /**
+     * 마지막 row 를 넣은 뒤 호출한다. 채우는 동안만 필요한 자료구조를 버린다.
+     */
+    void seal() {
+    }
+
+    /**
+     * @return 힙에서 차지하는 크기(byte) 추정값
+     */
+    long estimatedBytes() {
+        return nulls == null ? 0 : 16L + nulls.length * 8L;
+    }
+
+    static int grow(int capacity, int size) {
+        return Math.max(size, capacity + (capacity >> 1) + 16); // 1.5배
+    }
+}
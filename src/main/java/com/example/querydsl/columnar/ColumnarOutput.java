@@ -0,0 +1,93 @@
+package com.example.querydsl.columnar;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 배열을 값 하나씩 쓰지 않고 버퍼(64KB)에 통째로 복사(IntBuffer.put 등)해서 OutputStream 에 쓴다. (big-endian)
+ * DataOutputStream.writeInt 처럼 값마다 메서드를 호출하거나 row 마다 객체를 만들지 않는다.
+ */
+final class ColumnarOutput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    ColumnarOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    void writeByte(byte value) throws IOException {
+        ensureRemaining(1);
+        buffer.put(value);
+    }
+
+    void writeInt(int value) throws IOException {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flushBuffer();
+            if (bytes.length > buffer.capacity()) {
+                out.write(bytes);
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    void writeInts(int[] values, int size) throws IOException {
+        for (int from = 0; from < size; ) {
+            ensureRemaining(Integer.BYTES);
+            int n = Math.min(size - from, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, from, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            from += n;
+        }
+    }
+
+    void writeLongs(long[] values, int size) throws IOException {
+        for (int from = 0; from < size; ) {
+            ensureRemaining(Long.BYTES);
+            int n = Math.min(size - from, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, from, n);
+            buffer.position(buffer.position() + n * Long.BYTES);
+            from += n;
+        }
+    }
+
+    void writeDoubles(double[] values, int size) throws IOException {
+        for (int from = 0; from < size; ) {
+            ensureRemaining(Double.BYTES);
+            int n = Math.min(size - from, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().put(values, from, n);
+            buffer.position(buffer.position() + n * Double.BYTES);
+            from += n;
+        }
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.querydsl.columnar;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import org.hibernate.annotations.QueryHints;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 조회 결과를 열(column) 단위 배열로 저장한다.
+ *
+ * fetch() 로 받은 List<Tuple> 은 row 마다 Tuple, Object[], 박싱한 Integer/Long 을 만들고 결과를 다 쓸 때까지 모두 힙에 남는다.
+ * 여기서는 select 절의 표현식마다 타입에 맞는 배열 하나에 row 순서대로 저장한다.
+ * - Integer: int[], Long: long[], Double: double[] (avg() 등)
+ * - String: 사전 인코딩 (서로 다른 문자열 + row 별 사전 번호 int[])
+ * - 그 밖의 타입(엔티티 등): 참조 배열, row 마다 객체를 만들지 않는 것만 줄어든다.
+ * row 는 커서(JDBC fetch size 단위)로 읽어서 바로 배열에 넣기 때문에 조회 중에 만든 객체는 곧바로 버려진다. (young GC 에서 정리)
+ *
+ * ColumnarResult result = ColumnarResult.fetch(em, queryFactory
+ *         .select(member.id, member.age, team.name)
+ *         .from(member)
+ *         .join(member.team, team));
+ * ColumnarResult.Cursor cursor = result.cursor();
+ * int age = result.indexOf(member.age);
+ * while (cursor.next()) {
+ *     sum += cursor.getInt(age);
+ * }
+ *
+ * 참고: select 절에 DTO 프로젝션(new QMemberTeamDto(...))은 쓸 수 없다. 열이 될 표현식을 나열한다.
+ * 참고: 호출한 쪽 트랜잭션 안에서 실행해야 한다. (커서)
+ */
+public class ColumnarResult {
+
+    public static final String CONTENT_TYPE = "application/x-querydsl-columnar";
+    static final int MAGIC = 0x51434F4C; // "QCOL"
+    static final int VERSION = 1;
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final List<Expression<?>> expressions;
+    private final Map<Expression<?>, Integer> indexes = new HashMap<>();
+    private final Column[] columns;
+    private int size;
+
+    private ColumnarResult(List<Expression<?>> expressions) {
+        this.expressions = expressions;
+        this.columns = new Column[expressions.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Column.of(expressions.get(i), INITIAL_CAPACITY);
+            indexes.putIfAbsent(expressions.get(i), i);
+        }
+    }
+
+    public static ColumnarResult fetch(EntityManager em, JPAQuery<?> query) {
+        ColumnarResult result = new ColumnarResult(columns(query.getMetadata().getProjection()));
+        try (Stream<?> rows = stream(em, query)) {
+            for (Iterator<?> it = rows.iterator(); it.hasNext(); ) {
+                result.add(it.next());
+            }
+        }
+        for (Column column : result.columns) {
+            column.seal();
+        }
+        return result;
+    }
+
+    /**
+     * 결과를 chunkSize 건씩 같은 ColumnarResult 에 채워서 chunk 에 넘긴다.
+     * 배열을 다시 쓰기 때문에 결과 건수와 상관없이 chunkSize 건만큼만 메모리를 쓴다. (내보내기처럼 결과 전체를 들고 있을 필요가 없는 경우)
+     * chunk 는 넘겨받은 결과를 바로 쓰고(writeTo 등) 보관하면 안 된다. 다음 chunk 를 채우면서 값이 바뀐다.
+     * 결과가 없으면 빈 chunk 를 한 번 넘긴다.
+     *
+     * @return 전체 row 수
+     */
+    public static long fetch(EntityManager em, JPAQuery<?> query, int chunkSize, Consumer<ColumnarResult> chunk) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 0 보다 커야 합니다: " + chunkSize);
+        }
+        ColumnarResult result = new ColumnarResult(columns(query.getMetadata().getProjection()));
+        long count = 0;
+        try (Stream<?> rows = stream(em, query)) {
+            for (Iterator<?> it = rows.iterator(); it.hasNext(); ) {
+                result.add(it.next());
+                if (result.size == chunkSize) {
+                    chunk.accept(result);
+                    count += result.size;
+                    result.clear();
+                }
+            }
+        }
+        if (result.size > 0 || count == 0) {
+            chunk.accept(result);
+            count += result.size;
+        }
+        return count;
+    }
+
+    private static Stream<?> stream(EntityManager em, JPAQuery<?> query) {
+        QueryMetadata metadata = query.getMetadata();
+        // JPAQuery.stream() 은 row 마다 Tuple 을 만들기 때문에 JPQL 로 직접 실행해서 Object[] 를 받는다. (PreparedQuery 와 같은 방법)
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+        Query jpaQuery = em.createQuery(serializer.toString());
+        JPAUtil.setConstants(jpaQuery, serializer.getConstants(), Collections.emptyMap());
+        QueryModifiers modifiers = metadata.getModifiers();
+        if (modifiers.getLimit() != null) {
+            jpaQuery.setMaxResults(modifiers.getLimitAsInteger());
+        }
+        if (modifiers.getOffset() != null) {
+            jpaQuery.setFirstResult(modifiers.getOffsetAsInteger());
+        }
+        jpaQuery.setHint(QueryHints.FETCH_SIZE, FETCH_SIZE);
+        return jpaQuery.getResultStream();
+    }
+
+    private static List<Expression<?>> columns(Expression<?> projection) {
+        if (projection == null) {
+            throw new IllegalArgumentException("select 절이 없습니다.");
+        }
+        if (!(projection instanceof FactoryExpression)) {
+            return List.of(projection);
+        }
+        // select(a, b) 는 QTuple 이지만 avg() 같은 숫자 표현식이 있으면 NumberConversions 로 감싸져 있다. (JPAQueryMixin)
+        if (projection.getType() != Tuple.class) {
+            throw new IllegalArgumentException("DTO 프로젝션은 열로 나눌 수 없습니다. 표현식을 나열해야 합니다: " + projection);
+        }
+        List<Expression<?>> args = ((FactoryExpression<?>) projection).getArgs();
+        for (Expression<?> arg : args) {
+            if (arg instanceof FactoryExpression) {
+                throw new IllegalArgumentException("DTO/Tuple 프로젝션은 열로 나눌 수 없습니다. 표현식을 나열해야 합니다: " + arg);
+            }
+        }
+        return args;
+    }
+
+    private void add(Object row) {
+        if (columns.length == 1) {
+            columns[0].add(size, row);
+        } else {
+            Object[] values = (Object[]) row;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(size, values[i]);
+            }
+        }
+        size++;
+    }
+
+    private void clear() {
+        for (Column column : columns) {
+            column.clear(size);
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Expression<?>> getExpressions() {
+        return Collections.unmodifiableList(expressions);
+    }
+
+    /**
+     * 반복문 안에서 표현식으로 찾지 않도록 열 번호를 미리 구해둔다.
+     *
+     * @throws IllegalArgumentException select 절에 없는 표현식
+     */
+    public int indexOf(Expression<?> expr) {
+        Integer index = indexes.get(expr);
+        if (index == null) {
+            throw new IllegalArgumentException("select 절에 없는 표현식입니다: " + expr);
+        }
+        return index;
+    }
+
+    /**
+     * @return 서로 다른 문자열 수 (String 열)
+     */
+    public int dictionarySize(Expression<String> expr) {
+        return column(indexOf(expr), StringColumn.class).dictionarySize();
+    }
+
+    /**
+     * @return 배열, 사전이 힙에서 차지하는 크기(byte) 추정값
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * 바이너리로 쓴다. (big-endian)
+     * 헤더: MAGIC, VERSION, row 수, 열 수, 열마다 (이름 UTF-8 길이 + byte, 타입)
+     * 열마다: null 비트맵 (long 개수 + long[], null 이 없으면 0), 값 (int[], long[], double[] 또는 사전 + int[])
+     * 배열은 버퍼에 통째로 복사해서 쓰기 때문에 row 마다 객체를 만들지 않는다.
+     * chunk 로 나눠서 읽은 결과는 chunk 마다 이어서 쓴다. 읽는 쪽은 스트림이 끝날 때까지 헤더부터 반복해서 읽는다.
+     *
+     * @throws IllegalStateException 엔티티 등 객체 열이 있는 경우
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        ColumnarOutput output = new ColumnarOutput(out);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(size);
+        output.writeInt(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            byte[] name = expressions.get(i).toString().getBytes(StandardCharsets.UTF_8);
+            output.writeInt(name.length);
+            output.writeBytes(name);
+            output.writeByte(columns[i].type());
+        }
+        for (Column column : columns) {
+            long[] nulls = column.nulls();
+            int words = nulls == null ? 0 : Math.min(nulls.length, (size + 63) >>> 6);
+            output.writeInt(words);
+            if (words > 0) {
+                output.writeLongs(nulls, words);
+            }
+            column.write(output, size);
+        }
+        output.flush();
+    }
+
+    private <C extends Column> C column(int index, Class<C> type) {
+        Column column = columns[index];
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException(expressions.get(index) + " 열의 타입이 " + expressions.get(index).getType().getSimpleName() + " 입니다.");
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * row 를 하나씩 읽는다. row 마다 객체를 만들지 않고 배열에서 바로 꺼낸다.
+     * getInt/getLong/getDouble 은 null 이면 0 을 돌려주기 때문에 null 이 가능한 열은 isNull 로 먼저 확인한다.
+     */
+    public class Cursor {
+
+        private int row = -1;
+
+        public boolean next() {
+            return ++row < size;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public boolean isNull(int column) {
+            return columns[column].isNull(row);
+        }
+
+        public int getInt(int column) {
+            return column(column, IntColumn.class).getInt(row);
+        }
+
+        public long getLong(int column) {
+            return column(column, LongColumn.class).getLong(row);
+        }
+
+        public double getDouble(int column) {
+            return column(column, DoubleColumn.class).getDouble(row);
+        }
+
+        public String getString(int column) {
+            return column(column, StringColumn.class).getString(row);
+        }
+
+        /**
+         * 박싱한 값, 열 타입과 상관없이 꺼낼 수 있다.
+         */
+        public <T> T get(Expression<T> expr) {
+            @SuppressWarnings("unchecked")
+            T value = (T) columns[indexOf(expr)].get(row);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.querydsl.columnar;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+final class DoubleColumn extends Column {
+
+    private double[] values;
+
+    DoubleColumn(int capacity) {
+        values = new double[capacity];
+    }
+
+    @Override
+    byte type() {
+        return DOUBLE;
+    }
+
+    @Override
+    void set(int row, Object value) {
+        values[row] = value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    Object value(int row) {
+        return values[row];
+    }
+
+    double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void ensureCapacity(int size) {
+        if (size > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    @Override
+    void write(ColumnarOutput out, int size) throws IOException {
+        out.writeDoubles(values, size);
+    }
+
+    @Override
+    long estimatedBytes() {
+        return super.estimatedBytes() + 16L + values.length * 8L;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.querydsl.columnar;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+final class IntColumn extends Column {
+
+    private int[] values;
+
+    IntColumn(int capacity) {
+        values = new int[capacity];
+    }
+
+    @Override
+    byte type() {
+        return INT;
+    }
+
+    @Override
+    void set(int row, Object value) {
+        values[row] = value == null ? 0 : ((Number) value).intValue();
+    }
+
+    @Override
+    Object value(int row) {
+        return values[row];
+    }
+
+    int getInt(int row) {
+        return values[row];
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void ensureCapacity(int size) {
+        if (size > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    @Override
+    void write(ColumnarOutput out, int size) throws IOException {
+        out.writeInts(values, size);
+    }
+
+    @Override
+    long estimatedBytes() {
+        return super.estimatedBytes() + 16L + values.length * 4L;
+    }
+}
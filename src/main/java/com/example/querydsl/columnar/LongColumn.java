@@ -0,0 +1,54 @@
+package com.example.querydsl.columnar;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+final class LongColumn extends Column {
+
+    private long[] values;
+
+    LongColumn(int capacity) {
+        values = new long[capacity];
+    }
+
+    @Override
+    byte type() {
+        return LONG;
+    }
+
+    @Override
+    void set(int row, Object value) {
+        values[row] = value == null ? 0 : ((Number) value).longValue();
+    }
+
+    @Override
+    Object value(int row) {
+        return values[row];
+    }
+
+    long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void ensureCapacity(int size) {
+        if (size > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    @Override
+    void write(ColumnarOutput out, int size) throws IOException {
+        out.writeLongs(values, size);
+    }
+
+    @Override
+    long estimatedBytes() {
+        return super.estimatedBytes() + 16L + values.length * 8L;
+    }
+}
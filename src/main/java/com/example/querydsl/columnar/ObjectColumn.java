@@ -0,0 +1,59 @@
+package com.example.querydsl.columnar;
+
+import java.util.Arrays;
+
+/**
+ * 엔티티, 날짜 등 기본 타입으로 바꿀 수 없는 값은 참조를 그대로 저장한다. (row 마다 Tuple, Object[] 를 만들지 않는 것만 줄어든다)
+ * 직렬화할 수 없기 때문에 writeTo 에는 쓸 수 없다.
+ */
+final class ObjectColumn extends Column {
+
+    private Object[] values;
+
+    ObjectColumn(int capacity) {
+        values = new Object[capacity];
+    }
+
+    @Override
+    byte type() {
+        return OBJECT;
+    }
+
+    @Override
+    void set(int row, Object value) {
+        values[row] = value;
+    }
+
+    @Override
+    Object value(int row) {
+        return values[row];
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void ensureCapacity(int size) {
+        if (size > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, size));
+        }
+    }
+
+    @Override
+    void clear(int size) {
+        super.clear(size);
+        Arrays.fill(values, 0, size, null); // 이전 chunk 의 객체를 잡고 있지 않게 한다.
+    }
+
+    @Override
+    void write(ColumnarOutput out, int size) {
+        throw new IllegalStateException("엔티티 등 객체 열은 직렬화할 수 없습니다. 필요한 컬럼만 select 해야 합니다.");
+    }
+
+    @Override
+    long estimatedBytes() {
+        return super.estimatedBytes() + 16L + values.length * 4L; // 참조만 (compressed oops)
+    }
+}
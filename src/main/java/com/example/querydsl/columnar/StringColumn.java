@@ -0,0 +1,107 @@
+package com.example.querydsl.columnar;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 문자열 사전(dictionary) 인코딩, 서로 다른 문자열은 사전에 한 번만 저장하고 row 마다 사전 번호(int)만 저장한다.
+ * team.name 처럼 값의 종류가 적으면 row 수와 상관없이 문자열 수가 팀 수로 줄어든다.
+ * username 처럼 모두 다르면 줄지 않는다. (row 마다 int 4 byte 가 늘어난다)
+ */
+final class StringColumn extends Column {
+
+    private int[] codes;
+    private String[] dictionary = new String[16];
+    private int dictionarySize;
+    private Map<String, Integer> lookup = new HashMap<>(); // 문자열 → 사전 번호, 채우는 동안만 사용한다.
+
+    StringColumn(int capacity) {
+        codes = new int[capacity];
+    }
+
+    @Override
+    byte type() {
+        return STRING;
+    }
+
+    @Override
+    void set(int row, Object value) {
+        if (value == null) {
+            codes[row] = 0;
+            return;
+        }
+        codes[row] = lookup.computeIfAbsent((String) value, this::addToDictionary);
+    }
+
+    private int addToDictionary(String value) {
+        if (dictionarySize == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        }
+        dictionary[dictionarySize] = value;
+        return dictionarySize++;
+    }
+
+    @Override
+    Object value(int row) {
+        return dictionary[codes[row]];
+    }
+
+    String getString(int row) {
+        return isNull(row) ? null : dictionary[codes[row]];
+    }
+
+    int dictionarySize() {
+        return dictionarySize;
+    }
+
+    @Override
+    int capacity() {
+        return codes.length;
+    }
+
+    @Override
+    void ensureCapacity(int size) {
+        if (size > codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, size));
+        }
+    }
+
+    @Override
+    void clear(int size) {
+        super.clear(size);
+        dictionarySize = 0;
+        lookup.clear();
+    }
+
+    @Override
+    void seal() {
+        lookup = null;
+        dictionary = Arrays.copyOf(dictionary, dictionarySize);
+    }
+
+    /**
+     * 사전 크기, 사전(UTF-8 길이 + byte), row 별 사전 번호
+     */
+    @Override
+    void write(ColumnarOutput out, int size) throws IOException {
+        out.writeInt(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            byte[] bytes = dictionary[i].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.writeBytes(bytes);
+        }
+        out.writeInts(codes, size);
+    }
+
+    @Override
+    long estimatedBytes() {
+        long bytes = super.estimatedBytes() + 16L + codes.length * 4L + 16L + dictionary.length * 4L;
+        for (int i = 0; i < dictionarySize; i++) {
+            bytes += 24 + 16 + dictionary[i].length(); // String + byte[] (Latin-1)
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.querydsl.concurrency;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(OptimisticRetryProperties.class)
+public class OptimisticLockConfig {
+
+    @Bean
+    OptimisticRetryExecutor optimisticRetryExecutor(PlatformTransactionManager transactionManager, OptimisticRetryProperties properties) {
+        return new OptimisticRetryExecutor(transactionManager, properties);
+    }
+
+    @Bean
+    TeamLocks teamLocks(OptimisticRetryProperties properties) {
+        return new TeamLocks(properties.getTeamLockStripes());
+    }
+}
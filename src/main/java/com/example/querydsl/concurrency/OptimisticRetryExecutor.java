@@ -0,0 +1,71 @@
+package com.example.querydsl.concurrency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌이 나면 처음부터 다시 실행한다.
+ *
+ * 충돌한 트랜잭션의 영속성 컨텍스트에는 이전 버전의 엔티티가 남아 있기 때문에 같은 트랜잭션 안에서는 다시 시도할 수 없다.
+ * 시도마다 새 트랜잭션으로 실행해서 엔티티를 다시 읽는다. 그래서 이미 트랜잭션 안이면 IllegalStateException 을 던진다.
+ * 충돌한 트랜잭션끼리 같은 간격으로 다시 부딪히지 않도록 기다리는 시간은 무작위(0 ~ backoff)로 정하고, 실패할 때마다 두 배로 늘린다. (max-backoff 까지)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OptimisticRetryExecutor {
+
+    private final PlatformTransactionManager transactionManager;
+    private final OptimisticRetryProperties properties;
+
+    /**
+     * callback 을 새 트랜잭션에서 실행한다. 커밋할 때 충돌해도 다시 실행한다.
+     */
+    public <T> T executeInTransaction(TransactionCallback<T> callback) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return execute(() -> tx.execute(callback));
+    }
+
+    /**
+     * attempt 는 호출될 때마다 트랜잭션을 새로 시작해야 한다. (트랜잭션 밖에서 잠금을 잡는 경우 등)
+     */
+    public <T> T execute(Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("트랜잭션 안에서는 다시 시도할 수 없습니다. 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        long backoffNanos = properties.getInitialBackoff().toNanos();
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempts >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                log.debug("낙관적 락 충돌, 다시 시도 {}/{}: {}", attempts + 1, properties.getMaxAttempts(), e.getMessage());
+                if (!sleep(ThreadLocalRandom.current().nextLong(backoffNanos + 1))) {
+                    throw e;
+                }
+                backoffNanos = Math.min(backoffNanos * 2, properties.getMaxBackoff().toNanos());
+            }
+        }
+    }
+
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.querydsl.concurrency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.optimistic")
+public class OptimisticRetryProperties {
+
+    // 처음 실행을 포함한 최대 시도 횟수, 넘으면 마지막 OptimisticLockException 을 던진다.
+    private int maxAttempts = 5;
+
+    // 다시 시도하기 전에 기다리는 시간, 실패할 때마다 두 배로 늘리고 0 ~ 이 값 사이에서 무작위로 기다린다.
+    private Duration initialBackoff = Duration.ofMillis(2);
+    private Duration maxBackoff = Duration.ofMillis(100);
+
+    // 팀 id 별 잠금(TeamLocks) 개수, 2의 거듭제곱으로 올림한다.
+    private int teamLockStripes = 64;
+}
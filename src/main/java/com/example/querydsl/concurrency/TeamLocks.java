@@ -0,0 +1,76 @@
+package com.example.querydsl.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 팀 id 별 잠금 (애플리케이션 메모리), 회원이 몰리는 팀으로의 이동을 서버 안에서 한 줄로 세운다.
+ *
+ * 같은 팀을 건드리는 트랜잭션이 동시에 실행되면 하나만 커밋되고 나머지는 버전 충돌로 처음부터 다시 실행된다.
+ * 충돌할 트랜잭션을 미리 기다리게 해서 다시 실행하는 비용(조회, 롤백)을 줄인다. 다른 서버와의 충돌은 여전히 버전으로 막는다.
+ * 팀마다 잠금을 만들지 않고 id 해시로 고정된 개수(stripes)의 잠금을 나눠 쓴다. 다른 팀이 같은 잠금을 쓸 수도 있다.
+ * 잠금 두 개는 항상 번호 순서로 잡아서 서로 기다리지(데드락) 않는다.
+ */
+public class TeamLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public TeamLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes) - 1) << 1;
+        locks = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = locks.length - 1;
+    }
+
+    /**
+     * 두 팀의 잠금을 잡고 action 을 실행한다. 커밋까지 잠금 안에서 끝나도록 action 안에서 트랜잭션을 시작해야 한다.
+     * 팀 id 가 null 이면 그 팀은 잠그지 않는다.
+     */
+    public <T> T withTeams(Long teamId1, Long teamId2, Supplier<T> action) {
+        int first = stripe(teamId1);
+        int second = stripe(teamId2);
+        if (first > second) {
+            int tmp = first;
+            first = second;
+            second = tmp;
+        }
+        lock(first);
+        try {
+            lock(second);
+            try {
+                return action.get();
+            } finally {
+                unlock(second);
+            }
+        } finally {
+            unlock(first);
+        }
+    }
+
+    /**
+     * @return 잠금 번호, 팀 id 가 null 이면 -1
+     */
+    private int stripe(Long teamId) {
+        if (teamId == null) {
+            return -1;
+        }
+        long h = teamId * 0x9E3779B97F4A7C15L; // 연속된 id 가 같은 잠금에 몰리지 않게 섞는다.
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // 같은 잠금을 두 번 잡아도 ReentrantLock 이라 괜찮지만 번호가 -1 이면 건너뛴다.
+    private void lock(int stripe) {
+        if (stripe >= 0) {
+            locks[stripe].lock();
+        }
+    }
+
+    private void unlock(int stripe) {
+        if (stripe >= 0) {
+            locks[stripe].unlock();
+        }
+    }
+}
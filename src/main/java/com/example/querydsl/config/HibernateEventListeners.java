@@ -0,0 +1,96 @@
+package com.example.querydsl.config;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 세션 팩토리가 만들어질 때 insert/update/delete 이벤트 리스너를 Hibernate 에 등록한다.
+ * ex) @Bean HibernatePropertiesCustomizer xxxListenerCustomizer() { return HibernateEventListeners.customizer(new XxxListener()); }
+ *
+ * IntegratorProvider 는 하나만 지정할 수 있기 때문에 다른 설정(TeamStatsConfig, SearchIndexConfig, CacheConfig)이 먼저 등록했으면 합친다.
+ * 변경을 모았다가 트랜잭션이 끝날 때 반영하는 리스너는 perSession() 으로 세션별 변경을 관리한다.
+ */
+public final class HibernateEventListeners {
+
+    private HibernateEventListeners() {
+    }
+
+    public static <T extends PostInsertEventListener & PostUpdateEventListener & PostDeleteEventListener>
+    HibernatePropertiesCustomizer customizer(T listener) {
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                  SessionFactoryServiceRegistry serviceRegistry) {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_INSERT, listener);
+                registry.appendListeners(EventType.POST_UPDATE, listener);
+                registry.appendListeners(EventType.POST_DELETE, listener);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return hibernateProperties -> hibernateProperties.merge(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(integrator),
+                (previous, added) -> (IntegratorProvider) () -> {
+                    List<Integrator> integrators = new ArrayList<>(((IntegratorProvider) previous).getIntegrators());
+                    integrators.addAll(((IntegratorProvider) added).getIntegrators());
+                    return integrators;
+                });
+    }
+
+    /**
+     * 세션(트랜잭션)별로 변경을 모으는 리스너가 쓴다.
+     * 세션에서 처음 get() 할 때 factory 로 만들어서 ActionQueue 에 등록하고(Before/AfterTransactionCompletionProcess), 트랜잭션이 끝나면 지운다.
+     * ex) private final PerSession<XxxChanges> pending = HibernateEventListeners.perSession(XxxChanges::new);
+     */
+    public static <T> PerSession<T> perSession(Supplier<T> factory) {
+        return new PerSession<>(factory);
+    }
+
+    public static final class PerSession<T> {
+
+        private final Supplier<T> factory;
+        private final Map<EventSource, T> pending = new ConcurrentHashMap<>();
+
+        private PerSession(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        public T get(EventSource session) {
+            return pending.computeIfAbsent(session, s -> {
+                T value = factory.get();
+                ActionQueue actionQueue = s.getActionQueue();
+                if (value instanceof BeforeTransactionCompletionProcess) {
+                    actionQueue.registerProcess((BeforeTransactionCompletionProcess) value);
+                }
+                if (value instanceof AfterTransactionCompletionProcess) {
+                    actionQueue.registerProcess((AfterTransactionCompletionProcess) value);
+                }
+                actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, ignored) -> pending.remove(s));
+                return value;
+            });
+        }
+    }
+}
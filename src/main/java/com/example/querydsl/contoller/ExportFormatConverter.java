@@ -0,0 +1,19 @@
+package com.example.querydsl.contoller;
+
+import com.example.querydsl.service.ExportFormat;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * ?format=csv 처럼 소문자로 받는다. 없는 형식이면 변환에 실패해서 400 Bad Request 로 응답한다.
+ */
+@Component
+public class ExportFormatConverter implements Converter<String, ExportFormat> {
+
+    @Override
+    public ExportFormat convert(String source) {
+        return ExportFormat.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
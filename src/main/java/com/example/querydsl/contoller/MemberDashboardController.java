@@ -0,0 +1,24 @@
+package com.example.querydsl.contoller;
+
+import com.example.querydsl.dto.MemberDashboardDto;
+import com.example.querydsl.service.MemberDashboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberDashboardController {
+
+    private final MemberDashboardService memberDashboardService;
+
+    /**
+     * ex) GET /members/dashboard?teamName=teamA&size=20
+     */
+    @GetMapping("/members/dashboard")
+    public MemberDashboardDto dashboard(@RequestParam(required = false) String teamName,
+                                        @RequestParam(defaultValue = "20") int size) {
+        return memberDashboardService.findDashboard(teamName, size);
+    }
+}
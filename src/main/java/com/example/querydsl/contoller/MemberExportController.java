@@ -0,0 +1,32 @@
+package com.example.querydsl.contoller;
+
+import com.example.querydsl.service.ExportFormat;
+import com.example.querydsl.service.MemberExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private final MemberExportService memberExportService;
+
+    /**
+     * 응답 body 에 바로 쓰기 때문에 결과 전체를 메모리에 올리지 않는다. (columnar 는 chunk 크기만큼 열 배열로 모아서 쓴다)
+     * ex) GET /members/export?format=csv (ExportFormatConverter)
+     */
+    @GetMapping("/members/export")
+    public void export(@RequestParam(defaultValue = "ndjson") ExportFormat format, HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"members." + format.name().toLowerCase() + "\"");
+        memberExportService.export(response.getOutputStream(), format);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 회원 대시보드, 서로 독립적인 조회 세 개의 결과
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberDashboardDto {
+
+    private List<MemberTeamDto> recentMembers;
+    private long totalCount;
+    private List<TeamAgeStatsDto> teamAgeStats;
+}
@@ -0,0 +1,18 @@
+package com.example.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 대량 insert 입력 한 건, 팀은 엔티티 대신 id 로 받는다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MemberImportRow {
+
+    private String username;
+    private int age;
+    private Long teamId; // 팀이 없으면 null
+}
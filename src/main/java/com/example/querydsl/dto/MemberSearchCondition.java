@@ -0,0 +1,24 @@
+package com.example.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 회원 검색 조건, 값이 없는(null, 빈 문자열) 조건은 무시한다.
+ */
+@Data
+public class MemberSearchCondition {
+
+    private String username;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private String teamName;
+    private Sort sort = Sort.ID_DESC;
+
+    public enum Sort {
+        ID_DESC,
+        USERNAME,
+        AGE,
+        // team 조인이 필요하다.
+        TEAM_NAME
+    }
+}
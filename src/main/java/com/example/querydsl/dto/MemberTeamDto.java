@@ -0,0 +1,28 @@
+package com.example.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 읽기 전용 목록 화면용 DTO
+ * 엔티티가 아니기 때문에 영속성 컨텍스트에 올라가지 않고, 스냅샷(변경 감지)도 만들지 않는다.
+ * '@QueryProjection' 을 붙이면 compileQuerydsl 실행 시 QMemberTeamDto 가 생성되어 생성자 호출을 컴파일 시점에 검사할 수 있다.
+ */
+@Data
+@NoArgsConstructor
+public class MemberTeamDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private String teamName;
+
+    @QueryProjection
+    public MemberTeamDto(Long memberId, String username, int age, String teamName) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
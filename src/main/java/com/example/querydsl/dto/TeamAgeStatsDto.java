@@ -0,0 +1,30 @@
+package com.example.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 팀별 회원 나이 통계
+ */
+@Data
+@NoArgsConstructor
+public class TeamAgeStatsDto {
+
+    private String teamName;
+    private long count;
+    private long sum; // 회원이 많으면 int 범위를 넘는다.
+    private double avg;
+    private int max;
+    private int min;
+
+    @QueryProjection
+    public TeamAgeStatsDto(String teamName, Long count, Long sum, Double avg, Integer max, Integer min) {
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = avg;
+        this.max = max;
+        this.min = min;
+    }
+}
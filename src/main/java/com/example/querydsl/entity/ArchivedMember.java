@@ -0,0 +1,38 @@
+package com.example.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 보관(cold) 회원, MemberArchiver 가 member 테이블에서 옮긴다. id 는 member 테이블에서 쓰던 값 그대로다.
+ * 옮긴 뒤에는 수정하지 않는다.
+ *
+ * 팀이 삭제되어도 보관된 회원은 남아야 하기 때문에 외래키를 걸지 않는다. (삭제된 팀이면 조인 결과가 없다)
+ */
+@Entity
+@Immutable
+@Table(name = "member_archive", indexes = @Index(name = "idx_member_archive_team_id", columnList = "team_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age", "archivedAt"})
+public class ArchivedMember {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "team_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Team team;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
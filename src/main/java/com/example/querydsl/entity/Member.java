@@ -1,21 +1,45 @@
 package com.example.querydsl.entity;
 
+import com.example.querydsl.cache.NaturalKey;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+// 검색 조건(MemberSearchRepository)에 쓰는 컬럼, team_id 는 팀 조인과 팀별 조회에 쓴다.
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")})
+// 이름으로 조회(NaturalKeyCache)한 회원을 SQL 없이 꺼내기 위해 2차 캐시에 올린다.
+// 팀보다 자주 바뀌기 때문에 저장/수정할 때 캐시에 넣지 않고 지우기만 한다. (다음에 읽을 때 다시 넣는다)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 기본 생성자를 PROTECTED 레벨로 생성
 @ToString(of = {"of", "username", "age"}) // 무한 참조 될 수 있기 때문에 연관관계 있는 필드는 제외하고 등록하자
 public class Member {
 
-    @Id @GeneratedValue
+    // 시퀀스를 50씩 미리 할당(pooled optimizer)해서 persist 할 때마다 시퀀스를 조회하지 않는다.
+    // IDENTITY 전략이면 insert 를 해야 id 를 알 수 있어 JDBC batch insert 가 불가능하다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
+    @NaturalKey
     private String username;
     private int age;
 
+    // 수정할 때마다 1씩 올리고 update ... where version = ? 로 확인한다. 그사이 다른 트랜잭션이 수정했으면 OptimisticLockException
+    // 소속 팀(team_id)도 회원 쪽 컬럼이기 때문에 팀 이동끼리의 충돌도 이 버전으로 막는다.
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
     // 외래키가 있는 주인 쪽에서 상대방한테 @JoinColumn을 걸어준다. - 외래키는 Member에 있는 team_id 이다.
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
@@ -37,9 +61,18 @@ public class Member {
         }
     }
 
-    private void changeTeam(Team team) {
+    /**
+     * 양쪽 members 컬렉션도 맞춘다. 이전 팀 컬렉션은 이미 읽은 경우에만 뺀다. (빼려고 컬렉션 전체를 조회하지 않는다)
+     * 동시에 여러 요청이 팀을 옮기는 경우는 MemberTransferService 를 사용한다.
+     */
+    public void changeTeam(Team team) {
+        if (this.team != null && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null) {
+            team.getMembers().add(this);
+        }
     }
 
 }
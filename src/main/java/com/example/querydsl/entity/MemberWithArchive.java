@@ -0,0 +1,41 @@
+package com.example.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.*;
+
+/**
+ * member + member_archive (union all), 테이블이 아니라 조회할 때마다 from 절의 서브쿼리가 된다.
+ * 보관된 회원까지 조회할 때만 쓴다. 직접 쓰지 않고 MemberArchiveQuery.withArchive() 로 member 쿼리를 바꿔서 쓴다.
+ *
+ * 참고: 서브쿼리 안으로 조건이 전달되지 않으면(DB 마다 다르다) 두 테이블을 모두 읽는다.
+ */
+@Entity
+@Immutable
+@Subselect("select member_id, username, age, team_id, false as archived from member" +
+        " union all" +
+        " select member_id, username, age, team_id, true as archived from member_archive")
+@Synchronize({"member", "member_archive"}) // 두 테이블을 바꾸고 조회하면 먼저 flush 하고, 쿼리 캐시도 두 테이블 기준으로 무효화한다.
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age", "archived"})
+public class MemberWithArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "team_id")
+    private Team team;
+
+    private boolean archived;
+}
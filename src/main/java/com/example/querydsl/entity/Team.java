@@ -1,24 +1,46 @@
 package com.example.querydsl.entity;
 
+import com.example.querydsl.cache.NaturalKey;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name")) // 팀 이름으로 검색한 뒤 회원은 team_id 인덱스로 찾는다.
+@Cacheable // 자주 읽고 거의 바뀌지 않기 때문에 2차 캐시에 올린다. members 컬렉션은 회원이 팀을 옮길 때마다 바뀌기 때문에 캐시하지 않는다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 기본 생성자를 PROTECTED 레벨로 생성
 @ToString(of = {"of", "name"}) // 무한 참조 될 수 있기 때문에 연관관계 있는 필드는 제외하고 등록하자
 public class Team {
 
-    @Id @GeneratedValue
+    // 시퀀스를 50씩 미리 할당(pooled optimizer)해서 persist 할 때마다 시퀀스를 조회하지 않는다.
+    // IDENTITY 전략이면 insert 를 해야 id 를 알 수 있어 JDBC batch insert 가 불가능하다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
 
+    @NaturalKey
     private String name;
 
+    // 이름을 바꿀 때 올린다. 회원이 들어오고 나가는 것은 버전에 포함하지 않는다. (아래 members)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
     // 양방향 연관관계의 주인은 Member에 있는 team이다.
+    // 팀 목록 화면은 한 번에 최대 500팀까지 렌더링하기 때문에 기본값(100)보다 크게 잡아 컬렉션 초기화를 한 번에 끝낸다.
+    // 회원을 저장할 때마다 팀 버전이 올라가지 않게 컬렉션 변경은 버전에서 뺀다. 실제 소속(team_id)은 Member 의 버전이 지킨다.
+    @BatchSize(size = 500)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
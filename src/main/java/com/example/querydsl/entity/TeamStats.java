@@ -0,0 +1,41 @@
+package com.example.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 나이 통계 요약 테이블
+ * 회원이 저장/수정/삭제될 때 TeamStatsListener 가 커밋 직전에 증감분만 반영한다.
+ *
+ * 팀 insert 가 JDBC batch 로 늦게 실행될 수 있기 때문에 Team 과 연관관계(외래키)를 걸지 않고 id 만 저장한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge; // 회원이 없으면 null
+    private Integer maxAge;
+
+    // 최솟값/최댓값인 회원이 빠지면 증감분으로는 다음 값을 알 수 없기 때문에 표시만 해두고 조회할 때 다시 계산한다.
+    private boolean minMaxStale;
+
+    public void changeMinMax(Integer minAge, Integer maxAge) {
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.minMaxStale = false;
+    }
+}
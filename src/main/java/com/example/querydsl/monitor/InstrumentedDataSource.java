@@ -0,0 +1,309 @@
+package com.example.querydsl.monitor;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Connection, Statement, ResultSet 을 프록시로 감싸서 JdbcMetrics 에 기록한다.
+ *
+ * p6spy 와 달리 SQL 을 문자열로 만들어 로그를 남기지 않고 미터에 숫자만 더한다.
+ * 바인딩 파라미터는 느린 쿼리를 남길 때만 사용하고, 샘플링에서 빠진 statement 는 감싸지 않고 그대로 반환한다.
+ * statement 실행 시간은 execute* 호출 시간이다. (ResultSet 을 읽는 시간은 포함하지 않는다)
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Set<String> EXECUTE = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final Supplier<JdbcMetrics> metricsSupplier;
+    private volatile JdbcMetrics metrics;
+
+    public InstrumentedDataSource(DataSource target, JdbcMetrics metrics) {
+        this(target, () -> metrics);
+    }
+
+    /**
+     * JdbcMetrics(MeterRegistry) 는 처음 커넥션을 가져올 때 만든다.
+     * DataSource 빈을 만드는 도중에 MeterRegistry 를 만들면 DataSource 를 찾는 MeterBinder(Hikari 메트릭)와 순환 참조가 생긴다.
+     */
+    public InstrumentedDataSource(DataSource target, Supplier<JdbcMetrics> metrics) {
+        super(target);
+        this.metricsSupplier = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        JdbcMetrics metrics = metrics();
+        return wrap(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection(), metrics));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        JdbcMetrics metrics = metrics();
+        return wrap(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection(username, password), metrics));
+    }
+
+    private JdbcMetrics metrics() {
+        JdbcMetrics current = metrics;
+        if (current == null) {
+            current = metricsSupplier.get();
+            metrics = current;
+        }
+        return current;
+    }
+
+    /**
+     * 컨텍스트가 닫힐 때 감싼 커넥션 풀도 닫는다.
+     */
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable) {
+            ((Closeable) getTargetDataSource()).close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, Handler handler) {
+        T proxy = (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+        handler.proxy = proxy;
+        return proxy;
+    }
+
+    /**
+     * equals/hashCode 는 프록시 기준으로 동작해야 Hibernate 가 statement 를 Map 에 넣고 찾을 수 있다.
+     */
+    private abstract static class Handler implements InvocationHandler {
+
+        final Object target;
+        Object proxy;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    return ((Class<?>) args[0]).isInstance(proxy) ? proxy : delegate(method, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) delegate(method, args);
+                default:
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static class ConnectionHandler extends Handler {
+
+        private final JdbcMetrics metrics;
+        private long transactionStart;
+
+        ConnectionHandler(Connection target, JdbcMetrics metrics) {
+            super(target);
+            this.metrics = metrics;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    Object statement = delegate(method, args);
+                    if (!metrics.sample()) {
+                        return statement;
+                    }
+                    // PreparedStatement 또는 CallableStatement
+                    return wrap(method.getReturnType(), new StatementHandler(statement, (String) args[0], proxy, metrics));
+                case "createStatement":
+                    Object plain = delegate(method, args);
+                    return metrics.sample() ? wrap(Statement.class, new StatementHandler(plain, null, proxy, metrics)) : plain;
+                case "setAutoCommit":
+                    Object result = delegate(method, args);
+                    transactionStart = Boolean.FALSE.equals(args[0]) ? System.nanoTime() : 0;
+                    return result;
+                case "commit":
+                case "rollback":
+                    if (args != null) { // rollback(Savepoint)
+                        return delegate(method, args);
+                    }
+                    long start = transactionStart;
+                    try {
+                        return delegate(method, args);
+                    } finally {
+                        if (start != 0) {
+                            long now = System.nanoTime();
+                            metrics.recordTransaction(now - start, method.getName().equals("commit"));
+                            transactionStart = now; // autoCommit 이 false 인 동안은 다음 트랜잭션이 바로 시작된다.
+                        }
+                    }
+                case "close":
+                    transactionStart = 0;
+                    return delegate(method, args);
+                default:
+                    return delegate(method, args);
+            }
+        }
+    }
+
+    private static class StatementHandler extends Handler {
+
+        private final JdbcMetrics metrics;
+        private final Object connection;
+        private final boolean prepared;
+        private String sql;
+        private JdbcMetrics.StatementMeters meters;
+        private List<Object> parameters;
+        private int batchSize;
+
+        StatementHandler(Object target, String sql, Object connection, JdbcMetrics metrics) {
+            super(target);
+            this.metrics = metrics;
+            this.connection = connection;
+            this.prepared = target instanceof PreparedStatement;
+            this.sql = sql;
+            this.meters = sql == null ? null : metrics.meters(sql);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE.contains(name)) {
+                return execute(method, args);
+            }
+            if (prepared && args != null && args.length >= 2 && args[0] instanceof Integer && name.startsWith("set")) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = null;
+            } else if (name.equals("addBatch")) {
+                if (args != null && sql == null) { // Statement.addBatch(sql)
+                    sql = (String) args[0];
+                    meters = metrics.meters(sql);
+                }
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.equals("getConnection")) {
+                return connection;
+            } else if (name.equals("getResultSet")) {
+                ResultSet resultSet = (ResultSet) delegate(method, args);
+                return resultSet == null ? null : wrap(ResultSet.class, new ResultSetHandler(resultSet, meters, proxy));
+            }
+            return delegate(method, args);
+        }
+
+        private void bind(int index, Object value) {
+            if (!metrics.capturesParameters()) {
+                return;
+            }
+            if (parameters == null) {
+                parameters = new ArrayList<>();
+            }
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String) { // Statement.execute(sql)
+                sql = (String) args[0];
+                meters = metrics.meters(sql);
+            }
+            if (meters == null) { // Statement.executeBatch()
+                return delegate(method, args);
+            }
+
+            boolean success = false;
+            long start = System.nanoTime();
+            try {
+                Object result = delegate(method, args);
+                success = true;
+                if (result instanceof ResultSet) {
+                    return wrap(ResultSet.class, new ResultSetHandler((ResultSet) result, meters, proxy));
+                }
+                return result;
+            } finally {
+                metrics.recordExecution(meters, sql, parameters, batchSize, System.nanoTime() - start, success);
+                if (method.getName().endsWith("Batch")) {
+                    batchSize = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * next() 가 true 를 반환한 횟수를 세고, 끝까지 읽거나 닫을 때 한 번 기록한다.
+     */
+    private static class ResultSetHandler extends Handler {
+
+        private final JdbcMetrics.StatementMeters meters;
+        private final Object statement;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, JdbcMetrics.StatementMeters meters, Object statement) {
+            super(target);
+            this.meters = meters;
+            this.statement = statement;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasNext = delegate(method, args);
+                    if ((Boolean) hasNext) {
+                        rows++;
+                    } else {
+                        record();
+                    }
+                    return hasNext;
+                case "close":
+                    record();
+                    return delegate(method, args);
+                case "getStatement":
+                    return statement;
+                default:
+                    return delegate(method, args);
+            }
+        }
+
+        private void record() {
+            if (!recorded && meters != null) {
+                recorded = true;
+                meters.rows.record(rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.querydsl.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JDBC statement, 트랜잭션 메트릭 (InstrumentedDataSource 가 기록한다)
+ *
+ * - jdbc.statements: SQL 모양(sql), 종류(type), 결과(outcome)별 실행 시간
+ * - jdbc.statement.rows: SQL 모양별 조회한 row 수
+ * - jdbc.transactions: setAutoCommit(false) ~ commit/rollback 시간
+ * - jdbc.statements.slow: 느린 쿼리 수, 최근 목록은 /actuator/slowqueries
+ * 커넥션을 얻기까지 기다린 시간은 Hikari 메트릭(hikaricp.connections.acquire)을 본다.
+ *
+ * SQL 모양은 정규화(SqlShape) 비용을 줄이기 위해 SQL 문자열별로 캐시한다.
+ */
+@Slf4j
+public class JdbcMetrics {
+
+    private static final int MAX_CACHED_SQL = 10_000;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final JdbcMetricsProperties properties;
+    private final long slowQueryNanos;
+    private final Map<String, StatementMeters> bySql = new ConcurrentHashMap<>();
+    private final Map<String, StatementMeters> byShape = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<SlowQuery> slowQueries = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger slowQueryCount = new AtomicInteger();
+    private final Timer commits;
+    private final Timer rollbacks;
+    private final Counter slow;
+
+    public JdbcMetrics(MeterRegistry registry, JdbcMetricsProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+        this.slowQueryNanos = properties.getSlowQueryThreshold().toNanos();
+        this.commits = transactionTimer("commit");
+        this.rollbacks = transactionTimer("rollback");
+        this.slow = Counter.builder("jdbc.statements.slow").register(registry);
+    }
+
+    boolean sample() {
+        return properties.getSampleRate() >= 1.0 || ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+
+    boolean capturesParameters() {
+        return slowQueryNanos > 0;
+    }
+
+    StatementMeters meters(String sql) {
+        StatementMeters meters = bySql.get(sql);
+        if (meters != null) {
+            return meters;
+        }
+        meters = metersForShape(SqlShape.normalize(sql));
+        if (bySql.size() < MAX_CACHED_SQL) {
+            bySql.put(sql, meters);
+        }
+        return meters;
+    }
+
+    private StatementMeters metersForShape(String shape) {
+        StatementMeters meters = byShape.get(shape);
+        if (meters != null) {
+            return meters;
+        }
+        if (byShape.size() >= properties.getMaxShapes()) {
+            return byShape.computeIfAbsent(OTHER, StatementMeters::new);
+        }
+        return byShape.computeIfAbsent(shape, StatementMeters::new);
+    }
+
+    void recordExecution(StatementMeters meters, String sql, List<Object> parameters, int batchSize,
+                         long nanos, boolean success) {
+        (success ? meters.success : meters.error).record(nanos, TimeUnit.NANOSECONDS);
+        if (slowQueryNanos > 0 && nanos >= slowQueryNanos) {
+            recordSlowQuery(new SlowQuery(sql, render(parameters), batchSize, nanos / 1e6, success,
+                    Instant.now(), Thread.currentThread().getName()));
+        }
+    }
+
+    void recordTransaction(long nanos, boolean commit) {
+        (commit ? commits : rollbacks).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordSlowQuery(SlowQuery query) {
+        slow.increment();
+        log.warn("느린 쿼리 {}ms: {} {}", String.format("%.1f", query.getElapsedMillis()), query.getSql(), query.getParameters());
+        slowQueries.addFirst(query);
+        if (slowQueryCount.incrementAndGet() > properties.getSlowQueryCapacity()) {
+            slowQueries.pollLast();
+            slowQueryCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * 최근 순서
+     */
+    public List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(slowQueries);
+    }
+
+    public void clearSlowQueries() {
+        slowQueries.clear();
+        slowQueryCount.set(0);
+    }
+
+    private static List<String> render(List<Object> parameters) {
+        if (parameters == null) {
+            return List.of();
+        }
+        List<String> rendered = new ArrayList<>(parameters.size());
+        for (Object parameter : parameters) {
+            String value = parameter instanceof byte[] ? "byte[" + ((byte[]) parameter).length + "]" : String.valueOf(parameter);
+            rendered.add(value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value);
+        }
+        return rendered;
+    }
+
+    private Timer transactionTimer(String outcome) {
+        return histogram(Timer.builder("jdbc.transactions").tag("outcome", outcome)).register(registry);
+    }
+
+    private Timer.Builder histogram(Timer.Builder builder) {
+        if (properties.isHistogram()) {
+            builder.publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30));
+        }
+        return builder;
+    }
+
+    /**
+     * SQL 모양 하나의 미터, 매번 registry 에서 찾지 않도록 만들어둔다.
+     */
+    class StatementMeters {
+
+        final Timer success;
+        final Timer error;
+        final DistributionSummary rows;
+
+        StatementMeters(String shape) {
+            String type = shape.equals(OTHER) ? OTHER : shape.split(" ", 2)[0];
+            this.success = histogram(Timer.builder("jdbc.statements")
+                    .tag("sql", shape).tag("type", type).tag("outcome", "success")).register(registry);
+            this.error = histogram(Timer.builder("jdbc.statements")
+                    .tag("sql", shape).tag("type", type).tag("outcome", "error")).register(registry);
+            this.rows = DistributionSummary.builder("jdbc.statement.rows")
+                    .tag("sql", shape)
+                    .register(registry);
+        }
+    }
+}
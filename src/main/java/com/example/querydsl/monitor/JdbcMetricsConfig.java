@@ -0,0 +1,47 @@
+package com.example.querydsl.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource 빈을 InstrumentedDataSource 로 감싼다.
+ * p6spy(decorator.datasource) 는 SQL 로그를 보고 싶을 때만 켠다. (application.yml)
+ */
+@Configuration
+@EnableConfigurationProperties(JdbcMetricsProperties.class)
+@ConditionalOnProperty(name = "querydsl.jdbc-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcMetricsConfig {
+
+    @Bean
+    JdbcMetrics jdbcMetrics(MeterRegistry meterRegistry, JdbcMetricsProperties properties) {
+        return new JdbcMetrics(meterRegistry, properties);
+    }
+
+    @Bean
+    SlowQueryEndpoint slowQueryEndpoint(JdbcMetrics jdbcMetrics) {
+        return new SlowQueryEndpoint(jdbcMetrics);
+    }
+
+    /**
+     * BeanPostProcessor 는 다른 빈보다 먼저 만들어지기 때문에 static 으로 등록하고, JdbcMetrics 는 처음 커넥션을 가져올 때 찾는다.
+     */
+    @Bean
+    static BeanPostProcessor jdbcMetricsDataSourcePostProcessor(ObjectProvider<JdbcMetrics> jdbcMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource((DataSource) bean, jdbcMetrics::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.querydsl.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.jdbc-metrics")
+public class JdbcMetricsProperties {
+
+    private boolean enabled = true;
+
+    // 측정할 statement 비율(0.0 ~ 1.0), 나머지는 JDBC statement 를 감싸지 않는다. 트랜잭션 시간은 항상 측정한다.
+    private double sampleRate = 1.0;
+
+    // SQL 모양별 지연 시간 히스토그램(버킷)을 내보낸다. 끄면 count, sum, max 만 남는다.
+    private boolean histogram = true;
+
+    // 메트릭 태그로 쓰는 SQL 모양 수, 넘으면 sql=other 로 집계한다.
+    private int maxShapes = 500;
+
+    // 이보다 오래 걸린 statement 는 바인딩 파라미터와 함께 로그를 남기고 /actuator/slowqueries 에 보관한다.
+    private Duration slowQueryThreshold = Duration.ofMillis(500);
+
+    // /actuator/slowqueries 에 보관하는 최근 느린 쿼리 수
+    private int slowQueryCapacity = 100;
+}
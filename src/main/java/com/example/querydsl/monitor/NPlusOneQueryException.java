@@ -0,0 +1,8 @@
+package com.example.querydsl.monitor;
+
+public class NPlusOneQueryException extends RuntimeException {
+
+    public NPlusOneQueryException(String message) {
+        super(message);
+    }
+}
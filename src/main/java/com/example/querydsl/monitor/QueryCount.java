@@ -0,0 +1,85 @@
+package com.example.querydsl.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 실행된 SQL 집계 결과, 정규화한 SQL 모양(SqlShape)별로 실행 횟수를 센다.
+ * 실행 순서대로는 처음 MAX_STATEMENTS 개만 남긴다. 배치 작업은 SQL 을 수십만 번 실행하기 때문에 모두 남기면 메모리가 계속 늘어난다.
+ */
+public class QueryCount {
+
+    static final int MAX_STATEMENTS = 1000;
+
+    private final boolean strict;
+    private final List<String> statements = new ArrayList<>();
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int total;
+    private int selectCount;
+
+    QueryCount(boolean strict) {
+        this.strict = strict;
+    }
+
+    /**
+     * @return 지금까지 같은 모양의 SQL 이 실행된 횟수
+     */
+    int record(String shape) {
+        total++;
+        if (SqlShape.isSelect(shape)) {
+            selectCount++;
+        }
+        if (statements.size() < MAX_STATEMENTS) {
+            statements.add(shape);
+        }
+        return shapes.merge(shape, 1, Integer::sum);
+    }
+
+    boolean isStrict() {
+        return strict;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSelectCount() {
+        return selectCount;
+    }
+
+    /**
+     * @return 실행 순서대로 남긴 SQL 이 MAX_STATEMENTS 개에서 잘렸으면 true
+     */
+    public boolean isTruncated() {
+        return total > statements.size();
+    }
+
+    /**
+     * 실행 순서대로 정규화한 select SQL (처음 MAX_STATEMENTS 개 중)
+     */
+    public List<String> getSelects() {
+        return statements.stream().filter(SqlShape::isSelect).collect(Collectors.toList());
+    }
+
+    /**
+     * 실행 순서대로 정규화한 SQL (처음 MAX_STATEMENTS 개)
+     */
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("QueryCount(total=" + total + ", selects=" + selectCount + ")");
+        shapes.forEach((shape, times) -> sb.append("\n  ").append(times).append("x ").append(shape));
+        return sb.toString();
+    }
+}
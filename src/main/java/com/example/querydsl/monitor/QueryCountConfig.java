@@ -0,0 +1,28 @@
+package com.example.querydsl.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(QueryCountProperties.class)
+public class QueryCountConfig {
+
+    @Bean
+    QueryCountInspector queryCountInspector(QueryCountProperties properties) {
+        return new QueryCountInspector(properties);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer queryCountInspectorCustomizer(QueryCountInspector inspector) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    QueryCountFilter queryCountFilter(MeterRegistry meterRegistry) {
+        return new QueryCountFilter(meterRegistry);
+    }
+}
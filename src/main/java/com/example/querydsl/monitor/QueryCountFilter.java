@@ -0,0 +1,46 @@
+package com.example.querydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청마다 실행된 SQL 수를 메트릭으로 남긴다.
+ * /actuator/metrics/sql.statements.per.request, /actuator/metrics/sql.selects.per.request
+ */
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCount count = QueryCounter.stop();
+            // uri 는 실제 경로가 아니라 매핑된 패턴(/members/{id})을 사용해야 태그 수가 늘어나지 않는다.
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            record("sql.statements.per.request", uri, count.getTotal());
+            record("sql.selects.per.request", uri, count.getSelectCount());
+        }
+    }
+
+    private void record(String name, String uri, int value) {
+        DistributionSummary.builder(name)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.querydsl.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 SQL 을 실행하기 직전에 호출된다.
+ * 실행된 SQL 을 QueryCounter 에 기록하고, 같은 단건 조회가 반복되면(N+1) 경고한다.
+ *
+ * 예) 회원 목록을 조회한 뒤 member.getTeam().getName() 을 호출하면
+ * select ... from team team0_ where team0_.team_id=? 가 회원 수만큼 실행된다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryCountInspector implements StatementInspector {
+
+    private final QueryCountProperties properties;
+
+    @Override
+    public String inspect(String sql) {
+        QueryCount count = QueryCounter.current();
+        if (count == null) {
+            return sql;
+        }
+
+        String shape = SqlShape.normalize(sql);
+        int times = count.record(shape);
+        if (times == properties.getRepeatThreshold() && SqlShape.isSingleRowLookup(shape)) {
+            String message = "N+1 의심: 같은 단건 조회가 " + times + "번 반복되었습니다. 페치 조인이나 배치 로딩을 확인하세요. sql=" + shape;
+            if (properties.isStrict() || count.isStrict()) {
+                throw new NPlusOneQueryException(message);
+            }
+            log.warn(message);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.querydsl.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.monitor")
+public class QueryCountProperties {
+
+    // 같은 모양의 단건 조회 SQL 이 이 횟수만큼 반복되면 N+1 로 본다.
+    private int repeatThreshold = 5;
+
+    // true 이면 N+1 이 감지되는 즉시 NPlusOneQueryException 을 던진다. 운영에서는 로그만 남긴다.
+    private boolean strict = false;
+}
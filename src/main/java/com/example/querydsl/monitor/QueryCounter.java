@@ -0,0 +1,44 @@
+package com.example.querydsl.monitor;
+
+/**
+ * 현재 스레드(요청, 테스트)에서 실행된 SQL 을 센다.
+ * start() ~ stop() 사이에 실행된 SQL 만 집계하고, 범위 밖의 SQL 은 무시한다.
+ *
+ * QueryCounter.start();
+ * ... (쿼리 실행)
+ * QueryCount count = QueryCounter.stop();
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCount> current = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        start(false);
+    }
+
+    /**
+     * @param strict true 이면 N+1 이 감지되는 즉시 예외를 던진다. (테스트용)
+     */
+    public static void start(boolean strict) {
+        current.set(new QueryCount(strict));
+    }
+
+    /**
+     * 집계를 끝내고 결과를 반환한다. 시작하지 않았으면 null
+     */
+    public static QueryCount stop() {
+        QueryCount count = current.get();
+        current.remove();
+        return count;
+    }
+
+    /**
+     * 집계 중인 결과, 시작하지 않았으면 null
+     */
+    public static QueryCount current() {
+        return current.get();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.querydsl.monitor;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * slow-query-threshold 보다 오래 걸린 statement
+ * executeBatch 는 마지막으로 바인딩한 파라미터만 남는다.
+ */
+@Value
+public class SlowQuery {
+
+    String sql;
+    List<String> parameters;
+    int batchSize;
+    double elapsedMillis;
+    boolean success;
+    Instant executedAt;
+    String thread;
+}
@@ -0,0 +1,29 @@
+package com.example.querydsl.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * GET /actuator/slowqueries: 최근 느린 쿼리 (바인딩 파라미터 포함)
+ * DELETE /actuator/slowqueries: 목록 비우기
+ */
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final JdbcMetrics jdbcMetrics;
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return jdbcMetrics.getSlowQueries();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        jdbcMetrics.clearSlowQueries();
+    }
+}
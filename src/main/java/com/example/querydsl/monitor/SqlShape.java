@@ -0,0 +1,40 @@
+package com.example.querydsl.monitor;
+
+import java.util.regex.Pattern;
+
+/**
+ * 파라미터 값만 다른 SQL 을 같은 것으로 보기 위해 SQL 을 정규화한다.
+ * - use_sql_comments 로 붙는 주석 제거
+ * - 문자열, 숫자 리터럴 -> ?
+ * - in (?, ?, ?) -> in (...)
+ */
+public final class SqlShape {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // 지연 로딩으로 엔티티/컬렉션 하나를 식별자로 조회하는 SQL (ex. ... from team team0_ where team0_.team_id=?)
+    private static final Pattern SINGLE_ROW_LOOKUP = Pattern.compile("^select .* from \\w+ \\w+ where \\w+\\.\\w+=\\?$");
+
+    private SqlShape() {
+    }
+
+    public static String normalize(String sql) {
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim().toLowerCase();
+    }
+
+    public static boolean isSelect(String shape) {
+        return shape.startsWith("select");
+    }
+
+    public static boolean isSingleRowLookup(String shape) {
+        return SINGLE_ROW_LOOKUP.matcher(shape).matches();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.querydsl.paging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 마지막으로 조회한 row 의 정렬 키 값들을 담는 커서
+ * 클라이언트에게는 URL-safe Base64 문자열로 내려주고, 다음 페이지 요청 때 그대로 돌려받는다.
+ * 값의 순서는 정렬 조건(OrderSpecifier)의 순서와 같고, 마지막 값은 항상 tiebreaker 인 id 이다.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<Object> values;
+
+    private KeysetCursor(List<Object> values) {
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    public static KeysetCursor of(List<?> values) {
+        return new KeysetCursor(new ArrayList<>(values));
+    }
+
+    public static KeysetCursor decode(String encoded) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(encoded);
+            return new KeysetCursor(objectMapper.readValue(json, new TypeReference<List<Object>>() {}));
+        } catch (IllegalArgumentException | java.io.IOException e) {
+            throw new IllegalArgumentException("잘못된 커서 값입니다: " + encoded, e);
+        }
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsString(values).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("커서를 직렬화할 수 없습니다: " + values, e);
+        }
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * JSON 으로 왕복하면서 Integer/Long 등의 타입 정보가 사라지기 때문에 정렬 대상 경로의 타입으로 다시 맞춰준다.
+     */
+    public <T> T get(int index, Class<T> type) {
+        Object value = values.get(index);
+        return value == null ? null : DefaultConversionService.getSharedInstance().convert(value, type);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor" + values;
+    }
+}
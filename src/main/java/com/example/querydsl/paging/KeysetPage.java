@@ -0,0 +1,21 @@
+package com.example.querydsl.paging;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString(of = {"hasNext", "nextCursor"})
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final boolean hasNext;
+    private final String nextCursor; // 다음 페이지가 없으면 null
+
+    public KeysetPage(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
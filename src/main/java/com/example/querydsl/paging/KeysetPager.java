@@ -0,0 +1,152 @@
+package com.example.querydsl.paging;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * keyset(seek) 방식 페이징
+ *
+ * offset 페이징은 앞 페이지의 row 를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다. (O(offset))
+ * keyset 페이징은 이전 페이지 마지막 row 의 정렬 키를 기억해두고 "그 다음" 조건을 where 절로 만들어서
+ * 인덱스를 타고 바로 다음 위치부터 읽는다.
+ *
+ * 예) orderBy(member.age.desc(), member.username.asc().nullsLast()) + 마지막 tiebreaker member.id asc
+ * where (age < :age)
+ *    or (age = :age and (username > :username or username is null))
+ *    or (age = :age and username = :username and id > :id)
+ *
+ * 참고: 정렬 조건은 조회 대상 엔티티의 경로(member.age, member.team.name 등)여야 커서 값을 꺼낼 수 있다.
+ * 참고: NullHandling.Default 는 H2 기본 동작(asc 이면 null 이 먼저, desc 이면 null 이 나중)을 기준으로 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPager {
+
+    private final JPAQueryFactory queryFactory;
+
+    /**
+     * @param root   조회 대상 (ex. member)
+     * @param id     마지막 tiebreaker 로 사용할 유일한 식별자 (ex. member.id)
+     * @param where  추가 검색 조건, 없으면 null
+     * @param cursor 이전 페이지의 nextCursor, 첫 페이지면 null
+     * @param size   페이지 크기
+     * @param orders 정렬 조건
+     */
+    public <T> KeysetPage<T> fetchPage(EntityPath<T> root, NumberPath<Long> id, Predicate where,
+                                       String cursor, int size, OrderSpecifier<?>... orders) {
+        List<OrderSpecifier<?>> keys = new ArrayList<>(List.of(orders));
+        keys.add(id.asc());
+
+        Predicate seek = cursor == null ? null : seekPredicate(keys, KeysetCursor.decode(cursor));
+
+        // 다음 페이지 존재 여부를 count 쿼리 없이 알기 위해 한 건 더 조회한다.
+        List<T> rows = queryFactory
+                .selectFrom(root)
+                .where(where, seek)
+                .orderBy(keys.toArray(new OrderSpecifier<?>[0]))
+                .limit(size + 1L)
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf(content.get(content.size() - 1), keys).encode() : null;
+        return new KeysetPage<>(content, hasNext, nextCursor);
+    }
+
+    /**
+     * 주어진 row 의 정렬 키 값으로 커서를 만든다. (정렬 조건 + id 순서)
+     */
+    public KeysetCursor cursorOf(Object row, NumberPath<Long> id, OrderSpecifier<?>... orders) {
+        List<OrderSpecifier<?>> keys = new ArrayList<>(List.of(orders));
+        keys.add(id.asc());
+        return cursorOf(row, keys);
+    }
+
+    private KeysetCursor cursorOf(Object row, List<OrderSpecifier<?>> keys) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        List<Object> values = new ArrayList<>(keys.size());
+        for (OrderSpecifier<?> key : keys) {
+            values.add(wrapper.getPropertyValue(propertyPath(key.getTarget())));
+        }
+        return KeysetCursor.of(values);
+    }
+
+    Predicate seekPredicate(List<OrderSpecifier<?>> keys, KeysetCursor cursor) {
+        if (cursor.size() != keys.size()) {
+            throw new IllegalArgumentException("커서와 정렬 조건의 개수가 다릅니다. cursor=" + cursor + ", orders=" + keys);
+        }
+
+        BooleanBuilder seek = new BooleanBuilder();
+        BooleanBuilder equalsSoFar = new BooleanBuilder(); // 앞선 정렬 키가 모두 같은 경우
+        for (int i = 0; i < keys.size(); i++) {
+            OrderSpecifier<?> key = keys.get(i);
+            Object value = cursor.get(i, key.getTarget().getType());
+
+            Predicate after = after(key, value);
+            if (after != null) {
+                seek.or(new BooleanBuilder(equalsSoFar).and(after));
+            }
+            equalsSoFar.and(sameAs(key.getTarget(), value));
+        }
+        return seek;
+    }
+
+    /**
+     * 정렬 순서상 value 보다 뒤에 오는 row 의 조건, 뒤에 올 수 있는 값이 없으면 null
+     */
+    private Predicate after(OrderSpecifier<?> key, Object value) {
+        Expression<?> target = key.getTarget();
+        boolean asc = key.getOrder() == Order.ASC;
+        boolean nullsLast = key.getNullHandling() == OrderSpecifier.NullHandling.NullsLast
+                || (key.getNullHandling() == OrderSpecifier.NullHandling.Default && !asc);
+
+        if (value == null) {
+            // null 이 마지막이면 null 뒤에는 아무것도 없고, null 이 처음이면 null 이 아닌 값이 모두 뒤에 온다.
+            return nullsLast ? null : Expressions.booleanOperation(Ops.IS_NOT_NULL, target);
+        }
+
+        Predicate beyond = Expressions.booleanOperation(asc ? Ops.GT : Ops.LT, target, Expressions.constant(value));
+        return nullsLast
+                ? Expressions.booleanOperation(Ops.OR, beyond, Expressions.booleanOperation(Ops.IS_NULL, target))
+                : beyond;
+    }
+
+    private Predicate sameAs(Expression<?> target, Object value) {
+        return value == null
+                ? Expressions.booleanOperation(Ops.IS_NULL, target)
+                : Expressions.booleanOperation(Ops.EQ, target, Expressions.constant(value));
+    }
+
+    /**
+     * member.team.name -> "team.name"
+     */
+    private String propertyPath(Expression<?> target) {
+        if (!(target instanceof Path)) {
+            throw new IllegalArgumentException("keyset 정렬 조건은 엔티티 경로만 사용할 수 있습니다: " + target);
+        }
+        LinkedList<String> names = new LinkedList<>();
+        Path<?> path = (Path<?>) target;
+        while (path.getMetadata().getParent() != null) {
+            names.addFirst(path.getMetadata().getName());
+            path = path.getMetadata().getParent();
+        }
+        return String.join(".", names);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.querydsl.paging;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * fetchResults() 대신 사용하는 페이징
+ *
+ * fetchResults() 의 count 쿼리는 content 쿼리의 조인을 그대로 복사하기 때문에 느릴 수 있다.
+ * 여기서는 content 쿼리로부터 가벼운 count 쿼리를 만든다.
+ * 1. order by 제거
+ * 2. 페치 조인은 일반 조인으로 (select 절에 연관 엔티티 컬럼이 빠진다)
+ * 3. where 절이나 다른 조인에서 참조하지 않는 to-one 조인은 제거 (row 수가 바뀌지 않는다)
+ *    - left join 이면 항상 제거할 수 있다.
+ *    - inner join 이면 연관관계가 필수(optional = false, nullable = false)일 때만 제거한다. 아니면 team 이 없는 회원이 걸러지기 때문
+ * 4. 첫 페이지인데 limit 보다 적게 조회되었거나, 마지막 페이지라는 것을 알 수 있으면 count 쿼리를 생략한다.
+ *
+ * group by 가 있으면 그룹 수를 센다. JPQL 은 from 절 서브쿼리가 없어서 group by 키가 하나일 때만 count(distinct 키)로 센다.
+ * 키가 여러 개이거나 having, distinct 가 있으면 그룹을 모두 읽지 않고 IllegalArgumentException 이 발생한다. (count 쿼리를 따로 작성한다)
+ */
+@Component
+@RequiredArgsConstructor
+public class QuerydslPagingService {
+
+    private final JPAQueryFactory queryFactory;
+
+    /**
+     * @param contentQuery offset, limit 를 지정하지 않은 content 쿼리
+     */
+    public <T> Page<T> fetchPage(JPAQuery<T> contentQuery, Pageable pageable) {
+        List<T> content = contentQuery.clone()
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // 첫 페이지이면서 content 크기가 페이지 크기보다 작거나, 마지막 페이지일 때는 count 쿼리를 실행하지 않는다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(contentQuery));
+    }
+
+    /**
+     * @throws IllegalArgumentException group by 키가 여러 개이거나 having, distinct 와 같이 쓴 쿼리
+     */
+    public long count(JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        if (source.getGroupBy().isEmpty() && source.getHaving() == null) {
+            return countQuery(contentQuery).fetchOne();
+        }
+        if (source.getGroupBy().size() != 1 || source.getHaving() != null || source.isDistinct()) {
+            throw new IllegalArgumentException("group by 키가 하나인 쿼리만 그룹 수를 셀 수 있습니다: " + contentQuery);
+        }
+
+        Expression<?> key = source.getGroupBy().get(0);
+        Expression<?> root = alias(source.getJoins().get(0).getTarget());
+        NumberExpression<Long> groups = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, key);
+        NumberExpression<Long> rows = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_AGG, root);
+        NumberExpression<Long> keys = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_AGG, key);
+        Tuple counts = copyFrom(source, queryFactory.select(groups, rows, keys)).fetchOne();
+        // count(distinct 키)는 null 을 세지 않는다. 키가 null 인 row 가 있으면 null 그룹이 하나 더 있다.
+        return counts.get(groups) + (counts.get(rows) > counts.get(keys) ? 1 : 0);
+    }
+
+    /**
+     * content 쿼리로부터 count 쿼리를 만든다. group by 가 없는 쿼리만 가능하다.
+     */
+    public JPAQuery<Long> countQuery(JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        if (!source.getGroupBy().isEmpty() || source.getHaving() != null) {
+            throw new IllegalArgumentException("group by 가 있는 쿼리는 count 쿼리로 변환할 수 없습니다: " + contentQuery);
+        }
+
+        Expression<?> root = alias(source.getJoins().get(0).getTarget());
+        Expression<Long> count = Expressions.numberOperation(Long.class,
+                source.isDistinct() ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG, root);
+        return copyFrom(source, queryFactory.select(count));
+    }
+
+    /**
+     * source 의 조인, where 절을 countQuery 에 복사한다. countQuery 의 select 절, where 절에서 참조하지 않는 조인은 뺀다.
+     */
+    private <T> JPAQuery<T> copyFrom(QueryMetadata source, JPAQuery<T> countQuery) {
+        List<JoinExpression> joins = source.getJoins();
+
+        // 뒤쪽 조인부터 보면서 제거할 수 있는 조인을 고른다. 남긴 조인이 참조하는 alias 는 제거하면 안 된다.
+        Set<Path<?>> referenced = new HashSet<>();
+        PathCollector.collect(source.getWhere(), referenced);
+        PathCollector.collect(countQuery.getMetadata().getProjection(), referenced);
+        boolean[] keep = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            keep[i] = !isDroppable(join, referenced);
+            if (keep[i]) {
+                PathCollector.collect(join.getTarget(), referenced);
+                PathCollector.collect(join.getCondition(), referenced);
+            }
+        }
+
+        QueryMetadata target = countQuery.getMetadata();
+        for (int i = 0; i < joins.size(); i++) {
+            if (keep[i]) {
+                JoinExpression join = joins.get(i);
+                target.addJoin(join.getType(), join.getTarget()); // join flag(fetch)는 복사하지 않는다.
+                if (join.getCondition() != null) {
+                    target.addJoinCondition(join.getCondition());
+                }
+            }
+        }
+        if (source.getWhere() != null) {
+            target.addWhere(source.getWhere());
+        }
+        copyParams(source, target);
+        return countQuery;
+    }
+
+    private boolean isDroppable(JoinExpression join, Set<Path<?>> referenced) {
+        if (join.getType() == JoinType.DEFAULT || !(join.getTarget() instanceof Operation)) {
+            // from 절의 엔티티나 연관관계 없는 엔티티 조인(leftJoin(team).on(...))은 row 수를 바꿀 수 있다.
+            return false;
+        }
+        if (join.getType() == JoinType.RIGHTJOIN) {
+            return false; // 조인 대상 쪽 row 가 남는다.
+        }
+        if (join.getCondition() != null && join.getType() != JoinType.LEFTJOIN) {
+            return false; // join(member.team, team).on(team.name.eq(..)) 은 조건에 맞지 않는 row 를 뺀다.
+        }
+        Operation<?> alias = (Operation<?>) join.getTarget();
+        if (alias.getOperator() != Ops.ALIAS || referenced.contains(alias.getArg(1))) {
+            return false;
+        }
+        Expression<?> association = alias.getArg(0);
+        if (!(association instanceof Path) || association instanceof CollectionExpression
+                || !association.getType().isAnnotationPresent(Entity.class)) {
+            return false; // to-many 조인은 row 수가 늘어난다.
+        }
+        return join.getType() == JoinType.LEFTJOIN || !isOptional((Path<?>) association);
+    }
+
+    private boolean isOptional(Path<?> association) {
+        Path<?> parent = association.getMetadata().getParent();
+        Field field = parent == null ? null
+                : ReflectionUtils.findField(parent.getType(), association.getMetadata().getName());
+        if (field == null) {
+            return true;
+        }
+        ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+        OneToOne oneToOne = field.getAnnotation(OneToOne.class);
+        JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+        return (manyToOne == null || manyToOne.optional())
+                && (oneToOne == null || oneToOne.optional())
+                && (joinColumn == null || joinColumn.nullable());
+    }
+
+    private Expression<?> alias(Expression<?> joinTarget) {
+        if (joinTarget instanceof Operation && ((Operation<?>) joinTarget).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) joinTarget).getArg(1);
+        }
+        return joinTarget;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void copyParams(QueryMetadata source, QueryMetadata target) {
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+    }
+
+    /**
+     * 식에서 참조하는 alias(root path)를 모은다.
+     */
+    static class PathCollector {
+
+        static void collect(Expression<?> expression, Set<Path<?>> paths) {
+            if (expression == null) {
+                return;
+            }
+            if (expression instanceof Path) {
+                paths.add(((Path<?>) expression).getRoot());
+            } else if (expression instanceof Operation) {
+                ((Operation<?>) expression).getArgs().forEach(arg -> collect(arg, paths));
+            } else if (expression instanceof TemplateExpression) {
+                for (Object arg : ((TemplateExpression<?>) expression).getArgs()) {
+                    if (arg instanceof Expression) {
+                        collect((Expression<?>) arg, paths);
+                    }
+                }
+            } else if (expression instanceof FactoryExpression) {
+                ((FactoryExpression<?>) expression).getArgs().forEach(arg -> collect(arg, paths));
+            } else if (expression instanceof SubQueryExpression) {
+                // 서브쿼리에서 바깥 쿼리의 alias 를 참조할 수 있다.
+                QueryMetadata metadata = ((SubQueryExpression<?>) expression).getMetadata();
+                collect(metadata.getWhere(), paths);
+                collect(metadata.getHaving(), paths);
+                collect(metadata.getProjection(), paths);
+                for (JoinExpression join : metadata.getJoins()) {
+                    collect(join.getTarget(), paths);
+                    collect(join.getCondition(), paths);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.querydsl.query;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.annotations.QueryHints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 연관관계 없는 두 엔티티를 애플리케이션에서 해시 조인한다.
+ *
+ * from(member, team).where(member.username.eq(team.name)) 처럼 연관관계 없이 값으로 조인하면
+ * 조인 컬럼에 인덱스가 없는 DB 에서는 회원마다 팀 전체를 비교(nested loop)한다. (회원 100만 x 팀 1만 = 100억 번)
+ * 한쪽이 작으면 작은 쪽(build)을 한 번 읽어서 조인 키로 해시 테이블을 만들고, 큰 쪽(probe)을 커서로 한 건씩 읽으면서 테이블에서 찾는다.
+ * 각 테이블을 한 번씩만 읽는다.
+ *
+ * HashJoin<Member, Team> join = HashJoin.innerJoin(
+ *         queryFactory.selectFrom(member), member.username,   // probe: 큰 쪽, 스트림으로 읽는다.
+ *         queryFactory.selectFrom(team), team.name);          // build: 작은 쪽, 메모리에 올린다.
+ * List<Tuple> result = join.fetch(); // tuple.get(member), tuple.get(team)
+ *
+ * - innerJoin: from(member, team).where(member.username.eq(team.name)) 와 결과가 같다.
+ * - leftJoin: from(member).leftJoin(team).on(member.username.eq(team.name)) 와 결과가 같다. 짝이 없으면 tuple.get(team) 이 null
+ * - SQL 과 같이 키가 null 이면 조인되지 않는다. 정수 키(Integer, Long 등)는 박싱하지 않고 long 배열에 저장한다.
+ * - 결과 순서는 probe 쿼리 순서(orderBy)를 따르고, 같은 키의 build row 는 build 쿼리 순서를 따른다.
+ *
+ * 참고: probe 쪽을 엔티티로 조회하면 영속성 컨텍스트에 쌓이기 때문에 큰 결과는 필요한 컬럼(Projections)만 조회한다.
+ * 참고: 넘긴 JPAQuery 는 바꾸지 않는다. (복사해서 조인 키를 프로젝션에 추가한다)
+ */
+public class HashJoin<P, B> {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JPAQuery<P> probeQuery;
+    private final Expression<?> probeKey;
+    private final JPAQuery<B> buildQuery;
+    private final Expression<?> buildKey;
+    private final boolean outer;
+
+    private HashJoin(JPAQuery<P> probeQuery, Expression<?> probeKey, JPAQuery<B> buildQuery, Expression<?> buildKey, boolean outer) {
+        this.probeQuery = probeQuery;
+        this.probeKey = probeKey;
+        this.buildQuery = buildQuery;
+        this.buildKey = buildKey;
+        this.outer = outer;
+    }
+
+    public static <P, B, K> HashJoin<P, B> innerJoin(JPAQuery<P> probe, Expression<K> probeKey, JPAQuery<B> build, Expression<K> buildKey) {
+        return new HashJoin<>(probe, probeKey, build, buildKey, false);
+    }
+
+    public static <P, B, K> HashJoin<P, B> leftJoin(JPAQuery<P> probe, Expression<K> probeKey, JPAQuery<B> build, Expression<K> buildKey) {
+        return new HashJoin<>(probe, probeKey, build, buildKey, true);
+    }
+
+    public List<Tuple> fetch() {
+        List<Tuple> result = new ArrayList<>();
+        forEach(result::add);
+        return result;
+    }
+
+    /**
+     * 조인 결과를 List 로 모으지 않고 한 건씩 넘긴다. 호출한 쪽 트랜잭션 안에서 실행해야 한다. (probe 커서)
+     *
+     * @return 조인 결과 수
+     */
+    public long forEach(Consumer<Tuple> action) {
+        Expression<P> probeProjection = projection(probeQuery);
+        Expression<B> buildProjection = projection(buildQuery);
+        Table table = build(buildProjection);
+
+        long count = 0;
+        try (Stream<Tuple> rows = probeQuery.clone()
+                .select(probeKey, probeProjection)
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
+                .stream()) {
+            for (Iterator<Tuple> it = rows.iterator(); it.hasNext(); ) {
+                Tuple row = it.next();
+                Object left = row.get(1, Object.class);
+                boolean matched = false;
+                for (int i = table.first(row.get(0, Object.class)); i >= 0; i = table.next(i)) {
+                    action.accept(new JoinedTuple(probeProjection, left, buildProjection, table.values[i]));
+                    matched = true;
+                    count++;
+                }
+                if (outer && !matched) {
+                    action.accept(new JoinedTuple(probeProjection, left, buildProjection, null));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Table build(Expression<B> buildProjection) {
+        List<Tuple> rows = buildQuery.clone().select(buildKey, buildProjection).fetch();
+        Table table = new Table(rows.size(), isIntegral(probeKey.getType()) && isIntegral(buildKey.getType()));
+        for (Tuple row : rows) {
+            table.add(row.get(0, Object.class), row.get(1, Object.class));
+        }
+        return table;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<T> projection(JPAQuery<T> query) {
+        Expression<?> projection = query.getMetadata().getProjection();
+        if (projection == null) {
+            throw new IllegalArgumentException("select 절이 없습니다. queryFactory.selectFrom(...) 또는 select(...) 로 만든 쿼리를 넘겨야 합니다.");
+        }
+        return (Expression<T>) projection;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+    }
+
+    /**
+     * 조인 키 → build row, 같은 버킷의 row 는 next 로 연결한다. (버킷마다 첫/마지막 row 번호, row 마다 다음 row 번호)
+     * 정수 키면 longKeys, 아니면 objectKeys 에 저장한다.
+     */
+    private static final class Table {
+
+        private static final int END = -1;
+
+        final Object[] values;
+        private final long[] longKeys;
+        private final Object[] objectKeys;
+        private final int[] next;
+        private final int[] buckets;
+        private final int[] tails;
+        private final int mask;
+        private int size;
+
+        Table(int capacity, boolean integral) {
+            values = new Object[capacity];
+            longKeys = integral ? new long[capacity] : null;
+            objectKeys = integral ? null : new Object[capacity];
+            next = new int[capacity];
+            buckets = new int[Integer.highestOneBit(Math.max(2, capacity) * 2 - 1)]; // row 수의 1~2배
+            tails = new int[buckets.length];
+            Arrays.fill(buckets, END);
+            mask = buckets.length - 1;
+        }
+
+        void add(Object key, Object value) {
+            if (key == null) {
+                return; // null 키는 어떤 키와도 조인되지 않는다.
+            }
+            int i = size++;
+            values[i] = value;
+            int bucket;
+            if (longKeys != null) {
+                long k = ((Number) key).longValue();
+                longKeys[i] = k;
+                bucket = hash(k) & mask;
+            } else {
+                objectKeys[i] = key;
+                bucket = hash(key.hashCode()) & mask;
+            }
+            // 같은 키끼리 build 쿼리 순서를 지키기 위해 버킷 목록의 끝에 붙인다.
+            next[i] = END;
+            if (buckets[bucket] == END) {
+                buckets[bucket] = i;
+            } else {
+                next[tails[bucket]] = i;
+            }
+            tails[bucket] = i;
+        }
+
+        /**
+         * @return 키가 같은 첫 row 번호, 없으면 -1
+         */
+        int first(Object key) {
+            if (key == null) {
+                return END;
+            }
+            if (longKeys != null) {
+                long k = ((Number) key).longValue();
+                return matchLong(buckets[hash(k) & mask], k);
+            }
+            return matchObject(buckets[hash(key.hashCode()) & mask], key);
+        }
+
+        /**
+         * @return 키가 같은 다음 row 번호, 없으면 -1
+         */
+        int next(int i) {
+            return longKeys != null ? matchLong(next[i], longKeys[i]) : matchObject(next[i], objectKeys[i]);
+        }
+
+        private int matchLong(int i, long key) {
+            while (i != END && longKeys[i] != key) {
+                i = next[i];
+            }
+            return i;
+        }
+
+        private int matchObject(int i, Object key) {
+            while (i != END && !objectKeys[i].equals(key)) {
+                i = next[i];
+            }
+            return i;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L; // 연속된 id 가 이웃한 버킷에 몰리지 않게 섞는다.
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * probe, build 프로젝션 두 개로 된 결과 row
+     * get(member), get(team) 처럼 프로젝션으로 꺼낸다. 프로젝션이 Tuple 이면 안쪽 표현식(get(member.id))으로도 꺼낼 수 있다.
+     */
+    private static final class JoinedTuple implements Tuple {
+
+        private final Expression<?> leftExpr;
+        private final Object left;
+        private final Expression<?> rightExpr;
+        private final Object right;
+
+        JoinedTuple(Expression<?> leftExpr, Object left, Expression<?> rightExpr, Object right) {
+            this.leftExpr = leftExpr;
+            this.left = left;
+            this.rightExpr = rightExpr;
+            this.right = right;
+        }
+
+        @Override
+        public <T> T get(int index, Class<T> type) {
+            if (index < 0 || index > 1) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return type.cast(index == 0 ? left : right);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Expression<T> expr) {
+            if (expr.equals(leftExpr)) {
+                return (T) left;
+            }
+            if (expr.equals(rightExpr)) {
+                return (T) right;
+            }
+            if (left instanceof Tuple) {
+                T value = ((Tuple) left).get(expr);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return right instanceof Tuple ? ((Tuple) right).get(expr) : null;
+        }
+
+        @Override
+        public int size() {
+            return 2;
+        }
+
+        @Override
+        public Object[] toArray() {
+            return new Object[]{left, right};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Tuple && Arrays.equals(toArray(), ((Tuple) o).toArray());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(toArray());
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.querydsl.query;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 여러 쿼리에서 같이 쓰는 회원 표현식
+ */
+public final class MemberExpressions {
+
+    // sum(int) 결과가 int 범위를 넘을 수 있기 때문에 Long 으로 받는다.
+    public static final NumberExpression<Long> AGE_SUM = Expressions.numberTemplate(Long.class, "sum({0})", member.age);
+
+    private MemberExpressions() {
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.querydsl.query;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.Conversions;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 한 번 만들어 두고 파라미터 값만 바꿔서 실행하는 쿼리
+ *
+ * queryFactory.selectFrom(member).where(...) 는 실행할 때마다 QueryMetadata 를 만들고 JPQL 문자열로 직렬화(JPQLSerializer)한다.
+ * 여기서는 생성할 때 한 번만 직렬화하고, 실행할 때는 같은 JPQL 문자열에 값만 바인딩한다.
+ * JPQL 문자열이 항상 같기 때문에 Hibernate 쿼리 플랜 캐시(hibernate.query.plan_cache_max_size)에서 파싱 결과를 재사용한다.
+ *
+ * Param<String> username = new Param<>(String.class, "username");
+ * PreparedQuery<Member> query = PreparedQuery.of(em, queryFactory.selectFrom(member).where(member.username.eq(username)));
+ * query.bind(username, "member1").fetchOne();
+ *
+ * 참고: 스레드에 안전하기 때문에 필드에 두고 재사용한다. em 은 스프링이 주입한 (트랜잭션마다 바인딩되는) 프록시를 넘긴다.
+ * 참고: JPAQuery 에 지정한 힌트, lock mode 는 복사하지 않는다.
+ */
+public class PreparedQuery<T> {
+
+    private final EntityManager em;
+    private final String jpql;
+    private final List<Object> constants;
+    private final QueryModifiers modifiers;
+    private final FactoryExpression<?> factory; // Tuple, DTO 프로젝션이면 결과 row 를 변환한다.
+
+    private PreparedQuery(EntityManager em, String jpql, List<Object> constants, QueryModifiers modifiers,
+                          FactoryExpression<?> factory) {
+        this.em = em;
+        this.jpql = jpql;
+        this.constants = constants;
+        this.modifiers = modifiers;
+        this.factory = factory;
+    }
+
+    public static <T> PreparedQuery<T> of(EntityManager em, JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        JPQLTemplates templates = JPAProvider.getTemplates(em);
+        JPQLSerializer serializer = new JPQLSerializer(templates, em);
+        serializer.serialize(metadata, false, null);
+
+        // sum(int) 처럼 JPA 결과 타입(Long)과 Querydsl 타입(Integer)이 다르면 JPAQuery 와 같이 변환한다.
+        Expression<?> projection = Conversions.convert(metadata.getProjection());
+        FactoryExpression<?> factory = projection instanceof FactoryExpression
+                ? FactoryExpressionUtils.wrap((FactoryExpression<?>) projection)
+                : null;
+        List<Object> constants = Collections.unmodifiableList(new ArrayList<>(serializer.getConstants()));
+        return new PreparedQuery<>(em, serializer.toString(), constants, metadata.getModifiers(), factory);
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public <P> Bindings bind(Param<P> param, P value) {
+        return new Bindings().bind(param, value);
+    }
+
+    /**
+     * 파라미터가 없는 쿼리
+     */
+    public List<T> fetch() {
+        return new Bindings().fetch();
+    }
+
+    /**
+     * 실행 한 번에 바인딩할 값
+     */
+    public class Bindings {
+
+        private final Map<ParamExpression<?>, Object> params = new HashMap<>();
+
+        public <P> Bindings bind(Param<P> param, P value) {
+            params.put(param, value);
+            return this;
+        }
+
+        public List<T> fetch() {
+            List<?> rows = createQuery().getResultList();
+            if (factory == null) {
+                @SuppressWarnings("unchecked")
+                List<T> results = (List<T>) rows;
+                return results;
+            }
+            List<T> results = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                Object[] args = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+                @SuppressWarnings("unchecked")
+                T result = (T) factory.newInstance(args);
+                results.add(result);
+            }
+            return results;
+        }
+
+        /**
+         * @return 없으면 null
+         * @throws NonUniqueResultException 두 건 이상이면
+         */
+        public T fetchOne() {
+            List<T> results = fetch();
+            if (results.size() > 1) {
+                throw new NonUniqueResultException();
+            }
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        private Query createQuery() {
+            Query query = em.createQuery(jpql);
+            // 바인딩하지 않은 Param 이 있으면 ParamNotSetException
+            JPAUtil.setConstants(query, constants, Collections.unmodifiableMap(params));
+            if (modifiers.getLimit() != null) {
+                query.setMaxResults(modifiers.getLimitAsInteger());
+            }
+            if (modifiers.getOffset() != null) {
+                query.setFirstResult(modifiers.getOffsetAsInteger());
+            }
+            return query;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.archive.MemberArchiveQuery;
+import com.example.querydsl.cache.NaturalKeyCache;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.query.PreparedQuery;
+import com.example.querydsl.writebehind.MemberWriteBuffer;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 조회 전용 리포지토리
+ * readOnly 트랜잭션이면 flush 모드가 MANUAL 이 되어 커밋 시점에 변경 감지(flush)를 하지 않는다.
+ * 아직 반영되지 않은 나이 변경(MemberWriteBuffer)도 조회 결과에 보인다.
+ * 보관된 회원(member_archive)은 includeArchived 를 주는 조회에서만 나온다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberQueryRepository {
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+
+    private final JPAQueryFactory queryFactory;
+    private final NaturalKeyCache naturalKeyCache;
+    private final MemberWriteBuffer memberWriteBuffer;
+    private final MemberArchiveQuery memberArchiveQuery;
+
+    // 요청마다 실행되는 조회라 JPQL 직렬화를 한 번만 한다.
+    private final PreparedQuery<MemberTeamDto> memberTeamsByUsername;
+
+    public MemberQueryRepository(JPAQueryFactory queryFactory, EntityManager em, NaturalKeyCache naturalKeyCache,
+                                 MemberWriteBuffer memberWriteBuffer, MemberArchiveQuery memberArchiveQuery) {
+        this.queryFactory = queryFactory;
+        this.naturalKeyCache = naturalKeyCache;
+        this.memberWriteBuffer = memberWriteBuffer;
+        this.memberArchiveQuery = memberArchiveQuery;
+        this.memberTeamsByUsername = PreparedQuery.of(em, queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.eq(USERNAME)));
+    }
+
+    /**
+     * 목록 화면용, 필요한 컬럼만 DTO 로 바로 조회한다.
+     * team 이 없는 회원도 나와야 하기 때문에 left join
+     */
+    public List<MemberTeamDto> findMemberTeams(Predicate condition) {
+        return findMemberTeams(condition, false);
+    }
+
+    /**
+     * @param includeArchived 보관된 회원도 포함한다. (member, member_archive 를 모두 읽는다.)
+     */
+    public List<MemberTeamDto> findMemberTeams(Predicate condition, boolean includeArchived) {
+        memberWriteBuffer.flushIfReferenced(condition);
+        return memberWriteBuffer.read(() -> archived(queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(condition), includeArchived)
+                .fetch());
+    }
+
+    /**
+     * 최근 가입한 회원 limit 명
+     */
+    public List<MemberTeamDto> findRecentMemberTeams(Predicate condition, long limit) {
+        memberWriteBuffer.flushIfReferenced(condition);
+        return memberWriteBuffer.read(() -> queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(condition)
+                .orderBy(member.id.desc())
+                .limit(limit)
+                .fetch());
+    }
+
+    public long countMembers(Predicate condition) {
+        return countMembers(condition, false);
+    }
+
+    public long countMembers(Predicate condition, boolean includeArchived) {
+        memberWriteBuffer.flushIfReferenced(condition);
+        Long count = archived(queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(condition), includeArchived)
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * selectFrom(member).where(member.username.eq(username)).fetchOne() 대신 사용한다.
+     * 이름 → id 는 NaturalKeyCache, 회원은 2차 캐시에서 꺼내기 때문에 캐시에 있으면 SQL 을 실행하지 않는다.
+     */
+    public Member findByUsername(String username) {
+        Member found = naturalKeyCache.find(Member.class, username);
+        if (found != null) {
+            memberWriteBuffer.refreshIfBuffered(List.of(found));
+        }
+        return found;
+    }
+
+    public List<MemberTeamDto> findMemberTeamsByUsername(String username) {
+        return memberWriteBuffer.read(() -> memberTeamsByUsername.bind(USERNAME, username).fetch());
+    }
+
+    /**
+     * 엔티티가 꼭 필요한 조회용, 읽기 전용 힌트를 주면 스냅샷을 만들지 않아 메모리와 flush 비용이 줄어든다.
+     * 조회한 엔티티를 수정해도 DB 에 반영되지 않는다.
+     */
+    public List<Member> findMembersReadOnly(Predicate condition) {
+        memberWriteBuffer.flushIfReferenced(condition);
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(condition)
+                .setHint(QueryHints.READ_ONLY, true)
+                .fetch();
+        memberWriteBuffer.refreshIfBuffered(members);
+        return members;
+    }
+
+    private <T> JPAQuery<T> archived(JPAQuery<T> query, boolean includeArchived) {
+        return includeArchived ? memberArchiveQuery.withArchive(query) : query;
+    }
+}
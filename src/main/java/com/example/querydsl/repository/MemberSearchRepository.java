@@ -0,0 +1,129 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSearchCondition.Sort;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.paging.QuerydslPagingService;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 화면, 값이 있는 조건만 where 절에 들어간다. (where 에 null 을 넘기면 무시된다)
+ *
+ * - 조건은 인덱스(idx_member_username, idx_member_age, idx_team_name)를 탈 수 있는 형태로만 만든다.
+ *   컬럼에 함수를 씌우거나(lower(username) = ?) like '%..%' 를 쓰면 인덱스를 쓰지 못한다.
+ * - team 은 팀 이름 조건이나 정렬이 있을 때만 조인한다. 결과의 팀 이름은 현재 페이지의 팀 id 로 따로 조회한다. (팀 수 만큼만 읽는다)
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberSearchRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final QuerydslPagingService pagingService;
+
+    public Page<MemberTeamDto> search(MemberSearchCondition condition, Pageable pageable) {
+        Page<Tuple> page = pagingService.fetchPage(contentQuery(condition), pageable);
+        Map<Long, String> teamNames = findTeamNames(page.getContent());
+        return page.map(t -> new MemberTeamDto(
+                t.get(member.id),
+                t.get(member.username),
+                t.get(member.age),
+                teamNames.get(t.get(member.team.id))));
+    }
+
+    /**
+     * member.team.id 는 member 테이블의 team_id 컬럼이라 조인하지 않는다.
+     */
+    JPAQuery<Tuple> contentQuery(MemberSearchCondition condition) {
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member);
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else if (condition.getSort() == Sort.TEAM_NAME) {
+            query.leftJoin(member.team, team); // 팀이 없는 회원도 나와야 한다.
+        }
+        return query
+                .where(
+                        usernameEq(condition.getUsername()),
+                        ageBetween(condition.getAgeGoe(), condition.getAgeLoe()),
+                        teamNameEq(condition.getTeamName()))
+                .orderBy(orderBy(condition.getSort()));
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression ageBetween(Integer ageGoe, Integer ageLoe) {
+        if (ageGoe != null && ageLoe != null) {
+            return member.age.between(ageGoe, ageLoe);
+        }
+        if (ageGoe != null) {
+            return member.age.goe(ageGoe);
+        }
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    /**
+     * 페이지가 흔들리지 않도록 마지막에 id 로 정렬한다.
+     */
+    private OrderSpecifier<?>[] orderBy(Sort sort) {
+        if (sort == null) {
+            sort = Sort.ID_DESC;
+        }
+        switch (sort) {
+            case USERNAME:
+                return new OrderSpecifier<?>[]{member.username.asc(), member.id.asc()};
+            case AGE:
+                return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            case TEAM_NAME:
+                return new OrderSpecifier<?>[]{team.name.asc().nullsLast(), member.id.asc()};
+            default:
+                return new OrderSpecifier<?>[]{member.id.desc()};
+        }
+    }
+
+    private Map<Long, String> findTeamNames(List<Tuple> rows) {
+        List<Long> teamIds = rows.stream()
+                .map(t -> t.get(member.team.id))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (teamIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, String> teamNames = new HashMap<>();
+        for (Tuple t : queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .where(team.id.in(teamIds))
+                .fetch()) {
+            teamNames.put(t.get(team.id), t.get(team.name));
+        }
+        return teamNames;
+    }
+}
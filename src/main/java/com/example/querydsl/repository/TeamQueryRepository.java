@@ -0,0 +1,60 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.cache.CacheConfig;
+import com.example.querydsl.cache.NaturalKeyCache;
+import com.example.querydsl.dto.QTeamAgeStatsDto;
+import com.example.querydsl.dto.TeamAgeStatsDto;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.query.MemberExpressions.AGE_SUM;
+
+/**
+ * 자주 실행되는 팀 조회, 이름 조회는 NaturalKeyCache 를 거치고 통계는 쿼리 캐시에 저장한다.
+ *
+ * 쿼리 캐시는 결과(엔티티면 id 목록)와 조회한 테이블을 같이 저장하고,
+ * 그 테이블에 insert/update/delete 가 커밋되면 결과를 버린다. (회원이 팀을 옮기면 팀별 통계도 다시 조회된다)
+ * 참고: 같은 트랜잭션에서 해당 테이블을 수정(flush)했다면 커밋 전까지는 캐시를 사용하지 않는다.
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class TeamQueryRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final NaturalKeyCache naturalKeyCache;
+
+    /**
+     * 팀 이름 → id 는 NaturalKeyCache, 팀은 2차 캐시에서 꺼낸다.
+     * 쿼리 캐시와 달리 다른 팀이 저장/수정되어도 캐시가 무효화되지 않는다.
+     */
+    public Team findByName(String name) {
+        return naturalKeyCache.find(Team.class, name);
+    }
+
+    public List<TeamAgeStatsDto> findAgeStats() {
+        return queryFactory
+                .select(new QTeamAgeStatsDto(
+                        team.name,
+                        member.count(),
+                        AGE_SUM,
+                        member.age.avg(),
+                        member.age.max(),
+                        member.age.min()))
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .setHint(QueryHints.CACHEABLE, true)
+                .setHint(QueryHints.CACHE_REGION, CacheConfig.TEAM_QUERIES)
+                .fetch();
+    }
+}
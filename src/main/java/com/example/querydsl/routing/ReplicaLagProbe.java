@@ -0,0 +1,34 @@
+package com.example.querydsl.routing;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * 레플리카의 복제 지연
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+
+    Duration lag(DataSource replica) throws SQLException;
+
+    /**
+     * 지연(초)을 반환하는 쿼리를 실행한다. 결과가 null 이면(복제할 변경이 없는 경우 등) 지연이 없는 것으로 본다.
+     */
+    static ReplicaLagProbe query(String sql) {
+        return replica -> {
+            try (Connection connection = replica.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(sql)) {
+                if (!rs.next()) {
+                    return Duration.ZERO;
+                }
+                double seconds = rs.getDouble(1);
+                return rs.wasNull() ? Duration.ZERO : Duration.ofMillis((long) (seconds * 1000));
+            }
+        };
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.querydsl.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 레플리카로, 나머지는 주 DB 로 보낸다.
+ *
+ * 트랜잭션이 시작될 때는 아직 readOnly 여부가 TransactionSynchronizationManager 에 반영되기 전이라
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 쿼리를 실행할 때 커넥션을 가져와야 한다. (RoutingConfig 참고)
+ * 트랜잭션 밖의 조회는 이후 같은 커넥션으로 쓰기를 할 수 있기 때문에 주 DB 로 보낸다.
+ * 복제 지연이 max-lag 를 넘거나 지연 확인에 실패한 레플리카는 제외하고, 남은 레플리카가 없으면 주 DB 로 보낸다.
+ *
+ * 참고: 레플리카는 비동기 복제라 방금 커밋한 데이터가 안 보일 수 있다. 쓰기 직후 다시 읽어야 하면 읽기 전용이 아닌 트랜잭션에서 읽는다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    public enum Balance {
+        ROUND_ROBIN,
+        // 풀에서 사용 중인 커넥션이 가장 적은 레플리카 (HikariDataSource 인 경우)
+        LEAST_LOADED
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Balance balance;
+    private final ReplicaLagProbe lagProbe;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService lagChecker;
+
+    /**
+     * @param lagProbe null 이면 지연을 확인하지 않는다.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Balance balance,
+                                    ReplicaLagProbe lagProbe, Duration maxLag) {
+        this.primary = primary;
+        this.balance = balance;
+        this.lagProbe = lagProbe;
+        this.maxLag = maxLag;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicas.get(i));
+            this.replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = choose();
+        return replica == null ? PRIMARY : replica.key;
+    }
+
+    private Replica choose() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), healthy.size());
+        if (balance == Balance.ROUND_ROBIN) {
+            return healthy.get(start);
+        }
+        // 사용 중인 커넥션 수가 같으면 라운드 로빈 순서로 고른다.
+        Replica least = null;
+        int leastActive = Integer.MAX_VALUE;
+        for (int i = 0; i < healthy.size(); i++) {
+            Replica replica = healthy.get((start + i) % healthy.size());
+            int active = replica.activeConnections();
+            if (active < leastActive) {
+                least = replica;
+                leastActive = active;
+            }
+        }
+        return least;
+    }
+
+    /**
+     * 레플리카마다 복제 지연을 확인해서 라우팅 대상에 넣거나 뺀다.
+     */
+    public void refreshHealth() {
+        if (lagProbe == null) {
+            return;
+        }
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                Duration lag = lagProbe.lag(replica.dataSource);
+                healthy = lag.compareTo(maxLag) <= 0;
+                if (!healthy && replica.healthy) {
+                    log.warn("{} 복제 지연 {} > {}, 주 DB 또는 다른 레플리카로 보낸다.", replica.key, lag, maxLag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("{} 복제 지연을 확인할 수 없습니다.", replica.key, e);
+                }
+            }
+            if (healthy && !replica.healthy) {
+                log.info("{} 다시 읽기 요청을 보낸다.", replica.key);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public synchronized void startLagChecks(Duration interval) {
+        if (lagProbe == null || lagChecker != null) {
+            return;
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-"));
+        // 처음에는 모든 레플리카를 사용하고, interval 뒤부터 확인한다.
+        lagChecker.scheduleWithFixedDelay(this::refreshHealth, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 지연 확인 스레드를 멈추고 주 DB, 레플리카 커넥션 풀을 닫는다.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private static class Replica {
+
+        final String key;
+        final DataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections(); // 첫 커넥션을 가져오기 전에는 풀이 없다.
+            }
+            return 0;
+        }
+    }
+}
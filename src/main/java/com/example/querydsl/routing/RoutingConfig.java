@@ -0,0 +1,78 @@
+package com.example.querydsl.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.routing.enabled=true 이면 DataSource 를 직접 등록해서 DataSourceAutoConfiguration 을 대신한다.
+ *
+ * 참고: 주 DB 는 spring.datasource.url/username/password 만 사용한다. (spring.datasource.hikari.* 는 적용되지 않는다)
+ * 참고: open-in-view 를 켜면 요청 동안 처음 가져온 커넥션을 계속 쓰기 때문에 꺼야 한다. (application.yml)
+ */
+@Configuration
+@EnableConfigurationProperties(RoutingProperties.class)
+@ConditionalOnProperty(name = "querydsl.routing.enabled", havingValue = "true")
+public class RoutingConfig {
+
+    @Bean
+    RoutingDataSource dataSource(DataSourceProperties dataSourceProperties, RoutingProperties properties,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        // 풀마다 hikaricp.connections.* 메트릭(pool 태그)을 남긴다. 풀이 시작되기 전에 설정해야 한다.
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            RoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            meterRegistry.ifAvailable(dataSource::setMetricRegistry);
+            replicas.add(dataSource);
+        }
+
+        ReplicaLagProbe lagProbe = properties.getLagQuery() == null ? null : ReplicaLagProbe.query(properties.getLagQuery());
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary, replicas, properties.getBalance(), lagProbe, properties.getMaxLag());
+        routing.startLagChecks(properties.getLagCheckInterval());
+        return new RoutingDataSource(routing);
+    }
+
+    /**
+     * 첫 쿼리를 실행할 때 커넥션을 가져온다. (그때는 트랜잭션의 readOnly 여부가 정해져 있다)
+     * 컨텍스트가 닫힐 때 close() 가 호출되어 커넥션 풀을 닫는다.
+     */
+    public static class RoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+        RoutingDataSource(ReplicaRoutingDataSource routing) {
+            super(routing);
+        }
+
+        public ReplicaRoutingDataSource getRouting() {
+            return (ReplicaRoutingDataSource) obtainTargetDataSource();
+        }
+
+        @Override
+        public void close() throws IOException {
+            getRouting().close();
+        }
+    }
+}
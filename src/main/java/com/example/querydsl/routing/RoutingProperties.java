@@ -0,0 +1,39 @@
+package com.example.querydsl.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.routing")
+public class RoutingProperties {
+
+    // true 이면 읽기 전용 트랜잭션을 레플리카로 보낸다. 주 DB 는 spring.datasource 설정을 그대로 쓴다.
+    private boolean enabled = false;
+
+    private ReplicaRoutingDataSource.Balance balance = ReplicaRoutingDataSource.Balance.ROUND_ROBIN;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // 레플리카에서 실행해서 복제 지연(초)을 구하는 쿼리, 없으면 지연을 확인하지 않는다.
+    // ex) PostgreSQL: select extract(epoch from now() - pg_last_xact_replay_timestamp())
+    private String lagQuery;
+
+    // 복제 지연이 이보다 크면 그 레플리카로 보내지 않는다. 모든 레플리카가 지연되면 주 DB 로 보낸다.
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    @Getter @Setter
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
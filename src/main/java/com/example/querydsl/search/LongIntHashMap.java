@@ -0,0 +1,119 @@
+package com.example.querydsl.search;
+
+import java.util.Arrays;
+
+/**
+ * long → int 맵, 키와 값을 박싱하지 않고 배열 두 개에 저장한다. (HashMap&lt;Long, Integer&gt; 는 항목마다 객체 3개)
+ * 선형 탐사(open addressing)를 쓰고, 지울 때는 뒤쪽 항목을 당겨와서 빈칸 표시(tombstone)를 남기지 않는다.
+ * 동기화하지 않는다. (NgramIndex 가 잠금을 잡고 사용한다)
+ */
+final class LongIntHashMap {
+
+    private static final long FREE = Long.MIN_VALUE; // 빈칸, 이 값은 키로 쓸 수 없다.
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap() {
+        this(16);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 4 / 3) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 값, 없으면 MISSING
+     */
+    int get(long key) {
+        for (int i = slot(key); keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("키로 Long.MIN_VALUE 는 사용할 수 없습니다.");
+        }
+        if ((size + 1) * 4L > keys.length * 3L) { // 75% 가 차면 두 배로 늘린다.
+            resize(keys.length << 1);
+        }
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * @return 지운 값, 없으면 MISSING
+     */
+    int remove(long key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == FREE) {
+                return MISSING;
+            }
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        // 지운 칸(gap) 뒤에 있는 항목 중 원래 자리에서 gap 을 지나쳐 온 항목을 gap 으로 당긴다.
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = FREE;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        allocate(16);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // 연속된 id 가 이웃한 칸에 몰리지 않게 섞는다.
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        size = 0;
+    }
+}
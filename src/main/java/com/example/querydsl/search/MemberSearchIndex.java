@@ -0,0 +1,183 @@
+package com.example.querydsl.search;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringPath;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 이름, 팀 이름 검색 색인 (애플리케이션 메모리)
+ *
+ * username like '%x%' 는 인덱스(idx_member_username)를 쓸 수 없어서 회원 전체를 읽는다.
+ * 대소문자를 무시하는 lower(username) like 'x%' 도 마찬가지다.
+ * 이름을 NgramIndex 에 올려두고 검색어에 맞는 id 만 찾은 뒤, 회원은 id 로 다시 조인해서 조회한다.
+ * ex) queryFactory.selectFrom(member).where(memberSearchIndex.username("abc", TextMatch.CONTAINS), member.age.goe(20))
+ *
+ * 색인은 SearchIndexListener 가 커밋된 변경만 반영한다. 애플리케이션이 뜰 때, JDBC/벌크 쿼리로 이름을 바꾼 뒤에는 rebuild() 로 다시 만든다.
+ * 참고: 커밋한 직후 반영되기 전까지 잠깐 이전 이름으로 검색될 수 있다.
+ * 참고: 결과가 많은 검색어(한두 글자)는 in 절이 커지기 때문에 findMemberIds 에 limit 을 주고 id 순서로 나눠서 조회한다.
+ *       username(), teamName() 은 찾은 id 가 IN_LIST_LIMIT 개를 넘으면 in 절 대신 lower(...) like 조건을 돌려준다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchIndex {
+
+    private static final String SELECT_USERNAMES = "select member_id, username from member where username is not null order by member_id";
+    private static final String SELECT_TEAM_NAMES = "select team_id, name from team where name is not null order by team_id";
+    // in 절에 넣을 최대 id 수, 넘으면 SQL 파싱, 실행 계획 비용이 like 로 읽는 비용보다 커진다.
+    static final int IN_LIST_LIMIT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile NgramIndex usernames = new NgramIndex();
+    private volatile NgramIndex teamNames = new NgramIndex();
+
+    private final Object rebuildLock = new Object();
+    // rebuild 하는 동안 커밋된 변경, 새 색인에 다시 반영한다. (this 로 동기화)
+    private List<SearchIndexChanges> replay;
+
+    /**
+     * @return 이름이 검색어에 맞는 회원 id (오름차순, 최대 limit 개)
+     */
+    public List<Long> findMemberIds(String query, TextMatch match, int limit) {
+        return search(usernames, query, match, limit);
+    }
+
+    /**
+     * @return 이름이 검색어에 맞는 팀 id (오름차순, 최대 limit 개)
+     */
+    public List<Long> findTeamIds(String query, TextMatch match, int limit) {
+        return search(teamNames, query, match, limit);
+    }
+
+    /**
+     * member.username 조건 대신 쓰는 member.id in (...) 조건, query 가 null 이면 조건 없음
+     * 찾은 회원이 IN_LIST_LIMIT 명을 넘으면 member.username like 조건
+     */
+    public BooleanExpression username(String query, TextMatch match) {
+        if (query == null) {
+            return null;
+        }
+        List<Long> ids = findMemberIds(query, match, IN_LIST_LIMIT + 1);
+        return ids.size() > IN_LIST_LIMIT ? like(member.username, query, match) : member.id.in(ids);
+    }
+
+    /**
+     * member.team.name 조건 대신 쓰는 member.team.id in (...) 조건, 팀을 조인하지 않는다.
+     * 찾은 팀이 IN_LIST_LIMIT 개를 넘으면 member.team.name like 조건 (팀을 조인한다)
+     */
+    public BooleanExpression teamName(String query, TextMatch match) {
+        if (query == null) {
+            return null;
+        }
+        List<Long> ids = findTeamIds(query, match, IN_LIST_LIMIT + 1);
+        return ids.size() > IN_LIST_LIMIT ? like(member.team.name, query, match) : member.team.id.in(ids);
+    }
+
+    /**
+     * DB 에서 이름을 모두 읽어서 색인을 새로 만든다. 만드는 동안에는 이전 색인으로 검색한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            NgramIndex newUsernames = load(SELECT_USERNAMES);
+            NgramIndex newTeamNames = load(SELECT_TEAM_NAMES);
+            synchronized (this) {
+                for (SearchIndexChanges changes : replay) { // 읽기 전에 커밋된 변경이 섞여 있어도 마지막 값이 남는다.
+                    changes.applyTo(newUsernames, newTeamNames);
+                }
+                replay = null;
+                usernames = newUsernames;
+                teamNames = newTeamNames;
+            }
+        }
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋한 뒤에 다시 만든다. (JDBC insert, 벌크 update 용)
+     */
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋한 뒤에 회원을 색인에서 뺀다. (JDBC 로 삭제, 보관한 회원)
+     */
+    public void removeMembersAfterCommit(Collection<Long> memberIds) {
+        SearchIndexChanges changes = new SearchIndexChanges(this);
+        memberIds.forEach(id -> changes.member(id, null));
+        applyAfterCommit(changes);
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋한 뒤에 회원 이름을 바꾼다. (벌크 update 로 이름을 바꾼 회원)
+     *
+     * @param usernames 회원 id -> 바뀐 이름
+     */
+    public void updateMembersAfterCommit(Map<Long, String> usernames) {
+        SearchIndexChanges changes = new SearchIndexChanges(this);
+        usernames.forEach(changes::member);
+        applyAfterCommit(changes);
+    }
+
+    private void applyAfterCommit(SearchIndexChanges changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(changes);
+            }
+        });
+    }
+
+    synchronized void apply(SearchIndexChanges changes) {
+        changes.applyTo(usernames, teamNames);
+        if (replay != null) {
+            replay.add(changes);
+        }
+    }
+
+    private NgramIndex load(String sql) {
+        NgramIndex index = new NgramIndex();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> index.put(rs.getLong(1), rs.getString(2)));
+        return index;
+    }
+
+    private BooleanExpression like(StringPath path, String query, TextMatch match) {
+        return match == TextMatch.PREFIX ? path.startsWithIgnoreCase(query) : path.containsIgnoreCase(query);
+    }
+
+    private List<Long> search(NgramIndex index, String query, TextMatch match, int limit) {
+        long[] ids = match == TextMatch.PREFIX ? index.startsWith(query, limit) : index.contains(query, limit);
+        return Arrays.stream(ids).boxed().toList();
+    }
+}
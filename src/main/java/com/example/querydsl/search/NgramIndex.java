@@ -0,0 +1,230 @@
+package com.example.querydsl.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * id → 문자열을 3글자 조각(trigram) 역색인으로 저장하고 앞부분 일치(startsWith), 부분 일치(contains)로 id 를 찾는다.
+ *
+ * 문자열마다 문서 번호(doc)를 붙이고, trigram 마다 그 조각이 들어 있는 doc 번호를 오름차순으로 모아둔다.
+ * 검색어의 trigram 중 문서 수가 가장 적은 목록만 훑으면서 실제 문자열과 비교하기 때문에 전체를 읽지 않는다.
+ * 앞부분 일치는 문자열 앞에 시작 표시(START)를 붙여서 색인하기 때문에 같은 목록으로 찾는다.
+ * 검색어가 짧아서 trigram 이 없으면(부분 일치 1~2글자, 앞부분 일치 1글자) 전체를 훑는다.
+ *
+ * 대소문자는 구분하지 않는다.
+ * 수정/삭제한 문서는 지웠다는 표시만 하고 목록에서 빼지 않는다. 지운 문서가 절반을 넘으면 id 순서로 다시 만든다.
+ * 읽기/쓰기 잠금을 사용해서 검색끼리는 동시에 실행된다.
+ */
+public class NgramIndex {
+
+    private static final char START = '\u0001';
+    private static final int GRAM = 3;
+    private static final int MIN_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // doc 번호 → id, 문자열(소문자), 지운 문서의 문자열은 null
+    private long[] ids = new long[16];
+    private String[] texts = new String[16];
+    private int docCount;
+    private int deleted;
+    // 문서를 id 오름차순으로 추가했는지, 이 경우 검색 결과를 정렬하지 않고 limit 개에서 멈춘다.
+    private boolean ordered = true;
+
+    private final LongIntHashMap docs = new LongIntHashMap(); // id → doc 번호
+    private final Map<Long, Postings> postings = new HashMap<>(); // trigram → doc 번호 목록
+
+    /**
+     * 추가하거나 문자열을 바꾼다. text 가 null 이면 지운다.
+     */
+    public void put(long id, String text) {
+        if (text == null) {
+            remove(id);
+            return;
+        }
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            int doc = docs.get(id);
+            if (doc != LongIntHashMap.MISSING) {
+                if (texts[doc].equals(normalized)) {
+                    return;
+                }
+                delete(doc);
+            }
+            add(id, normalized);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int doc = docs.remove(id);
+            if (doc != LongIntHashMap.MISSING) {
+                delete(doc);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return prefix 로 시작하는 문자열의 id 중 작은 순서로 최대 limit 개
+     */
+    public long[] startsWith(String prefix, int limit) {
+        String query = normalize(prefix);
+        return search(START + query, limit, text -> text.startsWith(query));
+    }
+
+    /**
+     * @return infix 가 들어 있는 문자열의 id 중 작은 순서로 최대 limit 개
+     */
+    public long[] contains(String infix, int limit) {
+        String query = normalize(infix);
+        return search(query, limit, text -> text.contains(query));
+    }
+
+    private long[] search(String key, int limit, Predicate<String> matches) {
+        lock.readLock().lock();
+        try {
+            Postings candidates = shortestPostings(key);
+            int count = candidates == null ? docCount : candidates.size;
+            long[] result = new long[Math.min(count, ordered ? limit : Integer.MAX_VALUE)];
+            int found = 0;
+            for (int i = 0; i < count && found < result.length; i++) {
+                int doc = candidates == null ? i : candidates.docs[i];
+                String text = texts[doc];
+                if (text != null && matches.test(text)) {
+                    result[found++] = ids[doc];
+                }
+            }
+            if (!ordered) {
+                Arrays.sort(result, 0, found);
+            }
+            return Arrays.copyOf(result, Math.min(found, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 문서 수가 가장 적은 trigram 목록, trigram 이 없으면 null (전체를 훑는다)
+     */
+    private Postings shortestPostings(String key) {
+        if (key.length() < GRAM) {
+            return null;
+        }
+        Postings shortest = null;
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            Postings p = postings.get(gram(key, i));
+            if (p == null) {
+                return Postings.EMPTY; // 이 조각이 들어 있는 문자열이 없다.
+            }
+            if (shortest == null || p.size < shortest.size) {
+                shortest = p;
+            }
+        }
+        return shortest;
+    }
+
+    private void add(long id, String text) {
+        if (docCount == ids.length) {
+            ids = Arrays.copyOf(ids, docCount * 2);
+            texts = Arrays.copyOf(texts, docCount * 2);
+        }
+        int doc = docCount++;
+        ordered &= doc == 0 || id > ids[doc - 1];
+        ids[doc] = id;
+        texts[doc] = text;
+        docs.put(id, doc);
+
+        String key = START + text;
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            postings.computeIfAbsent(gram(key, i), g -> new Postings()).add(doc);
+        }
+    }
+
+    private void delete(int doc) {
+        texts[doc] = null;
+        deleted++;
+    }
+
+    /**
+     * 지운 문서가 절반을 넘으면 남은 문서를 id 순서로 다시 색인한다.
+     */
+    private void compactIfNeeded() {
+        if (deleted < MIN_COMPACT || deleted * 2 < docCount) {
+            return;
+        }
+        long[] liveIds = new long[docs.size()];
+        int n = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (texts[doc] != null) {
+                liveIds[n++] = ids[doc];
+            }
+        }
+        Arrays.sort(liveIds);
+        String[] liveTexts = new String[n];
+        for (int i = 0; i < n; i++) {
+            liveTexts[i] = texts[docs.get(liveIds[i])];
+        }
+
+        ids = new long[Math.max(16, n)];
+        texts = new String[ids.length];
+        docCount = 0;
+        deleted = 0;
+        ordered = true;
+        docs.clear();
+        postings.clear();
+        for (int i = 0; i < n; i++) {
+            add(liveIds[i], liveTexts[i]);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long gram(String key, int from) {
+        return (long) key.charAt(from) << 32 | (long) key.charAt(from + 1) << 16 | key.charAt(from + 2);
+    }
+
+    /**
+     * 한 trigram 이 들어 있는 doc 번호 목록, 문서는 항상 뒤에 추가되기 때문에 오름차순이다.
+     */
+    private static class Postings {
+
+        static final Postings EMPTY = new Postings();
+
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) { // 한 문자열에 같은 조각이 여러 번 나온 경우
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
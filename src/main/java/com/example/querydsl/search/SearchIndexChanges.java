@@ -0,0 +1,55 @@
+package com.example.querydsl.search;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 한 트랜잭션 동안 바뀐 회원 이름, 팀 이름을 모았다가 커밋에 성공하면 색인에 반영한다.
+ * 롤백되면 버리기 때문에 색인에는 커밋된 이름만 들어간다.
+ */
+class SearchIndexChanges implements AfterTransactionCompletionProcess {
+
+    private final MemberSearchIndex index;
+    private final List<Change> members = new ArrayList<>();
+    private final List<Change> teams = new ArrayList<>();
+
+    SearchIndexChanges(MemberSearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * @param username null 이면 색인에서 뺀다.
+     */
+    void member(long id, String username) {
+        members.add(new Change(id, username));
+    }
+
+    void team(long id, String name) {
+        teams.add(new Change(id, name));
+    }
+
+    @Override
+    public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+        if (success) {
+            index.apply(this);
+        }
+    }
+
+    /**
+     * 같은 회원을 여러 번 바꿨으면 마지막 값이 남도록 바뀐 순서대로 반영한다.
+     */
+    void applyTo(NgramIndex usernames, NgramIndex teamNames) {
+        for (Change change : members) {
+            usernames.put(change.id(), change.text());
+        }
+        for (Change change : teams) {
+            teamNames.put(change.id(), change.text());
+        }
+    }
+
+    private record Change(long id, String text) {
+    }
+}
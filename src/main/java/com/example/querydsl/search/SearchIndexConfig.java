@@ -0,0 +1,18 @@
+package com.example.querydsl.search;
+
+import com.example.querydsl.config.HibernateEventListeners;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SearchIndexConfig {
+
+    /**
+     * 세션 팩토리가 만들어질 때 SearchIndexListener 를 Hibernate 이벤트 리스너로 등록한다.
+     */
+    @Bean
+    HibernatePropertiesCustomizer searchIndexListenerCustomizer(MemberSearchIndex memberSearchIndex) {
+        return HibernateEventListeners.customizer(new SearchIndexListener(memberSearchIndex));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.querydsl.search;
+
+import com.example.querydsl.config.HibernateEventListeners;
+import com.example.querydsl.config.HibernateEventListeners.PerSession;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Objects;
+
+/**
+ * 회원 이름(username), 팀 이름(name)의 저장, 변경, 삭제를 MemberSearchIndex 에 반영한다.
+ *
+ * 참고: 벌크 update/delete, JDBC insert 는 이벤트가 발생하지 않기 때문에 MemberSearchIndex.rebuild() 를 호출해야 한다.
+ * (벌크 delete 후 남은 id 는 회원 테이블과 다시 조인할 때 걸러지기 때문에 결과가 틀리지는 않는다)
+ */
+public class SearchIndexListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // 세션(트랜잭션)별로 모은 변경, 트랜잭션이 끝나면 지운다.
+    private final PerSession<SearchIndexChanges> pending;
+
+    public SearchIndexListener(MemberSearchIndex index) {
+        this.pending = HibernateEventListeners.perSession(() -> new SearchIndexChanges(index));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).member((Long) event.getId(), ((Member) event.getEntity()).getUsername());
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).team((Long) event.getId(), ((Team) event.getEntity()).getName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        String property;
+        if (event.getEntity() instanceof Member) {
+            property = "username";
+        } else if (event.getEntity() instanceof Team) {
+            property = "name";
+        } else {
+            return;
+        }
+
+        int i = indexOf(event.getPersister().getPropertyNames(), property);
+        Object[] oldState = event.getOldState(); // 준영속 엔티티를 update() 로 저장한 경우 null
+        String text = (String) event.getState()[i];
+        if (oldState != null && Objects.equals(oldState[i], text)) {
+            return;
+        }
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).member((Long) event.getId(), text);
+        } else {
+            changes(event.getSession()).team((Long) event.getId(), text);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).member((Long) event.getId(), null);
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).team((Long) event.getId(), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private SearchIndexChanges changes(EventSource session) {
+        return pending.get(session);
+    }
+
+    private int indexOf(String[] properties, String name) {
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException(name + " 속성이 없습니다.");
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.querydsl.search;
+
+/**
+ * 이름 검색 방식
+ */
+public enum TextMatch {
+
+    /**
+     * like 'x%'
+     */
+    PREFIX,
+
+    /**
+     * like '%x%'
+     */
+    CONTAINS
+}
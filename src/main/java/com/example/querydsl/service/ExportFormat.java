@@ -0,0 +1,20 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.columnar.ColumnarResult;
+
+public enum ExportFormat {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson"),
+    COLUMNAR(ColumnarResult.CONTENT_TYPE); // 열 단위 바이너리 (chunk 마다 ColumnarResult.writeTo)
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
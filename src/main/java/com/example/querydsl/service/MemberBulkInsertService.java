@@ -0,0 +1,123 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.cache.JdbcCacheInvalidation;
+import com.example.querydsl.cache.NaturalKeyTables;
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.stats.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 회원 대량 insert
+ *
+ * 1. persistAll: JPA 를 그대로 사용한다. 엔티티 리스너 등 생명주기 콜백이 필요한 경우
+ *    - 시퀀스 pooled optimizer 로 50건마다 한 번만 시퀀스를 조회한다.
+ *    - hibernate.jdbc.batch_size, order_inserts 로 insert 를 JDBC batch 로 모아서 실행한다.
+ *    - batch-size 마다 flush/clear 해서 영속성 컨텍스트가 계속 커지지 않게 한다.
+ * 2. insertAllJdbc: 엔티티를 만들지 않고 JdbcTemplate batchUpdate 로 바로 insert 한다. 생명주기 콜백이 필요 없는 경우
+ *    - id 는 Hibernate 의 id 생성기를 그대로 사용하기 때문에 JPA 로 저장하는 회원과 id 가 겹치지 않는다.
+ *    - 엔티티 이벤트가 발생하지 않기 때문에 마지막에 회원이 들어간 팀의 통계(TeamStats)를 다시 계산한다.
+ *    - 같은 이유로 이름 검색 색인(MemberSearchIndex)은 커밋한 뒤 다시 만들고, member 테이블의 쿼리 캐시(팀 통계 조회 등)는 커밋한 뒤 무효화한다.
+ *    - 같은 이름의 회원이 들어왔을 수 있어서 자연 키 캐시(NaturalKeyTables)의 회원 이름도 커밋한 뒤 비운다.
+ *
+ * 참고: JPQL(Querydsl insert())은 insert ... select 만 지원해서 외부 데이터를 넣는 용도로는 사용할 수 없다.
+ * 참고: 중간에 em.clear() 를 하기 때문에 호출한 쪽 트랜잭션에서 조회한 엔티티도 준영속 상태가 된다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberBulkInsertService {
+
+    private static final String INSERT_MEMBER_SQL = "insert into member (member_id, username, age, team_id, version) values (?, ?, ?, ?, 0)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamStatsService teamStatsService;
+    private final MemberSearchIndex memberSearchIndex;
+    private final NaturalKeyTables naturalKeyTables;
+
+    @Value("${querydsl.bulk.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * @return 저장한 회원 수
+     */
+    @Transactional
+    public long persistAll(Iterable<MemberImportRow> rows) {
+        Map<Long, Team> teams = new HashMap<>();
+        long count = 0;
+        for (MemberImportRow row : rows) {
+            Member member = new Member(row.getUsername(), row.getAge());
+            // 생성자로 팀을 넘기면 team.getMembers() 컬렉션을 초기화하기 때문에 연관관계 주인 쪽만 세팅한다.
+            member.setTeam(row.getTeamId() == null ? null
+                    : teams.computeIfAbsent(row.getTeamId(), id -> em.getReference(Team.class, id)));
+            em.persist(member);
+
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+                teams.clear(); // clear 하면 팀 프록시도 준영속이 된다.
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    /**
+     * @return 저장한 회원 수
+     */
+    @Transactional
+    public long insertAllJdbc(Iterable<MemberImportRow> rows) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel()
+                .entityPersister(Member.class).getIdentifierGenerator();
+        // 새 회원이라 2차 캐시에서 지울 엔티티는 없다.
+        JdbcCacheInvalidation.afterCommit(em, Member.class, List.of());
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        Set<Long> teamIds = new HashSet<>();
+        long count = 0;
+        for (MemberImportRow row : rows) {
+            batch.add(new Object[]{idGenerator.generate(session, null), row.getUsername(), row.getAge(), row.getTeamId()});
+            if (row.getTeamId() != null) {
+                teamIds.add(row.getTeamId());
+            }
+            if (batch.size() == batchSize) {
+                count += executeBatch(batch);
+            }
+        }
+        count += executeBatch(batch);
+        teamStatsService.rebuild(teamIds);
+        memberSearchIndex.rebuildAfterCommit();
+        naturalKeyTables.clearAfterCommit(Member.class);
+        return count;
+    }
+
+    private int executeBatch(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, batch,
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.BIGINT});
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.cache.NaturalKeyTables;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.stats.TeamStatsService;
+import com.example.querydsl.writebehind.MemberWriteBuffer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 벌크 수정/삭제
+ *
+ * 회원을 전부 조회해서 setter 를 호출하면 회원 수만큼 select, update 가 실행된다.
+ * update/delete 쿼리 한 번으로 처리하고, 영속성 컨텍스트는 em.clear() 대신 영향받은 엔티티만 맞춰준다.
+ * - 수정된 회원: em.refresh() 로 DB 값을 다시 읽는다.
+ * - 삭제된 회원: em.detach() 로 영속성 컨텍스트에서 뺀다.
+ * - 회원이 빠지거나 들어간 팀: members 컬렉션이 초기화되어 있으면 em.refresh() 해서 컬렉션을 다시 읽게 한다.
+ * 엔티티 이벤트가 발생하지 않기 때문에 대상 회원이 속한 팀의 통계(TeamStats)도 다시 계산한다.
+ * 같은 이유로 이름 검색 색인(MemberSearchIndex), 자연 키 캐시(NaturalKeyTables)도 커밋한 뒤 바뀐 회원만 맞춰준다.
+ * - update: member.username 을 바꿀 때만 대상 회원의 id, 이름을 먼저 읽고 실행 후 바뀐 이름을 다시 읽는다. (addAge 등 이름을 바꾸지 않으면 아무것도 하지 않는다.)
+ * - delete: 삭제한 회원만 색인, 캐시에서 뺀다.
+ *
+ * 참고: JPQL update/delete 는 조인을 할 수 없기 때문에 조건에 member.team.name 같은 경로를 쓰면 안 된다. (member.team.id 는 가능)
+ * 참고: 수정한 회원의 버전(@Version)을 올린다. 같은 회원을 엔티티로 수정하던 트랜잭션은 커밋할 때 OptimisticLockException 이 발생한다.
+ * 참고: 실행 전에 flush 하기 때문에 아직 반영되지 않은 변경도 먼저 DB 에 반영된다. write-behind 버퍼(MemberWriteBuffer)에 모인 나이 변경도 먼저 반영한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberBulkMutationService {
+
+    private static final int IN_LIST_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final TeamStatsService teamStatsService;
+    private final MemberSearchIndex memberSearchIndex;
+    private final NaturalKeyTables naturalKeyTables;
+    private final MemberWriteBuffer memberWriteBuffer;
+
+    @Value("${querydsl.bulk.chunk-size:10000}")
+    private int chunkSize;
+
+    /**
+     * ex) update(member.age.gt(30), update -> update.set(member.age, member.age.add(1)))
+     * 팀을 바꾸는 경우는 moveTeam 을 사용한다.
+     *
+     * @return 수정된 회원 수
+     */
+    @Transactional
+    public long update(Predicate condition, Consumer<JPAUpdateClause> assignments) {
+        return execute(condition, where -> {
+            AssignmentTrackingClause update = new AssignmentTrackingClause(em);
+            update.where(where);
+            update.set(member.version, member.version.add(1)); // 엔티티로 수정 중인 다른 트랜잭션이 덮어쓰지 않게 버전을 올린다.
+            assignments.accept(update);
+            if (!update.assigns(member.username)) {
+                return update.execute();
+            }
+
+            Map<Long, String> before = usernames(where);
+            long count = update.execute();
+            Map<Long, String> after = usernames(before.keySet());
+            memberSearchIndex.updateMembersAfterCommit(after);
+            Set<String> keys = new HashSet<>(before.values());
+            keys.addAll(after.values());
+            naturalKeyTables.invalidateAfterCommit(Member.class, keys);
+            return count;
+        }, false, Set.of());
+    }
+
+    /**
+     * @return 나이가 바뀐 회원 수
+     */
+    @Transactional
+    public long addAge(Predicate condition, int delta) {
+        return update(condition, update -> update.set(member.age, member.age.add(delta)));
+    }
+
+    /**
+     * from 팀의 회원을 모두 to 팀으로 옮긴다.
+     *
+     * @return 옮긴 회원 수
+     */
+    @Transactional
+    public long moveTeam(Team from, Team to) {
+        long count = execute(member.team.id.eq(from.getId()), where -> queryFactory
+                .update(member)
+                .set(member.team, em.getReference(Team.class, to.getId()))
+                .set(member.version, member.version.add(1))
+                .where(where)
+                .execute(), false, Set.of(to.getId()));
+        // 영속성 컨텍스트에 없던 회원이 들어왔을 수 있기 때문에 to 팀 컬렉션은 항상 다시 읽는다.
+        refreshMembers(Set.of(to));
+        return count;
+    }
+
+    /**
+     * @return 삭제된 회원 수
+     */
+    @Transactional
+    public long delete(Predicate condition) {
+        return execute(condition, where -> {
+            Map<Long, String> deleted = usernames(where);
+            memberSearchIndex.removeMembersAfterCommit(deleted.keySet());
+            naturalKeyTables.invalidateAfterCommit(Member.class, deleted.values());
+            return queryFactory.delete(member).where(where).execute();
+        }, true, Set.of());
+    }
+
+    /**
+     * 대상 회원을 id 범위(chunk-size)로 나눠서 범위마다 별도 트랜잭션으로 수정한다.
+     * 한 트랜잭션으로 수백만 건을 수정하면 커밋할 때까지 row lock 을 잡고 있기 때문에 다른 요청이 오래 기다린다.
+     * 범위마다 커밋하기 때문에 중간에 실패하면 앞의 범위는 이미 반영되어 있다.
+     *
+     * @return 수정된 회원 수
+     */
+    public long updateInChunks(Predicate condition, Consumer<JPAUpdateClause> assignments) {
+        return inChunks(condition, where -> update(where, assignments));
+    }
+
+    /**
+     * @return 삭제된 회원 수
+     * @see #updateInChunks(Predicate, Consumer)
+     */
+    public long deleteInChunks(Predicate condition) {
+        return inChunks(condition, this::delete);
+    }
+
+    private long inChunks(Predicate condition, Function<Predicate, Long> chunk) {
+        // 바깥 트랜잭션이 있으면 범위마다 커밋해도 바깥 트랜잭션이 잡은 lock 과 영속성 컨텍스트가 남아 있다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("updateInChunks/deleteInChunks 는 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Tuple range = tx.execute(status -> queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(condition)
+                .fetchOne());
+        Long min = range.get(member.id.min());
+        Long max = range.get(member.id.max());
+        if (min == null) {
+            return 0;
+        }
+
+        long count = 0;
+        for (long from = min; from <= max; from += chunkSize) {
+            Predicate where = member.id.between(from, Math.min(from + chunkSize - 1, max)).and(condition);
+            count += tx.execute(status -> chunk.apply(where));
+        }
+        return count;
+    }
+
+    /**
+     * @return 회원 id -> 이름, 벌크 쿼리가 끝날 때까지 다른 트랜잭션이 이름을 바꾸지 못하게 lock 을 건다.
+     */
+    private Map<Long, String> usernames(Predicate condition) {
+        Map<Long, String> usernames = new HashMap<>();
+        for (Tuple t : queryFactory
+                .select(member.id, member.username)
+                .from(member)
+                .where(condition)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch()) {
+            usernames.put(t.get(member.id), t.get(member.username));
+        }
+        return usernames;
+    }
+
+    private Map<Long, String> usernames(Collection<Long> memberIds) {
+        List<Long> ids = new ArrayList<>(memberIds);
+        Map<Long, String> usernames = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += IN_LIST_SIZE) {
+            usernames.putAll(usernames(member.id.in(ids.subList(i, Math.min(i + IN_LIST_SIZE, ids.size())))));
+        }
+        return usernames;
+    }
+
+    /**
+     * @param movedTo 회원이 새로 들어가는 팀, 통계를 다시 계산한다.
+     */
+    private long execute(Predicate condition, Function<Predicate, Long> statement, boolean delete, Set<Long> movedTo) {
+        // 버퍼에 남은 나이(절대값)가 벌크 쿼리 뒤에 반영되면 addAge 같은 변경을 덮어쓴다.
+        memberWriteBuffer.flush();
+        em.flush();
+        // 벌크 쿼리가 실행되면 조건이 바뀔 수 있기 때문에(ex. age > 30 인 회원의 나이 변경) 영향받을 회원, 팀을 먼저 찾는다.
+        List<Member> affected = findManaged(condition);
+        Set<Long> teamIds = new HashSet<>(queryFactory
+                .select(member.team.id).distinct()
+                .from(member)
+                .where(condition, member.team.isNotNull())
+                .fetch());
+        teamIds.addAll(movedTo);
+
+        long count = statement.apply(condition);
+        synchronize(affected, delete);
+        teamStatsService.rebuild(teamIds);
+        return count;
+    }
+
+    /**
+     * 영속성 컨텍스트에 올라와 있는 회원 중 조건에 맞는 회원
+     */
+    private List<Member> findManaged(Predicate condition) {
+        List<Member> managed = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                managed.add((Member) entry.getKey());
+            }
+        }
+        if (managed.isEmpty()) {
+            return managed;
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < managed.size(); i += IN_LIST_SIZE) {
+            List<Long> chunk = managed.subList(i, Math.min(i + IN_LIST_SIZE, managed.size()))
+                    .stream().map(Member::getId).toList();
+            ids.addAll(queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(member.id.in(chunk), condition)
+                    .fetch());
+        }
+        managed.removeIf(m -> !ids.contains(m.getId()));
+        return managed;
+    }
+
+    private void synchronize(List<Member> affected, boolean delete) {
+        Set<Team> teams = new LinkedHashSet<>();
+        for (Member m : affected) {
+            Team before = m.getTeam();
+            if (before != null) {
+                teams.add(before);
+            }
+            if (delete) {
+                em.detach(m);
+            } else {
+                em.refresh(m);
+                if (m.getTeam() != null) {
+                    teams.add(m.getTeam());
+                }
+            }
+        }
+        refreshMembers(teams);
+    }
+
+    /**
+     * members 컬렉션이 초기화된 팀만 다시 읽는다. 초기화 전이면 나중에 조회할 때 DB 값을 읽기 때문에 그대로 둔다.
+     */
+    private void refreshMembers(Collection<Team> teams) {
+        for (Team t : teams) {
+            if (Hibernate.isInitialized(t) && em.contains(t) && Hibernate.isInitialized(t.getMembers())) {
+                em.refresh(t);
+            }
+        }
+    }
+
+    /**
+     * set() 으로 지정한 컬럼을 기억한다. JPAUpdateClause 는 지정한 컬럼을 돌려주지 않는다.
+     */
+    private static class AssignmentTrackingClause extends JPAUpdateClause {
+
+        private final Set<Path<?>> assigned = new HashSet<>();
+
+        AssignmentTrackingClause(EntityManager em) {
+            super(em, member);
+        }
+
+        boolean assigns(Path<?> path) {
+            return assigned.contains(path);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, T value) {
+            assigned.add(path);
+            return super.set(path, value);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+            assigned.add(path);
+            return super.set(path, expression);
+        }
+
+        @Override
+        public <T> JPAUpdateClause setNull(Path<T> path) {
+            assigned.add(path);
+            return super.setNull(path);
+        }
+
+        @Override
+        public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+            assigned.addAll(paths);
+            return super.set(paths, values);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.columnar.ColumnarResult;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 전체 내보내기
+ *
+ * fetch() 는 결과 전체를 List 로 만들기 때문에 천만 건이면 힙이 부족하다.
+ * stream() 은 forward-only 커서(ScrollableResults)로 한 건씩 읽기 때문에 메모리 사용량이 결과 건수와 무관하다.
+ * 엔티티가 아닌 DTO 로 조회해서 영속성 컨텍스트에 쌓이지 않게 하고,
+ * 호출한 쪽 트랜잭션에서 올라온 엔티티가 있을 수 있으니 N 건마다 영속성 컨텍스트도 비워준다.
+ *
+ * COLUMNAR 는 columnar-chunk-size 건씩 열 단위 배열(ColumnarResult)에 모아서 배열째로 쓰고, 같은 배열을 다시 채운다.
+ * 메모리 사용량은 chunk 크기만큼으로 고정되고 row 마다 객체를 만들지 않으며, 팀 이름은 chunk 마다 팀 수만큼만 저장한다.
+ * 분석용 클라이언트는 chunk(헤더 + 열)를 스트림이 끝날 때까지 반복해서 읽는다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+
+    @Value("${querydsl.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${querydsl.export.clear-interval:10000}")
+    private int clearInterval;
+
+    @Value("${querydsl.export.columnar-chunk-size:10000}")
+    private int columnarChunkSize;
+
+    /**
+     * @return 내보낸 회원 수
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, ExportFormat format) throws IOException {
+        if (format == ExportFormat.COLUMNAR) {
+            return exportColumnar(out);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write("memberId,username,age,teamName\n");
+        }
+
+        long count = 0;
+        try (Stream<MemberTeamDto> rows = queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize) // 드라이버가 한 번에 가져오는 row 수
+                .stream()) {
+            for (Iterator<MemberTeamDto> it = rows.iterator(); it.hasNext(); ) {
+                write(writer, format, it.next());
+                if (++count % clearInterval == 0) {
+                    writer.flush();
+                    em.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // 클라이언트가 연결을 끊은 경우 등
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long exportColumnar(OutputStream out) throws IOException {
+        try {
+            return ColumnarResult.fetch(em, queryFactory
+                    .select(member.id, member.username, member.age, team.name)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .orderBy(member.id.asc()), columnarChunkSize, chunk -> {
+                try {
+                    chunk.writeTo(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                em.clear();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // 클라이언트가 연결을 끊은 경우 등
+        }
+    }
+
+    private void write(Writer writer, ExportFormat format, MemberTeamDto row) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(row));
+            } else {
+                writer.write(row.getMemberId() + "," + csv(row.getUsername()) + "," + row.getAge() + "," + csv(row.getTeamName()));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
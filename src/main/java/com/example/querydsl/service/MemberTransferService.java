@@ -0,0 +1,109 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.concurrency.OptimisticRetryExecutor;
+import com.example.querydsl.concurrency.TeamLocks;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Objects;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 팀 이동, 여러 요청이 동시에 같은 회원을 옮겨도 이동이 사라지지(lost update) 않는다.
+ * 이동이 사라지면 나간 팀 통계(TeamStats)에서 같은 회원을 두 번 빼는 식으로 회원 수가 어긋난다.
+ *
+ * 1. moveTeam (낙관적 락): 회원 버전으로 같은 회원의 동시 이동을 막는다. 충돌하면 OptimisticRetryExecutor 가 새 트랜잭션으로 다시 실행한다.
+ *    - 회원이 몰리는 팀은 커밋할 때 팀 통계 row(select ... for update)에서 트랜잭션끼리 기다린다.
+ *      TeamLocks 로 서버 안에서 먼저 줄을 세워서 커넥션을 잡은 채로 DB 에서 기다리지 않게 한다.
+ * 2. moveTeamPessimistic (비관적 락, 비교용): 회원과 두 팀 row 를 select ... for update 로 잠근다.
+ *    - 커밋할 때까지 row lock 을 잡고 있어서 같은 팀으로의 이동은 DB 에서 한 줄로 선다.
+ *
+ * 참고: moveTeam 은 트랜잭션 밖에서 호출해야 한다. (다시 시도할 때 새 트랜잭션이 필요하다)
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberTransferService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final TeamLocks teamLocks;
+
+    /**
+     * @return 팀을 옮겼으면 true, 이미 그 팀이면 false
+     * @throws org.springframework.dao.OptimisticLockingFailureException max-attempts 번 모두 충돌한 경우
+     */
+    public boolean moveTeam(Long memberId, Long teamId) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return optimisticRetryExecutor.execute(() -> {
+            // 잠글 팀을 정하려고 먼저 읽는다. 그사이 다른 요청이 옮겼으면 잠금은 어긋나지만 회원 버전으로 충돌을 알 수 있다.
+            Long fromTeamId = tx.execute(status -> queryFactory
+                    .select(member.team.id)
+                    .from(member)
+                    .where(member.id.eq(memberId))
+                    .fetchOne());
+            return teamLocks.withTeams(fromTeamId, teamId, () -> tx.execute(status -> transfer(memberId, teamId)));
+        });
+    }
+
+    /**
+     * @return 팀을 옮겼으면 true, 이미 그 팀이면 false
+     */
+    @Transactional
+    public boolean moveTeamPessimistic(Long memberId, Long teamId) {
+        Member m = findMember(memberId, LockModeType.PESSIMISTIC_WRITE);
+        Long fromTeamId = m.getTeam() == null ? null : m.getTeam().getId();
+        if (Objects.equals(fromTeamId, teamId)) {
+            return false;
+        }
+        // 회원 → 팀 id 순서로 잠가서 트랜잭션끼리 서로 기다리지(데드락) 않는다.
+        Team to;
+        if (fromTeamId != null && fromTeamId < teamId) {
+            findTeam(fromTeamId, LockModeType.PESSIMISTIC_WRITE);
+            to = findTeam(teamId, LockModeType.PESSIMISTIC_WRITE);
+        } else {
+            to = findTeam(teamId, LockModeType.PESSIMISTIC_WRITE);
+            if (fromTeamId != null) {
+                findTeam(fromTeamId, LockModeType.PESSIMISTIC_WRITE);
+            }
+        }
+        m.changeTeam(to);
+        return true;
+    }
+
+    private boolean transfer(Long memberId, Long teamId) {
+        Member m = findMember(memberId, LockModeType.NONE);
+        Team from = m.getTeam();
+        if (from != null && Objects.equals(from.getId(), teamId)) {
+            return false;
+        }
+        m.changeTeam(findTeam(teamId, LockModeType.NONE));
+        return true;
+    }
+
+    private Member findMember(Long memberId, LockModeType lockMode) {
+        Member m = em.find(Member.class, memberId, lockMode);
+        if (m == null) {
+            throw new IllegalArgumentException("회원이 없습니다. id=" + memberId);
+        }
+        return m;
+    }
+
+    private Team findTeam(Long teamId, LockModeType lockMode) {
+        Team t = em.find(Team.class, teamId, lockMode);
+        if (t == null) {
+            throw new IllegalArgumentException("팀이 없습니다. id=" + teamId);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.querydsl.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * fast 프로필 (application-fast.yml)
+ * 빈은 처음 사용할 때 만들지만(lazy-initialization) 스키마 마이그레이션과 EntityManagerFactory 는 뜰 때 만든다.
+ * 첫 요청이 Hibernate 초기화(엔티티 메타데이터, 스키마 검증)를 기다리지 않게 하고, 스키마가 다르면 뜨는 시점에 실패하게 한다.
+ */
+@Configuration
+@Profile("fast")
+public class FastStartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerPersistenceBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class, EntityManagerFactory.class);
+    }
+
+    /**
+     * Hibernate 초기화를 별도 스레드에서 실행한다. 그동안 톰캣 등 나머지 빈을 만들고, EntityManager 를 처음 사용할 때 끝날 때까지 기다린다.
+     * asyncQueryThreads 가 있어서 스프링 부트의 applicationTaskExecutor 가 등록되지 않기 때문에 직접 지정한다. (한 번만 쓰는 스레드)
+     */
+    @Bean
+    EntityManagerFactoryBuilderCustomizer backgroundJpaBootstrap() {
+        return builder -> builder.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+    }
+}
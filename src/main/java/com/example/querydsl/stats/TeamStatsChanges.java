@@ -0,0 +1,213 @@
+package com.example.querydsl.stats;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 한 트랜잭션 동안 팀별 통계 증감분을 모았다가 커밋 직전(마지막 flush 이후)에 팀마다 한 번씩 반영한다.
+ * 한 팀에 회원 100만 명을 저장해도 통계는 select for update, update 한 번씩만 실행된다.
+ *
+ * flush 도중에 호출되기 때문에 JPA 가 아닌 JDBC 로 반영한다. (JPQL 을 실행하면 다시 flush 가 일어난다)
+ */
+class TeamStatsChanges implements BeforeTransactionCompletionProcess {
+
+    private static final String SELECT_FOR_UPDATE =
+            "select member_count, age_sum, min_age, max_age, min_max_stale from team_stats where team_id = ? for update";
+    private static final String UPDATE =
+            "update team_stats set member_count = ?, age_sum = ?, min_age = ?, max_age = ?, min_max_stale = ? where team_id = ?";
+    private static final String INSERT_EMPTY =
+            "insert into team_stats (team_id, member_count, age_sum, min_age, max_age, min_max_stale) values (?, 0, 0, null, null, false)";
+    private static final String DELETE = "delete from team_stats where team_id = ?";
+    private static final String DELETE_ALL = "delete from team_stats";
+    private static final String REBUILD =
+            "insert into team_stats (team_id, member_count, age_sum, min_age, max_age, min_max_stale)" +
+            " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age), false" +
+            " from team t left join member m on m.team_id = t.team_id";
+
+    private final Map<Long, Delta> deltas = new TreeMap<>(); // 팀 id 순서로 lock 을 잡아서 트랜잭션끼리 데드락이 생기지 않게 한다.
+    private final Set<Long> createdTeams = new HashSet<>();
+    private final Set<Long> deletedTeams = new HashSet<>();
+    private boolean rebuildAll;
+
+    void add(Long teamId, int age) {
+        if (teamId != null) {
+            deltas.computeIfAbsent(teamId, id -> new Delta()).add(age);
+        }
+    }
+
+    void remove(Long teamId, int age) {
+        if (teamId != null) {
+            deltas.computeIfAbsent(teamId, id -> new Delta()).remove(age);
+        }
+    }
+
+    /**
+     * 새 팀의 빈 통계를 만든다. 커밋되기 전에는 다른 트랜잭션이 팀에 회원을 넣을 수 없기 때문에
+     * 첫 회원을 넣는 트랜잭션끼리 통계를 동시에 만들지 않는다.
+     */
+    void teamCreated(Long teamId) {
+        createdTeams.add(teamId);
+    }
+
+    void teamDeleted(Long teamId) {
+        deletedTeams.add(teamId);
+    }
+
+    /**
+     * 이전 값을 알 수 없는 변경이 있으면 증감분 대신 전체를 다시 계산한다.
+     */
+    void rebuildAll() {
+        rebuildAll = true;
+    }
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+        session.doWork(this::apply);
+    }
+
+    /**
+     * 모은 증감분을 connection 의 트랜잭션에 반영한다.
+     */
+    void apply(Connection connection) throws SQLException {
+        if (rebuildAll) {
+            rebuild(connection, null);
+            return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_EMPTY)) {
+            for (Long teamId : createdTeams) {
+                if (!deletedTeams.contains(teamId)) {
+                    insert.setLong(1, teamId);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            if (!deletedTeams.contains(entry.getKey())) {
+                apply(connection, entry.getKey(), entry.getValue());
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement(DELETE)) {
+            for (Long teamId : deletedTeams) {
+                delete.setLong(1, teamId);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+    }
+
+    private void apply(Connection connection, Long teamId, Delta delta) throws SQLException {
+        long count;
+        long sum;
+        Integer min;
+        Integer max;
+        boolean stale;
+        try (PreparedStatement select = connection.prepareStatement(SELECT_FOR_UPDATE)) {
+            select.setLong(1, teamId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    // 아직 통계가 없는 팀(기능 도입 전에 만들어진 팀, JDBC 로 저장한 팀)은 회원 테이블에서 계산한다.
+                    rebuild(connection, Set.of(teamId));
+                    return;
+                }
+                count = rs.getLong(1) + delta.count;
+                sum = rs.getLong(2) + delta.sum;
+                min = getInteger(rs, 3);
+                max = getInteger(rs, 4);
+                stale = rs.getBoolean(5)
+                        || delta.removedMin != null && (min == null || delta.removedMin <= min)
+                        || delta.removedMax != null && (max == null || delta.removedMax >= max);
+            }
+        }
+
+        if (count == 0) {
+            min = null;
+            max = null;
+            stale = false;
+        } else if (!stale) {
+            min = delta.addedMin == null || min != null && min <= delta.addedMin ? min : delta.addedMin;
+            max = delta.addedMax == null || max != null && max >= delta.addedMax ? max : delta.addedMax;
+        }
+
+        try (PreparedStatement update = connection.prepareStatement(UPDATE)) {
+            update.setLong(1, count);
+            update.setLong(2, sum);
+            setInteger(update, 3, min);
+            setInteger(update, 4, max);
+            update.setBoolean(5, stale);
+            update.setLong(6, teamId);
+            update.executeUpdate();
+        }
+    }
+
+    /**
+     * @param teamIds null 이면 모든 팀
+     */
+    static void rebuild(Connection connection, Collection<Long> teamIds) throws SQLException {
+        if (teamIds == null) {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_ALL);
+                 PreparedStatement insert = connection.prepareStatement(REBUILD + " group by t.team_id")) {
+                delete.executeUpdate();
+                insert.executeUpdate();
+            }
+            return;
+        }
+        try (PreparedStatement delete = connection.prepareStatement(DELETE);
+             PreparedStatement insert = connection.prepareStatement(REBUILD + " where t.team_id = ? group by t.team_id")) {
+            for (Long teamId : teamIds) {
+                delete.setLong(1, teamId);
+                delete.executeUpdate();
+                insert.setLong(1, teamId);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private static Integer getInteger(ResultSet rs, int index) throws SQLException {
+        int value = rs.getInt(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static class Delta {
+
+        long count;
+        long sum;
+        Integer addedMin;
+        Integer addedMax;
+        Integer removedMin;
+        Integer removedMax;
+
+        void add(int age) {
+            count++;
+            sum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            sum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+}
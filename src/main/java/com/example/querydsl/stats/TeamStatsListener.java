@@ -0,0 +1,104 @@
+package com.example.querydsl.stats;
+
+import com.example.querydsl.config.HibernateEventListeners;
+import com.example.querydsl.config.HibernateEventListeners.PerSession;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.Objects;
+
+/**
+ * 회원 저장, 나이 변경, 팀 변경, 삭제를 TeamStats 증감분으로 기록한다. 팀을 저장하면 빈 통계를 만들고, 삭제하면 통계도 지운다.
+ *
+ * JPA 엔티티 리스너(@PostUpdate)는 변경 전 값을 알 수 없어서 Hibernate 이벤트 리스너를 사용한다.
+ * 참고: 벌크 update/delete, JDBC insert 는 이벤트가 발생하지 않기 때문에 TeamStatsService.rebuild() 를 호출해야 한다.
+ */
+public class TeamStatsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // 세션(트랜잭션)별로 모은 증감분, 트랜잭션이 끝나면 지운다.
+    private final PerSession<TeamStatsChanges> pending = HibernateEventListeners.perSession(TeamStatsChanges::new);
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            changes(event.getSession()).add(teamId(member.getTeam()), member.getAge());
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).teamCreated((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        TeamStatsChanges changes = changes(event.getSession());
+        Object[] oldState = event.getOldState();
+        if (oldState == null) { // 준영속 엔티티를 merge 가 아닌 update() 로 저장한 경우
+            changes.rebuildAll();
+            return;
+        }
+
+        String[] properties = event.getPersister().getPropertyNames();
+        int age = indexOf(properties, "age");
+        int team = indexOf(properties, "team");
+        Object[] state = event.getState();
+        Long oldTeamId = teamId(oldState[team]);
+        Long newTeamId = teamId(state[team]);
+        if (Objects.equals(oldTeamId, newTeamId) && oldState[age].equals(state[age])) {
+            return;
+        }
+        changes.remove(oldTeamId, (Integer) oldState[age]);
+        changes.add(newTeamId, (Integer) state[age]);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            String[] properties = event.getPersister().getPropertyNames();
+            Object[] state = event.getDeletedState();
+            changes(event.getSession()).remove(
+                    teamId(state[indexOf(properties, "team")]), (Integer) state[indexOf(properties, "age")]);
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).teamDeleted((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private TeamStatsChanges changes(EventSource session) {
+        return pending.get(session);
+    }
+
+    private Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) { // 프록시를 초기화하지 않고 id 만 꺼낸다.
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private int indexOf(String[] properties, String name) {
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Member 에 " + name + " 속성이 없습니다.");
+    }
+}
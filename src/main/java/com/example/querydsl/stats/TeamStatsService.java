@@ -0,0 +1,189 @@
+package com.example.querydsl.stats;
+
+import com.example.querydsl.dto.TeamAgeStatsDto;
+import com.example.querydsl.entity.TeamStats;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamStats.teamStats;
+import static com.example.querydsl.query.MemberExpressions.AGE_SUM;
+
+/**
+ * 팀별 회원 나이 통계 (TeamStats 요약 테이블)
+ *
+ * group() 처럼 회원 전체를 group by 하지 않고 팀 수만큼만 읽는다.
+ * 최솟값/최댓값이 무효화된 팀(minMaxStale)은 조회할 때 해당 팀 회원만 다시 계산한다.
+ * 조회는 읽기 전용 트랜잭션(replica)이고, 다시 계산한 값은 별도 트랜잭션(REQUIRES_NEW)으로 primary 에 저장한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatsService {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 회원이 있는 팀만 팀 이름 순으로 반환한다.
+     */
+    @Transactional(readOnly = true)
+    public List<TeamAgeStatsDto> findAgeStats() {
+        List<Tuple> rows = queryFactory
+                .select(team.name, teamStats.teamId, teamStats.memberCount, teamStats.ageSum,
+                        teamStats.minAge, teamStats.maxAge, teamStats.minMaxStale)
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .where(teamStats.memberCount.gt(0))
+                .orderBy(team.name.asc())
+                .fetch();
+        List<Long> stale = rows.stream()
+                .filter(t -> t.get(teamStats.minMaxStale))
+                .map(t -> t.get(teamStats.teamId))
+                .toList();
+        Map<Long, TeamStats> refreshed = stale.isEmpty() ? Map.of() : refreshMinMax(stale);
+
+        return rows.stream()
+                .map(t -> {
+                    TeamStats minMax = refreshed.get(t.get(teamStats.teamId));
+                    return new TeamAgeStatsDto(
+                            t.get(team.name),
+                            t.get(teamStats.memberCount),
+                            t.get(teamStats.ageSum),
+                            (double) t.get(teamStats.ageSum) / t.get(teamStats.memberCount),
+                            minMax == null ? t.get(teamStats.maxAge) : minMax.getMaxAge(),
+                            minMax == null ? t.get(teamStats.minAge) : minMax.getMinAge());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 요약 테이블과 회원 테이블에서 다시 계산한 값을 비교한다.
+     *
+     * @return 값이 다른 팀 id, 팀이 삭제되었는데 남아있는 통계도 포함한다.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findInconsistentTeams() {
+        Map<Long, TeamStats> stats = queryFactory.selectFrom(teamStats).fetch().stream()
+                .collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+        List<Tuple> actual = queryFactory
+                .select(team.id, member.count(), AGE_SUM, member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id)
+                .fetch();
+
+        List<Long> inconsistent = new ArrayList<>();
+        for (Tuple t : actual) {
+            Long teamId = t.get(team.id);
+            long count = t.get(member.count());
+            long sum = t.get(AGE_SUM) == null ? 0 : t.get(AGE_SUM);
+            TeamStats s = stats.remove(teamId);
+            boolean consistent = s == null
+                    ? count == 0 // 회원이 없는 팀은 통계가 없어도 결과가 같다.
+                    : s.getMemberCount() == count && s.getAgeSum() == sum
+                    && (s.isMinMaxStale() || Objects.equals(s.getMinAge(), t.get(member.age.min()))
+                    && Objects.equals(s.getMaxAge(), t.get(member.age.max())));
+            if (!consistent) {
+                log.warn("팀 통계 불일치 teamId={}, 요약={}, 실제 count={}, sum={}, min={}, max={}",
+                        teamId, s, count, sum, t.get(member.age.min()), t.get(member.age.max()));
+                inconsistent.add(teamId);
+            }
+        }
+        stats.keySet().forEach(teamId -> log.warn("삭제된 팀의 통계가 남아있습니다. teamId={}", teamId));
+        inconsistent.addAll(stats.keySet());
+        return inconsistent;
+    }
+
+    /**
+     * 모든 팀의 통계를 회원 테이블에서 다시 계산한다.
+     * 벌크 update/delete, JDBC insert 처럼 엔티티 이벤트 없이 회원을 바꾼 뒤에 호출한다.
+     */
+    @Transactional
+    public void rebuild() {
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> TeamStatsChanges.rebuild(connection, null));
+    }
+
+    @Transactional
+    public void rebuild(Collection<Long> teamIds) {
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> TeamStatsChanges.rebuild(connection, teamIds));
+    }
+
+    /**
+     * JDBC 로 회원 나이만 바꾼 뒤에 호출한다. rebuild 처럼 팀 회원을 다시 읽지 않고 바뀐 만큼만 반영한다.
+     * 최솟값/최댓값은 빠진 나이가 경계값이면 무효화(minMaxStale)하고 조회할 때 다시 계산한다.
+     */
+    @Transactional
+    public void applyAgeChanges(Collection<AgeChange> changes) {
+        TeamStatsChanges deltas = new TeamStatsChanges();
+        for (AgeChange change : changes) {
+            deltas.remove(change.teamId(), change.oldAge());
+            deltas.add(change.teamId(), change.newAge());
+        }
+        em.unwrap(Session.class).doWork(deltas::apply);
+    }
+
+    /**
+     * 팀의 최솟값/최댓값을 다시 계산해서 저장한다.
+     * 읽기 전용 트랜잭션에서는 저장할 수 없기 때문에 별도 트랜잭션으로 커밋한다. 쓰기 트랜잭션 안이면 그 트랜잭션에 참여한다.
+     *
+     * @return 팀 id 별로 다시 계산한 통계 (조회한 트랜잭션에는 아직 보이지 않을 수 있다.)
+     */
+    private Map<Long, TeamStats> refreshMinMax(List<Long> teamIds) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+        return tx.execute(status -> {
+            List<TeamStats> stale = queryFactory
+                    .selectFrom(teamStats)
+                    .where(teamStats.teamId.in(teamIds))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE) // 다시 계산하는 동안 다른 트랜잭션이 회원을 추가하지 못하게 한다.
+                    .fetch();
+
+            Map<Long, Tuple> minMax = queryFactory
+                    .select(member.team.id, member.age.min(), member.age.max())
+                    .from(member)
+                    .where(member.team.id.in(teamIds))
+                    .groupBy(member.team.id)
+                    .fetch().stream()
+                    .collect(Collectors.toMap(t -> t.get(member.team.id), Function.identity()));
+            for (TeamStats s : stale) {
+                if (s.isMinMaxStale()) { // 그 사이 다른 트랜잭션이 이미 다시 계산했으면 그대로 둔다.
+                    Tuple t = minMax.get(s.getTeamId());
+                    s.changeMinMax(t == null ? null : t.get(member.age.min()), t == null ? null : t.get(member.age.max()));
+                }
+            }
+            return stale.stream().collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+        });
+    }
+
+    /**
+     * teamId 팀 회원의 나이가 oldAge 에서 newAge 로 바뀌었다.
+     */
+    public record AgeChange(Long teamId, int oldAge, int newAge) {
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.querydsl.writebehind;
+
+import com.example.querydsl.cache.JdbcCacheInvalidation;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.stats.TeamStatsService;
+import com.example.querydsl.stats.TeamStatsService.AgeChange;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 나이 변경을 메모리에 모았다가(write-behind) 한 트랜잭션에서 JDBC batch update 로 반영한다.
+ *
+ * 변경마다 @Transactional 로 회원을 조회해서 수정하면 변경마다 select, update, 커밋이 실행된다.
+ * 여기서는 회원 id → 마지막 나이만 들고 있다가 flush-interval 마다 (flush-size 만큼 모이면 바로) 한 번에 반영한다.
+ * 같은 회원을 여러 번 바꾸면 마지막 값으로 한 번만 update 한다.
+ *
+ * - 반영: 회원의 이전 나이를 select for update 로 읽고 update member set age = ?, version = version + 1 where member_id = ? 를 JDBC batch 로 실행한다.
+ *   팀 통계(TeamStats)는 다시 계산하지 않고 이전 나이와의 차이만 반영한다.
+ *   한 트랜잭션이기 때문에 중간에 실패하면 아무것도 반영되지 않고, 변경은 버퍼에 남아 다음 flush 에서 다시 반영한다.
+ *   커밋한 뒤 2차 캐시에서 그 회원들을 지우고 회원 테이블을 조회한 쿼리 캐시를 무효화한다. (JDBC 라서 Hibernate 가 알지 못한다)
+ * - 백프레셔: 반영을 기다리는 회원이 max-size 이면 새 회원의 변경은 자리가 날 때까지 max-wait 만큼 기다린다. 넘으면 RejectedExecutionException
+ * - 종료: close() 에서 남은 변경을 모두 반영한다.
+ * - 조회: MemberQueryRepository 는 반영 전 값이 보이도록 read() 로 DTO 에 덮어쓰고, 나이로 검색하거나 엔티티를 조회할 때는 먼저 반영한다.
+ *
+ * 참고: 마지막 값으로 덮어쓰기 때문에 버전을 확인하지 않는다. 버전은 올리기 때문에 그사이 같은 회원을 엔티티로 수정한 트랜잭션은 커밋할 때 OptimisticLockException 이 발생한다.
+ * 참고: 커밋 전에는 메모리에만 있기 때문에 프로세스가 비정상 종료(kill -9, 장비 장애)되면 반영 전 변경은 사라진다. 유실되면 안 되는 변경은 엔티티로 수정한다.
+ * 참고: 나이만 다룬다. 이름(username)은 검색 색인, 자연 키 캐시가 엔티티 이벤트로 갱신되기 때문에 엔티티로 수정한다.
+ */
+@Slf4j
+public class MemberWriteBuffer {
+
+    private static final String UPDATE_AGE_SQL = "update member set age = ?, version = version + 1 where member_id = ?";
+    private static final int BATCH_SIZE = 1000;
+    private static final int IN_LIST_SIZE = 1000;
+
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TeamStatsService teamStatsService;
+    private final WriteBehindProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private Map<Long, Integer> pending = new HashMap<>(); // 반영을 기다리는 변경
+    private Map<Long, Integer> flushing = Map.of(); // 반영 중(커밋 전)인 변경
+    private boolean closed;
+
+    // flush 는 한 번에 하나씩 실행한다.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // 조회(read)하는 동안 커밋하지 않는다. 조회 결과(DB)가 커밋 전이면 flushing 에 값이 남아 있다.
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean lastFlushFailed;
+    private ScheduledThreadPoolExecutor scheduler;
+
+    public MemberWriteBuffer(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate, EntityManager em,
+                             JPAQueryFactory queryFactory, TeamStatsService teamStatsService, WriteBehindProperties properties) {
+        this.transactionManager = transactionManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.teamStatsService = teamStatsService;
+        this.properties = properties;
+    }
+
+    public void start() {
+        scheduler = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("member-write-behind-"));
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        long interval = properties.getFlushInterval().toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushInBackground, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 새 변경을 받지 않고 남은 변경을 모두 반영한다.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (scheduler != null) {
+            scheduler.shutdown(); // 실행 중인 flush 는 flushLock 으로 기다린다.
+        }
+        try {
+            int count = flush();
+            log.info("회원 write-behind 종료, 남은 변경 {}건 반영", count);
+        } catch (RuntimeException e) {
+            log.error("회원 write-behind 종료 중 반영 실패, 회원 {}명의 변경이 유실됩니다.", pendingCount(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * 바로 반환한다. 반영 전에 같은 회원을 다시 바꾸면 마지막 값만 반영한다.
+     *
+     * @throws RejectedExecutionException 버퍼가 가득 찬 상태로 max-wait 가 지난 경우
+     * @throws IllegalStateException 종료된 경우
+     */
+    public void updateAge(Long memberId, int age) {
+        Objects.requireNonNull(memberId, "memberId");
+        boolean flushNow;
+        lock.lock();
+        try {
+            long nanos = properties.getMaxWait().toNanos();
+            while (!closed && !pending.containsKey(memberId) && pending.size() >= properties.getMaxSize()) {
+                requestFlush();
+                if (nanos <= 0) {
+                    throw new RejectedExecutionException("회원 write-behind 버퍼가 가득 찼습니다. (" + pending.size() + "명)");
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (closed) {
+                throw new IllegalStateException("종료된 회원 write-behind 버퍼입니다.");
+            }
+            pending.put(memberId, age);
+            flushNow = pending.size() >= properties.getFlushSize();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("회원 write-behind 버퍼를 기다리는 중 인터럽트", e);
+        } finally {
+            lock.unlock();
+        }
+        if (flushNow) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * @return 반영 전 나이, 없으면 null
+     */
+    public Integer getAge(Long memberId) {
+        lock.lock();
+        try {
+            Integer age = pending.get(memberId);
+            return age != null ? age : flushing.get(memberId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 반영을 기다리는 회원 수 (반영 중인 회원 제외)
+     */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 모인 변경을 지금 반영한다. 백그라운드 flush 가 실행 중이면 끝날 때까지 기다렸다가 그 뒤에 모인 변경을 반영한다.
+     * 호출한 쪽 트랜잭션과 상관없이 새 트랜잭션으로 반영한다. (호출한 쪽 트랜잭션이 같은 회원을 수정했다면 row lock 을 기다리다 실패한다)
+     *
+     * @return 반영한 회원 수
+     * @throws org.springframework.dao.DataAccessException 반영에 실패한 경우, 변경은 버퍼에 남는다.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Integer> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                batch = pending;
+                flushing = batch;
+                pending = new HashMap<>();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            boolean committed = false;
+            try {
+                write(batch);
+                committed = true;
+            } finally {
+                if (!committed) {
+                    restore(batch);
+                }
+            }
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Map<Long, Integer> batch) {
+        TransactionStatus status = transactionManager.getTransaction(
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        try {
+            JdbcCacheInvalidation.afterCommit(em, Member.class, batch.keySet());
+            List<AgeChange> changes = ageChanges(batch);
+            jdbcTemplate.batchUpdate(UPDATE_AGE_SQL, batch.entrySet(), BATCH_SIZE, (ps, e) -> {
+                ps.setInt(1, e.getValue());
+                ps.setLong(2, e.getKey());
+            });
+            teamStatsService.applyAgeChanges(changes);
+        } catch (RuntimeException | Error e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+
+        commitLock.writeLock().lock();
+        try {
+            transactionManager.commit(status);
+            lock.lock();
+            try {
+                flushing = Map.of();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 반영하지 못한 변경을 버퍼로 되돌린다. 그사이 같은 회원에 들어온 변경이 더 최신이다.
+     */
+    private void restore(Map<Long, Integer> batch) {
+        lock.lock();
+        try {
+            batch.forEach(pending::putIfAbsent);
+            flushing = Map.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 반영할 회원의 이전 나이를 읽는다. 커밋할 때까지 다른 트랜잭션이 나이를 바꾸지 못하게 회원 id 순서로 lock 을 건다.
+     */
+    private List<AgeChange> ageChanges(Map<Long, Integer> batch) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(batch.keySet()));
+        List<AgeChange> changes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_LIST_SIZE) {
+            for (Tuple t : queryFactory
+                    .select(member.id, member.team.id, member.age)
+                    .from(member)
+                    .where(member.id.in(ids.subList(i, Math.min(i + IN_LIST_SIZE, ids.size()))))
+                    .orderBy(member.id.asc())
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetch()) {
+                Long teamId = t.get(member.team.id);
+                int oldAge = t.get(member.age);
+                int newAge = batch.get(t.get(member.id));
+                if (teamId != null && oldAge != newAge) {
+                    changes.add(new AgeChange(teamId, oldAge, newAge));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private void requestFlush() {
+        if (scheduler == null || !flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // 실패하고 있으면(DB 장애 등) 바로 다시 시도하지 않고 flush-interval 만큼 기다린다.
+            scheduler.schedule(this::flushInBackground,
+                    lastFlushFailed ? properties.getFlushInterval().toNanos() : 0, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false); // 종료 중, 남은 변경은 close() 에서 반영한다.
+        }
+    }
+
+    private void flushInBackground() {
+        flushRequested.set(false);
+        try {
+            flush();
+            lastFlushFailed = false;
+        } catch (RuntimeException e) {
+            lastFlushFailed = true;
+            log.warn("회원 write-behind 반영 실패, 다음 flush 에서 다시 반영합니다. 대기 {}명", pendingCount(), e);
+        }
+    }
+
+    private boolean isEmpty() {
+        lock.lock();
+        try {
+            return pending.isEmpty() && flushing.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * query 결과에 반영 전 나이를 덮어쓴다.
+     * 조회하는 동안에는 커밋하지 않기 때문에 DB 에서 커밋 전 값을 읽었다면 버퍼에 값이 남아 있다.
+     *
+     * 참고: 조건(where)은 DB 값으로 계산한다. 나이로 검색하는 경우는 먼저 flushIfReferenced() 를 호출한다.
+     */
+    public List<MemberTeamDto> read(Supplier<List<MemberTeamDto>> query) {
+        if (isEmpty()) {
+            return query.get();
+        }
+        // 조회 중에 자동 flush 되는 엔티티 update 가 커밋을 기다리는 반영 트랜잭션의 row lock 에 걸리지 않게 잠그기 전에 flush 한다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            em.flush();
+        }
+        commitLock.readLock().lock();
+        try {
+            List<MemberTeamDto> result = query.get();
+            for (MemberTeamDto dto : result) {
+                Integer age = getAge(dto.getMemberId());
+                if (age != null) {
+                    dto.setAge(age);
+                }
+            }
+            return result;
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 회원 나이가 들어 있으면 반영 전 변경을 먼저 반영한다.
+     */
+    public void flushIfReferenced(Expression<?> condition) {
+        if (condition != null && !isEmpty() && Boolean.TRUE.equals(condition.accept(ReferencesAge.INSTANCE, null))) {
+            flush();
+        }
+    }
+
+    /**
+     * 엔티티에는 값을 덮어쓰지 않는다. (수정한 것으로 보고 커밋할 때 update 한다)
+     * 반영 전 변경이 있는 회원이 있으면 반영한 뒤 DB 에서 다시 읽는다.
+     */
+    public void refreshIfBuffered(Collection<Member> members) {
+        List<Member> buffered = new ArrayList<>();
+        for (Member m : members) {
+            if (getAge(m.getId()) != null) {
+                buffered.add(m);
+            }
+        }
+        if (buffered.isEmpty()) {
+            return;
+        }
+        flush();
+        buffered.forEach(em::refresh);
+    }
+
+    /**
+     * 표현식에 Member.age 경로가 있는지 찾는다. 서브쿼리는 안을 보지 않고 있는 것으로 본다.
+     */
+    private static final class ReferencesAge implements Visitor<Boolean, Void> {
+
+        static final ReferencesAge INSTANCE = new ReferencesAge();
+
+        @Override
+        public Boolean visit(Constant<?> expr, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(FactoryExpression<?> expr, Void context) {
+            return any(expr.getArgs());
+        }
+
+        @Override
+        public Boolean visit(Operation<?> expr, Void context) {
+            return any(expr.getArgs());
+        }
+
+        @Override
+        public Boolean visit(ParamExpression<?> expr, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Path<?> expr, Void context) {
+            Path<?> parent = expr.getMetadata().getParent();
+            return parent != null && parent.getType() == Member.class && member.age.getMetadata().getName().equals(expr.getMetadata().getName());
+        }
+
+        @Override
+        public Boolean visit(SubQueryExpression<?> expr, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(TemplateExpression<?> expr, Void context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression && Boolean.TRUE.equals(((Expression<?>) arg).accept(this, null))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean any(List<Expression<?>> args) {
+            for (Expression<?> arg : args) {
+                if (Boolean.TRUE.equals(arg.accept(this, null))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.querydsl.writebehind;
+
+import com.example.querydsl.stats.TeamStatsService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfig {
+
+    /**
+     * 종료할 때(close) 남은 변경을 모두 반영한다. EntityManagerFactory, DataSource 보다 먼저 종료된다.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    MemberWriteBuffer memberWriteBuffer(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                                        EntityManager em, JPAQueryFactory queryFactory, TeamStatsService teamStatsService,
+                                        WriteBehindProperties properties) {
+        return new MemberWriteBuffer(transactionManager, jdbcTemplate, em, queryFactory, teamStatsService, properties);
+    }
+}
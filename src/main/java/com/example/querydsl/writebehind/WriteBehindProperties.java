@@ -0,0 +1,24 @@
+package com.example.querydsl.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("querydsl.write-behind")
+public class WriteBehindProperties {
+
+    // 이 간격마다 모인 변경을 한 트랜잭션으로 반영한다.
+    private Duration flushInterval = Duration.ofMillis(100);
+
+    // 모인 회원 수가 이 값이 되면 간격을 기다리지 않고 바로 반영한다.
+    private int flushSize = 1000;
+
+    // 반영을 기다리는 회원 수가 이 값이면 새 회원의 변경은 자리가 날 때까지 기다린다. (이미 있는 회원은 값만 바꾼다)
+    private int maxSize = 10_000;
+
+    // 자리가 나기를 기다리는 최대 시간, 넘으면 RejectedExecutionException
+    private Duration maxWait = Duration.ofSeconds(1);
+}
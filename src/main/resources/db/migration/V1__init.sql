@@ -0,0 +1,42 @@
+-- fast 프로필(application-fast.yml)에서 Flyway 로 만드는 스키마, 엔티티와 같아야 한다. (ddl-auto: validate 로 확인)
+-- 엔티티를 바꾸면 이 파일을 고치지 말고 V2__... 파일을 추가한다.
+
+create sequence hibernate_sequence start with 1 increment by 1;
+create sequence member_seq start with 1 increment by 50;
+create sequence team_seq start with 1 increment by 50;
+
+create table hello (
+    id bigint not null,
+    primary key (id)
+);
+
+create table team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    primary key (member_id)
+);
+
+create table team_stats (
+    team_id bigint not null,
+    age_sum bigint not null,
+    max_age integer,
+    member_count bigint not null,
+    min_age integer,
+    min_max_stale boolean not null,
+    primary key (team_id)
+);
+
+create index idx_team_name on team (name);
+create index idx_member_username on member (username);
+create index idx_member_age on member (age);
+create index idx_member_team_id on member (team_id);
+
+alter table member add constraint fk_member_team foreign key (team_id) references team;
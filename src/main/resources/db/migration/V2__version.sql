@@ -0,0 +1,3 @@
+-- 낙관적 락(@Version), 이미 있는 회원/팀은 0 부터 시작한다.
+alter table member add column version bigint default 0 not null;
+alter table team add column version bigint default 0 not null;
@@ -0,0 +1,11 @@
+-- 보관(cold) 회원, MemberArchiver 가 member 에서 옮긴다. 팀이 삭제되어도 남도록 외래키는 걸지 않는다.
+create table member_archive (
+    member_id bigint not null,
+    age integer not null,
+    archived_at timestamp not null,
+    username varchar(255),
+    team_id bigint,
+    primary key (member_id)
+);
+
+create index idx_member_archive_team_id on member_archive (team_id);
@@ -4,6 +4,7 @@ import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.QMember;
 import com.example.querydsl.entity.QTeam;
 import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitor.MaxQueries;
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.Tuple;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -390,6 +391,7 @@ public class QuerydslBasicTest {
     EntityManagerFactory emf;
 
     @Test
+    @MaxQueries(1) // team 은 프록시로 남아있고 아직 조회하지 않았다.
     public void fetchJoinNo() throws Exception {
         em.flush();
         em.clear();
@@ -406,6 +408,7 @@ public class QuerydslBasicTest {
     // **페치 조인 적용**
     // 즉시로딩으로 Member, Team SQL 쿼리 조인으로 한번에 조회
     @Test
+    @MaxQueries(1)
     public void fetchJoinUse() throws Exception {
         em.flush();
         em.clear();
@@ -0,0 +1,115 @@
+package com.example.querydsl.aggregate;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 200만 건, 파티션 수(1, 2, 4, 8, 16)별 집계 시간
+ * 파티션 1 은 쿼리 하나로 전체를 훑는 것과 같다. 코어 수까지는 파티션이 늘수록 빨라진다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "querydsl.async.max-concurrency=16",
+        "spring.datasource.hikari.maximum-pool-size=20"})
+class PartitionedAggregatorBenchmarkTest {
+
+    static final int ROWS = 2_000_000;
+    static final int RUNS = 5;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    PartitionedAggregator partitionedAggregator;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team t = new Team("aggregateTeam");
+            em.persist(t);
+            return t.getId();
+        });
+        memberBulkInsertService.insertAllJdbc(() -> new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < ROWS;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                int n = i++;
+                return new MemberImportRow("member" + n, n % 100, teamId);
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void scalingByPartitions() {
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        for (int partitions : new int[]{1, 2, 4, 8, 16}) {
+            measure("ageSummary", partitions,
+                    () -> partitionedAggregator.aggregate(null, partitions, MemberAggregates.ageSummary()));
+            measure("ageHistogram", partitions,
+                    () -> partitionedAggregator.aggregate(null, partitions, MemberAggregates.ageHistogram(10)));
+        }
+    }
+
+    /**
+     * 한 번 실행해서 데운 뒤 중앙값을 출력한다.
+     */
+    private void measure(String name, int partitions, Supplier<?> aggregate) {
+        aggregate.get();
+        double[] millis = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            aggregate.get();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-12s partitions %2d: p50 %8.1f ms%n", name, partitions, millis[RUNS / 2]);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.querydsl.aggregate;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * 파티션은 다른 스레드의 트랜잭션에서 실행되어 커밋된 데이터만 보이기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class PartitionedAggregatorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    PartitionedAggregator partitionedAggregator;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    /**
+     * 회원 100명, 나이 0~99, 짝수 번째는 teamA, 홀수 번째는 teamB
+     */
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    /**
+     * aggregation() 과 같은 결과
+     */
+    @Test
+    public void ageSummary() {
+        Tuple single = tx.execute(status -> queryFactory
+                .select(member.count(), member.age.sum(), member.age.max(), member.age.min())
+                .from(member)
+                .fetchOne());
+
+        AgeSummary summary = partitionedAggregator.aggregate(null, 7, MemberAggregates.ageSummary());
+
+        assertThat(summary.getCount()).isEqualTo(single.get(member.count()));
+        assertThat(summary.getSum()).isEqualTo(single.get(member.age.sum()).longValue());
+        assertThat(summary.getAvg()).isEqualTo(49.5); // sum / count, DB 의 avg(int) 는 정수로 내림할 수 있다.
+        assertThat(summary.getMax()).isEqualTo(single.get(member.age.max()));
+        assertThat(summary.getMin()).isEqualTo(single.get(member.age.min()));
+    }
+
+    @Test
+    public void ageSummaryWithCondition() {
+        AgeSummary summary = partitionedAggregator.aggregate(member.age.goe(90), 4, MemberAggregates.ageSummary());
+
+        assertThat(summary).isEqualTo(new AgeSummary(10, 945, 90, 99));
+    }
+
+    @Test
+    public void noMembers() {
+        AgeSummary summary = partitionedAggregator.aggregate(member.age.gt(1000), 4, MemberAggregates.ageSummary());
+
+        assertThat(summary).isEqualTo(new AgeSummary(0, 0, null, null));
+        assertThat(summary.getAvg()).isNull();
+        assertThat(partitionedAggregator.aggregate(member.age.gt(1000), 4, MemberAggregates.ageHistogram(10))).isEmpty();
+    }
+
+    @Test
+    public void ageHistogram() {
+        Map<Integer, Long> histogram = partitionedAggregator.aggregate(member.age.lt(25), 3, MemberAggregates.ageHistogram(10));
+
+        assertThat(histogram).containsExactly(entry(0, 10L), entry(10, 10L), entry(20, 5L));
+    }
+
+    /**
+     * 직접 만든 부분 집계: 팀별 회원 수
+     */
+    @Test
+    public void customAggregate() {
+        PartialAggregate<Map<Long, Long>> countByTeam = new PartialAggregate<>() {
+            @Override
+            public List<Expression<?>> select() {
+                return List.of(member.team.id, member.count());
+            }
+
+            @Override
+            public List<Expression<?>> groupBy() {
+                return List.of(member.team.id);
+            }
+
+            @Override
+            public Map<Long, Long> partial(List<Tuple> rows) {
+                Map<Long, Long> counts = new HashMap<>();
+                rows.forEach(t -> counts.put(t.get(member.team.id), t.get(member.count())));
+                return counts;
+            }
+
+            @Override
+            public Map<Long, Long> merge(Map<Long, Long> left, Map<Long, Long> right) {
+                Map<Long, Long> merged = new HashMap<>(left);
+                right.forEach((teamId, count) -> merged.merge(teamId, count, Long::sum));
+                return merged;
+            }
+        };
+
+        assertThat(partitionedAggregator.aggregate(null, 5, countByTeam))
+                .containsOnly(entry(teamAId, 50L), entry(teamBId, 50L));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.querydsl.archive;
+
+import com.example.querydsl.cache.NaturalKeyTables;
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.example.querydsl.stats.TeamStatsService;
+import com.example.querydsl.writebehind.MemberWriteBuffer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 매 라운드 회원 50,000명이 새로 들어오고 가장 오래된 50,000명을 보관한다. (member 테이블은 200,000명 유지)
+ * 라운드마다 hot 쿼리(member)와 보관 포함 쿼리(member + member_archive)의 p50 을 비교한다.
+ * - 정렬 + 페이징 (offset 10,000)
+ * - 팀별 group by
+ * - count
+ * 보관하지 않았다면 hot 쿼리도 보관 포함 쿼리처럼 라운드마다 느려진다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberArchiveBenchmarkTest {
+
+    static final int TEAMS = 10;
+    static final int HOT_MEMBERS = 200_000;
+    static final int MEMBERS_PER_ROUND = 50_000;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberArchiveQuery memberArchiveQuery;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    NaturalKeyTables naturalKeyTables;
+
+    @Autowired
+    MemberWriteBuffer memberWriteBuffer;
+
+    List<Long> teamIds = new ArrayList<>();
+    int inserted;
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < TEAMS; i++) {
+                Team t = new Team("team" + i);
+                em.persist(t);
+                teamIds.add(t.getId());
+            }
+        });
+        insert(HOT_MEMBERS);
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.update("delete from member_archive");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        teamStatsService.rebuild();
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void hotQueriesStayFlat() {
+        MemberArchiveProperties properties = new MemberArchiveProperties();
+        properties.setBatchSize(5_000);
+        properties.setBatchPause(Duration.ZERO);
+        MemberArchiver archiver = new MemberArchiver(transactionManager, jdbcTemplate, em, queryFactory,
+                teamStatsService, memberSearchIndex, naturalKeyTables, memberWriteBuffer, properties, null);
+
+        double[] firstHot = null;
+        double[] lastHot = null;
+        for (int round = 0; round <= ROUNDS; round++) {
+            if (round > 0) {
+                insert(MEMBERS_PER_ROUND);
+                Long cutoff = queryFactory.select(member.id).from(member)
+                        .orderBy(member.id.asc())
+                        .offset(MEMBERS_PER_ROUND - 1)
+                        .limit(1)
+                        .fetchOne();
+                assertThat(archiver.archive(member.id.loe(cutoff))).isEqualTo(MEMBERS_PER_ROUND);
+            }
+            double[] hot = {measure(this::page), measure(this::groupBy), measure(this::count)};
+            double[] all = {measure(() -> memberArchiveQuery.withArchive(page())),
+                    measure(() -> memberArchiveQuery.withArchive(groupBy())),
+                    measure(() -> memberArchiveQuery.withArchive(count()))};
+            System.out.printf("round %d (archived %7d): hot page %7.2f ms, group by %7.2f ms, count %7.2f ms" +
+                            " | with archive page %7.2f ms, group by %7.2f ms, count %7.2f ms%n",
+                    round, round * MEMBERS_PER_ROUND, hot[0], hot[1], hot[2], all[0], all[1], all[2]);
+            if (firstHot == null) {
+                firstHot = hot;
+            }
+            lastHot = hot;
+        }
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member", Integer.class)).isEqualTo(HOT_MEMBERS);
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+        // 측정 오차를 감안해서 넉넉하게 본다. 보관 테이블이 커져도 hot 쿼리는 비슷해야 한다.
+        for (int i = 0; i < firstHot.length; i++) {
+            assertThat(lastHot[i]).isLessThan(firstHot[i] * 3 + 1);
+        }
+    }
+
+    private JPAQuery<String> page() {
+        return queryFactory
+                .select(member.username)
+                .from(member)
+                .orderBy(member.age.desc(), member.id.asc())
+                .offset(10_000)
+                .limit(20);
+    }
+
+    private JPAQuery<Double> groupBy() {
+        return queryFactory
+                .select(member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id);
+    }
+
+    private JPAQuery<Long> count() {
+        return queryFactory.select(member.count()).from(member);
+    }
+
+    private void insert(int count) {
+        int from = inserted;
+        inserted += count;
+        memberBulkInsertService.insertAllJdbc(IntStream.range(from, inserted)
+                .mapToObj(i -> new MemberImportRow("member" + i, i % 100, teamIds.get(i % TEAMS)))
+                .toList());
+    }
+
+    /**
+     * @return p50 (ms)
+     */
+    private double measure(Supplier<JPAQuery<?>> query) {
+        for (int i = 0; i < 3; i++) { // warm up
+            query.get().fetch();
+        }
+        int runs = 11;
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.get().fetch();
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return millis[runs / 2];
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.querydsl.archive;
+
+import com.example.querydsl.cache.NaturalKeyTables;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.TeamAgeStatsDto;
+import com.example.querydsl.entity.ArchivedMember;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.example.querydsl.repository.TeamQueryRepository;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.search.TextMatch;
+import com.example.querydsl.stats.TeamStatsService;
+import com.example.querydsl.writebehind.MemberWriteBuffer;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 보관은 batch 마다 커밋하기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class MemberArchiverTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberArchiveQuery memberArchiveQuery;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    NaturalKeyTables naturalKeyTables;
+
+    @Autowired
+    MemberWriteBuffer memberWriteBuffer;
+
+    TransactionTemplate tx;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamStatsService.rebuild(); // 다른 테스트가 벌크 삭제로 남긴 통계를 정리한다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 4; i++) {
+                Member m = new Member("member" + i, i * 10, i <= 2 ? teamA : teamB);
+                em.persist(m);
+                memberIds.add(m.getId());
+            }
+            Member noTeam = new Member("member5", 50);
+            em.persist(noTeam);
+            memberIds.add(noTeam.getId());
+        });
+        memberSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        memberWriteBuffer.flush();
+        jdbcTemplate.update("delete from member_archive");
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        teamStatsService.rebuild();
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void archive() {
+        Long archivedId = memberIds.get(0);
+        Member cached = tx.execute(status -> em.find(Member.class, archivedId)); // 2차 캐시에 올린다.
+        assertThat(cached).isNotNull();
+        assertThat(teamQueryRepository.findAgeStats()) // 쿼리 캐시에 올린다.
+                .extracting(TeamAgeStatsDto::getSum).containsExactly(30L, 70L);
+        memberWriteBuffer.updateAge(memberIds.get(1), 21); // 옮기기 전에 반영된다.
+
+        long count = newArchiver(1).archive(member.age.loe(21)); // 1명씩 두 번 + 더 없는지 확인
+
+        assertThat(count).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("select age from member_archive order by member_id", Integer.class))
+                .containsExactly(10, 21);
+        ArchivedMember archived = tx.execute(status -> em.find(ArchivedMember.class, archivedId));
+        assertThat(archived.getUsername()).isEqualTo("member1");
+        assertThat(archived.getArchivedAt()).isNotNull();
+
+        // 2차 캐시, 쿼리 캐시, 팀 통계, 검색 색인에서도 빠진다.
+        Member moved = tx.execute(status -> em.find(Member.class, archivedId));
+        assertThat(moved).isNull();
+        assertThat(teamQueryRepository.findAgeStats())
+                .extracting(TeamAgeStatsDto::getTeamName).containsExactly("teamB");
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+        assertThat(memberSearchIndex.findMemberIds("member1", TextMatch.CONTAINS, 10)).isEmpty();
+        assertThat(memberSearchIndex.findMemberIds("member3", TextMatch.CONTAINS, 10)).containsExactly(memberIds.get(2));
+    }
+
+    @Test
+    public void hotAndArchivedQueries() {
+        newArchiver(1000).archive(member.age.loe(20));
+
+        assertThat(memberQueryRepository.findMemberTeams(member.username.startsWith("member")))
+                .extracting(MemberTeamDto::getUsername).containsExactlyInAnyOrder("member3", "member4", "member5");
+        assertThat(memberQueryRepository.findMemberTeams(member.username.startsWith("member"), true))
+                .extracting(MemberTeamDto::getUsername, MemberTeamDto::getTeamName)
+                .containsExactlyInAnyOrder(tuple("member1", "teamA"), tuple("member2", "teamA"),
+                        tuple("member3", "teamB"), tuple("member4", "teamB"), tuple("member5", null));
+        assertThat(memberQueryRepository.countMembers(null)).isEqualTo(3);
+        assertThat(memberQueryRepository.countMembers(member.age.lt(40), true)).isEqualTo(3);
+
+        // 정렬, 페이징
+        assertThat(memberArchiveQuery.withArchive(queryFactory
+                        .select(member.username)
+                        .from(member)
+                        .orderBy(member.age.desc())
+                        .offset(1)
+                        .limit(3))
+                .fetch()).containsExactly("member4", "member3", "member2");
+
+        // group by, having
+        List<Tuple> counts = memberArchiveQuery.withArchive(queryFactory
+                        .select(team.name, member.count())
+                        .from(member)
+                        .join(member.team, team)
+                        .groupBy(team.name)
+                        .having(member.count().gt(0))
+                        .orderBy(team.name.asc()))
+                .fetch();
+        assertThat(counts).extracting(t -> t.get(team.name), t -> t.get(member.count()))
+                .containsExactly(tuple("teamA", 2L), tuple("teamB", 2L));
+    }
+
+    @Test
+    public void invalidUsage() {
+        assertThatThrownBy(() -> memberArchiveQuery.withArchive(queryFactory.selectFrom(member)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberArchiveQuery.withArchive(queryFactory.select(team.name).from(team)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tx.execute(status -> newArchiver(1).archive(member.age.loe(20))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private MemberArchiver newArchiver(int batchSize) {
+        MemberArchiveProperties properties = new MemberArchiveProperties();
+        properties.setBatchSize(batchSize);
+        properties.setBatchPause(Duration.ZERO);
+        return new MemberArchiver(transactionManager, jdbcTemplate, em, queryFactory, teamStatsService,
+                memberSearchIndex, naturalKeyTables, memberWriteBuffer, properties, null);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.querydsl.async;
+
+import com.example.querydsl.dto.MemberDashboardDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.service.MemberDashboardService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 비동기 쿼리는 다른 스레드의 트랜잭션에서 실행되어 커밋된 데이터만 보이기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class AsyncQueryExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    AsyncQueryExecutor asyncQueryExecutor;
+
+    @Autowired
+    MemberDashboardService memberDashboardService;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    /**
+     * 두 쿼리가 서로를 기다리기 때문에 동시에 실행되지 않으면 끝나지 않는다.
+     * 쿼리마다 읽기 전용 트랜잭션과 영속성 컨텍스트(Session)가 따로 있다.
+     */
+    @Test
+    public void runsConcurrentlyInSeparateTransactions() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Function<JPAQueryFactory, EntityManager> query = qf -> {
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+            qf.selectFrom(member).fetch();
+            bothStarted.countDown();
+            await(bothStarted);
+            // em 은 공유 프록시라서 unwrap 해도 프록시가 나온다. 트랜잭션에 바인딩된 실제 EntityManager 를 꺼낸다.
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+            return holder.getEntityManager();
+        };
+
+        List<EntityManager> entityManagers = asyncQueryExecutor.fetchAll(query, query, List::of);
+
+        assertThat(entityManagers.get(0)).isNotNull().isNotSameAs(entityManagers.get(1));
+    }
+
+    @Test
+    public void dashboard() {
+        MemberDashboardDto dashboard = memberDashboardService.findDashboard("teamA", 1);
+
+        assertThat(dashboard.getRecentMembers()).extracting("username").containsExactly("member2");
+        assertThat(dashboard.getTotalCount()).isEqualTo(2);
+        assertThat(dashboard.getTeamAgeStats()).extracting("teamName", "count")
+                .containsExactly(tuple("teamA", 2L), tuple("teamB", 2L));
+    }
+
+    /**
+     * 하나가 실패하면 나머지가 끝나기를 기다리지 않고 원래 예외를 던진다.
+     */
+    @Test
+    public void failsFast() {
+        CountDownLatch never = new CountDownLatch(1);
+        try {
+            assertThatThrownBy(() -> asyncQueryExecutor.fetchAll(
+                    qf -> {
+                        await(never);
+                        return 1L;
+                    },
+                    qf -> {
+                        throw new IllegalArgumentException("boom");
+                    },
+                    Long::sum))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("boom");
+        } finally {
+            never.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
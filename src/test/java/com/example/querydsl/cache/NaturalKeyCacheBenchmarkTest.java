@@ -0,0 +1,115 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 10만 건 중 자주 조회되는 1만 명을 이름으로 한 건씩 조회: SQL(where username = ?) vs NaturalKeyCache (모두 캐시된 상태)
+ * 조회마다 읽기 전용 트랜잭션(새 영속성 컨텍스트)을 연다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class NaturalKeyCacheBenchmarkTest {
+
+    static final int ROWS = 100_000;
+    static final int HOT_KEYS = 10_000;
+    static final int LOOKUPS = 100_000;
+    static final int RUNS = 5;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    TransactionTemplate readOnly;
+    String[] keys;
+
+    @BeforeEach
+    public void before() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        memberBulkInsertService.insertAllJdbc(() -> new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < ROWS;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                int n = i++;
+                return new MemberImportRow("member" + n, n % 100, null);
+            }
+        });
+
+        Random random = new Random(42);
+        keys = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            keys[i] = "member" + random.nextInt(HOT_KEYS) * (ROWS / HOT_KEYS);
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queryFactory.delete(member).execute());
+    }
+
+    @Test
+    public void hitVsSql() {
+        measure("sql fetchOne", key -> readOnly.execute(status -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(key))
+                .fetchOne()));
+        measure("natural key cache", memberQueryRepository::findByUsername);
+    }
+
+    /**
+     * 한 번 전체를 조회해서 데운 뒤(캐시를 채운 뒤) 조회 한 건당 지연 시간의 중앙값을 출력한다.
+     */
+    private void measure(String name, Function<String, Member> find) {
+        for (String key : keys) {
+            assertThat(find.apply(key).getUsername()).isEqualTo(key);
+        }
+        double[] micros = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            for (String key : keys) {
+                find.apply(key);
+            }
+            micros[i] = (System.nanoTime() - start) / 1e3 / keys.length;
+        }
+        Arrays.sort(micros);
+        System.out.printf("%-18s: p50 %8.2f us/lookup%n", name, micros[RUNS / 2]);
+    }
+}
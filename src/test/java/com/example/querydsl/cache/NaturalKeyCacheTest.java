@@ -0,0 +1,225 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitor.QueryCounter;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 캐시는 커밋된 변경으로 무효화되기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class NaturalKeyCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    NaturalKeyCache naturalKeyCache;
+
+    @Autowired
+    NaturalKeyTables naturalKeyTables;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long member1Id;
+    Long member2Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        naturalKeyTables.clear(); // 다른 테스트가 벌크 삭제로 남긴 키를 정리한다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+
+            teamAId = teamA.getId();
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    /**
+     * 처음에는 이름으로 조회하고, 다음부터는 이름 → id → 2차 캐시로 SQL 없이 찾는다.
+     */
+    @Test
+    public void hit() {
+        assertThat(memberQueryRepository.findByUsername("member1").getId()).isEqualTo(member1Id);
+
+        QueryCounter.start();
+        Member member1 = memberQueryRepository.findByUsername("member1");
+        String teamName = tx.execute(status -> naturalKeyCache.find(Team.class, "teamA").getName());
+
+        assertThat(member1.getAge()).isEqualTo(10);
+        assertThat(teamName).isEqualTo("teamA");
+        assertThat(QueryCounter.stop().getSelectCount()).isEqualTo(1); // 팀은 처음 조회
+    }
+
+    @Test
+    public void missingKey() {
+        assertThat(memberQueryRepository.findByUsername("nobody")).isNull();
+        assertThat(memberQueryRepository.findByUsername(null)).isNull();
+    }
+
+    /**
+     * 이름을 바꾸면 이전 이름으로는 찾지 못하고 새 이름으로 찾는다.
+     */
+    @Test
+    public void rename() {
+        memberQueryRepository.findByUsername("member1");
+
+        tx.executeWithoutResult(status -> em.find(Member.class, member1Id).setUsername("renamed1"));
+
+        assertThat(memberQueryRepository.findByUsername("member1")).isNull();
+        assertThat(memberQueryRepository.findByUsername("renamed1").getId()).isEqualTo(member1Id);
+    }
+
+    /**
+     * 두 회원의 이름을 맞바꿔도 이전 id 를 돌려주지 않는다.
+     */
+    @Test
+    public void swapNames() {
+        memberQueryRepository.findByUsername("member1");
+        memberQueryRepository.findByUsername("member2");
+
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            Member member2 = em.find(Member.class, member2Id);
+            member1.setUsername("tmp");
+            em.flush();
+            member2.setUsername("member1");
+            em.flush();
+            member1.setUsername("member2");
+        });
+
+        assertThat(memberQueryRepository.findByUsername("member1").getId()).isEqualTo(member2Id);
+        assertThat(memberQueryRepository.findByUsername("member2").getId()).isEqualTo(member1Id);
+    }
+
+    /**
+     * 커밋 전에는 같은 트랜잭션에서만 바뀐 이름이 보이고, 롤백하면 이전 이름으로 다시 찾는다.
+     */
+    @Test
+    public void uncommittedRename() {
+        memberQueryRepository.findByUsername("member1");
+
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, member1Id).setUsername("renamed1");
+
+            assertThat(naturalKeyCache.find(Member.class, "member1")).isNull();
+            assertThat(naturalKeyCache.find(Member.class, "renamed1").getId()).isEqualTo(member1Id);
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberQueryRepository.findByUsername("renamed1")).isNull();
+        assertThat(memberQueryRepository.findByUsername("member1").getId()).isEqualTo(member1Id);
+    }
+
+    @Test
+    public void delete() {
+        memberQueryRepository.findByUsername("member1");
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member1Id)));
+
+        assertThat(memberQueryRepository.findByUsername("member1")).isNull();
+    }
+
+    /**
+     * 같은 이름의 회원이 생기면 캐시를 쓰지 않고 SQL 조회와 같이 예외가 발생한다.
+     */
+    @Test
+    public void duplicateKey() {
+        memberQueryRepository.findByUsername("member1");
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 30)));
+
+        assertThatThrownBy(() -> memberQueryRepository.findByUsername("member1"))
+                .isInstanceOf(NonUniqueResultException.class);
+    }
+
+    /**
+     * JDBC insert 는 이벤트가 발생하지 않기 때문에 커밋한 뒤 회원 키를 모두 지운다. 중복이 캐시에 가려지지 않는다.
+     */
+    @Test
+    public void jdbcInsertDuplicateKey() {
+        memberQueryRepository.findByUsername("member1");
+
+        memberBulkInsertService.insertAllJdbc(List.of(new MemberImportRow("member1", 30, teamAId)));
+
+        assertThatThrownBy(() -> memberQueryRepository.findByUsername("member1"))
+                .isInstanceOf(NonUniqueResultException.class);
+    }
+
+    /**
+     * 벌크 update 는 이벤트가 발생하지 않아 이름 → id 가 남아 있지만, 2차 캐시가 비워지기 때문에 바뀐 이름과 비교해서 걸러진다.
+     */
+    @Test
+    public void bulkRename() {
+        memberQueryRepository.findByUsername("member1");
+
+        tx.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.username, "bulk1")
+                .where(member.id.eq(member1Id))
+                .execute());
+
+        assertThat(memberQueryRepository.findByUsername("member1")).isNull();
+        assertThat(memberQueryRepository.findByUsername("bulk1").getId()).isEqualTo(member1Id);
+    }
+
+    @Test
+    public void teamRename() {
+        Long before = tx.execute(status -> naturalKeyCache.find(Team.class, "teamA").getId());
+        assertThat(before).isEqualTo(teamAId);
+
+        tx.executeWithoutResult(status -> em.find(Team.class, teamAId).setName("teamB"));
+
+        Team oldName = tx.execute(status -> naturalKeyCache.find(Team.class, "teamA"));
+        Long newName = tx.execute(status -> naturalKeyCache.find(Team.class, "teamB").getId());
+        assertThat(oldName).isNull();
+        assertThat(newName).isEqualTo(teamAId);
+    }
+}
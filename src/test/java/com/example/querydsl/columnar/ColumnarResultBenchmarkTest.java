@@ -0,0 +1,187 @@
+package com.example.querydsl.columnar;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 100만 명 (팀 100개) select(member.id, member.username, member.age, team.name)
+ * List<Tuple> vs ColumnarResult, 조회 중 할당된 크기, 결과가 힙에 남는 크기, GC 횟수/시간
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class ColumnarResultBenchmarkTest {
+
+    static final int MEMBERS = 1_000_000;
+    static final int TEAMS = 100;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void before() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<Long> teamIds = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < TEAMS; i++) {
+                Team t = new Team("team" + i);
+                em.persist(t);
+                ids.add(t.getId());
+            }
+            return ids;
+        });
+        memberBulkInsertService.insertAllJdbc(() -> new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < MEMBERS;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                int n = i++;
+                return new MemberImportRow("member" + n, n % 100, n % 10 == 0 ? null : teamIds.get(n % TEAMS));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void tuplesVsColumnar() {
+        List<Tuple> tuples = measure("List<Tuple>", () -> query().fetch());
+        ColumnarResult columnar = measure("ColumnarResult", () -> ColumnarResult.fetch(em, query()));
+        System.out.printf("ColumnarResult estimated %.1f MB, team.name dictionary %d%n",
+                columnar.estimatedBytes() / 1024.0 / 1024.0, columnar.dictionarySize(team.name));
+
+        // 같은 결과인지 합계로 비교한다.
+        long tupleSum = 0;
+        for (Tuple t : tuples) {
+            tupleSum += t.get(member.age);
+        }
+        long columnarSum = 0;
+        int age = columnar.indexOf(member.age);
+        ColumnarResult.Cursor cursor = columnar.cursor();
+        while (cursor.next()) {
+            columnarSum += cursor.getInt(age);
+        }
+        assertThat(columnar.size()).isEqualTo(tuples.size()).isEqualTo(MEMBERS);
+        assertThat(columnarSum).isEqualTo(tupleSum);
+
+        measure("writeTo", () -> {
+            try {
+                columnar.writeTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+    }
+
+    private JPAQuery<Tuple> query() {
+        return queryFactory
+                .select(member.id, member.username, member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc());
+    }
+
+    /**
+     * 한 번 실행해서 데운 뒤 측정한다. 결과를 들고 있는 동안 GC 후 힙 사용량 차이를 결과가 남기는 크기로 본다.
+     */
+    private <T> T measure(String name, Supplier<T> fetch) {
+        readOnly.execute(status -> fetch.get());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeap();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        T result = readOnly.execute(status -> fetch.get());
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        gcCount = gcCount() - gcCount;
+        gcMillis = gcMillis() - gcMillis;
+        long retained = usedHeap() - heapBefore;
+
+        System.out.printf("%-15s: %8.1f ms, %8.1f MB allocated, %8.1f MB retained, %3d GCs (%d ms)%n",
+                name, elapsed / 1e6, allocated / 1024.0 / 1024.0, retained / 1024.0 / 1024.0, gcCount, gcMillis);
+        return result;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
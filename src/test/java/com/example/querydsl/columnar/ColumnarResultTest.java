@@ -0,0 +1,212 @@
+package com.example.querydsl.columnar;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class ColumnarResultTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50)); // 팀 없음
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void sameAsTuples() {
+        List<Tuple> tuples = queryFactory
+                .select(member.id, member.username, member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        ColumnarResult result = ColumnarResult.fetch(em, queryFactory
+                .select(member.id, member.username, member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc()));
+
+        assertThat(result.size()).isEqualTo(5);
+        assertThat(result.dictionarySize(team.name)).isEqualTo(2);
+
+        int id = result.indexOf(member.id);
+        int username = result.indexOf(member.username);
+        int age = result.indexOf(member.age);
+        int teamName = result.indexOf(team.name);
+        ColumnarResult.Cursor cursor = result.cursor();
+        for (Tuple t : tuples) {
+            assertThat(cursor.next()).isTrue();
+            assertThat(cursor.getLong(id)).isEqualTo(t.get(member.id));
+            assertThat(cursor.getString(username)).isEqualTo(t.get(member.username));
+            assertThat(cursor.getInt(age)).isEqualTo(t.get(member.age));
+            assertThat(cursor.getString(teamName)).isEqualTo(t.get(team.name));
+            assertThat(cursor.isNull(teamName)).isEqualTo(t.get(team.name) == null);
+        }
+        assertThat(cursor.next()).isFalse();
+    }
+
+    @Test
+    public void groupByAvg() {
+        ColumnarResult result = ColumnarResult.fetch(em, queryFactory
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc()));
+
+        List<Object[]> rows = new ArrayList<>();
+        ColumnarResult.Cursor cursor = result.cursor();
+        while (cursor.next()) {
+            rows.add(new Object[]{cursor.getString(0), cursor.getDouble(1)});
+        }
+        assertThat(rows).extracting(r -> r[0], r -> r[1])
+                .containsExactly(tuple("teamA", 15.0), tuple("teamB", 35.0));
+    }
+
+    /**
+     * 엔티티는 참조를 그대로 저장한다.
+     */
+    @Test
+    public void entityColumns() {
+        ColumnarResult result = ColumnarResult.fetch(em, queryFactory
+                .select(member, team)
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.eq("member1")));
+
+        ColumnarResult.Cursor cursor = result.cursor();
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.get(member).getUsername()).isEqualTo("member1");
+        assertThat(cursor.get(team).getName()).isEqualTo("teamA");
+        assertThatThrownBy(() -> result.writeTo(new ByteArrayOutputStream())).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void dtoProjectionNotAllowed() {
+        assertThatThrownBy(() -> ColumnarResult.fetch(em, queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.name))
+                .from(member)
+                .leftJoin(member.team, team)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void writeTo() throws IOException {
+        ColumnarResult result = ColumnarResult.fetch(em, queryFactory
+                .select(member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.writeTo(out);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(in.readInt()).isEqualTo(ColumnarResult.MAGIC);
+        assertThat(in.readInt()).isEqualTo(ColumnarResult.VERSION);
+        assertThat(in.readInt()).isEqualTo(5); // row 수
+        assertThat(in.readInt()).isEqualTo(2); // 열 수
+        assertThat(readString(in)).isEqualTo("member1.age");
+        assertThat(in.readByte()).isEqualTo(Column.INT);
+        assertThat(readString(in)).isEqualTo("team.name");
+        assertThat(in.readByte()).isEqualTo(Column.STRING);
+
+        // age: null 없음
+        assertThat(in.readInt()).isZero();
+        int[] ages = new int[5];
+        for (int i = 0; i < ages.length; i++) {
+            ages[i] = in.readInt();
+        }
+        assertThat(ages).containsExactly(10, 20, 30, 40, 50);
+
+        // team.name: 다섯 번째 row 가 null, 사전 두 개
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(in.readLong()).isEqualTo(1L << 4);
+        assertThat(in.readInt()).isEqualTo(2);
+        assertThat(readString(in)).isEqualTo("teamA");
+        assertThat(readString(in)).isEqualTo("teamB");
+        int[] codes = new int[5];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = in.readInt();
+        }
+        assertThat(codes).containsExactly(0, 0, 1, 1, 0);
+        assertThat(in.available()).isZero();
+    }
+
+    /**
+     * 같은 ColumnarResult 를 chunk 마다 다시 채운다. 이전 chunk 의 null, 사전이 남지 않는다.
+     */
+    @Test
+    public void chunks() {
+        List<ColumnarResult> results = new ArrayList<>();
+        List<List<Object>> chunks = new ArrayList<>();
+        long count = ColumnarResult.fetch(em, queryFactory
+                .select(member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.desc()), 2, chunk -> {
+            results.add(chunk);
+            List<Object> rows = new ArrayList<>();
+            ColumnarResult.Cursor cursor = chunk.cursor();
+            while (cursor.next()) {
+                rows.add(tuple(cursor.getInt(0), cursor.getString(1)));
+            }
+            rows.add(chunk.dictionarySize(team.name));
+            chunks.add(rows);
+        });
+
+        assertThat(count).isEqualTo(5);
+        assertThat(results).hasSize(3).allSatisfy(r -> assertThat(r).isSameAs(results.get(0)));
+        assertThat(chunks).containsExactly(
+                List.of(tuple(50, null), tuple(40, "teamB"), 1),
+                List.of(tuple(30, "teamB"), tuple(20, "teamA"), 2),
+                List.of(tuple(10, "teamA"), 1));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
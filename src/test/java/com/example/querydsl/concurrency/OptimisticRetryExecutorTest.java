@@ -0,0 +1,59 @@
+package com.example.querydsl.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptimisticRetryExecutorTest {
+
+    OptimisticRetryExecutor executor = new OptimisticRetryExecutor(null, properties());
+
+    @Test
+    public void retryUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockException();
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    public void giveUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThatThrownBy(() -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockException();
+        })).isInstanceOf(OptimisticLockException.class);
+
+        assertThat(attempts).hasValue(4);
+    }
+
+    @Test
+    public void otherExceptionNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThatThrownBy(() -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException();
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    private static OptimisticRetryProperties properties() {
+        OptimisticRetryProperties properties = new OptimisticRetryProperties();
+        properties.setMaxAttempts(4);
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(5));
+        return properties;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.querydsl.entity;
+
+import com.example.querydsl.monitor.QueryCount;
+import com.example.querydsl.monitor.QueryCounter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 100팀, 1000명의 회원을 지연 로딩으로 렌더링할 때 배치 로딩이 없으면 팀 수만큼(약 100번) 쿼리가 추가로 실행된다.
+ * default_batch_fetch_size, @BatchSize 로 in (...) 쿼리 몇 번으로 줄어드는지 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class BatchFetchTest {
+
+    static final int TEAMS = 100;
+    static final int MEMBERS_PER_TEAM = 10;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < TEAMS; i++) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            for (int j = 0; j < MEMBERS_PER_TEAM; j++) {
+                em.persist(new Member("batchMember" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+        QueryCounter.start();
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+    }
+
+    @Test
+    public void memberTeamProxies() {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .where(member.username.startsWith("batchMember"))
+                .fetch();
+        for (Member m : members) {
+            m.getTeam().getName();
+        }
+
+        QueryCount count = QueryCounter.current();
+        assertThat(members).hasSize(TEAMS * MEMBERS_PER_TEAM);
+        assertThat(count.getSelectCount()).as("%s", count).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void teamMembersCollections() {
+        List<Team> teams = queryFactory
+                .selectFrom(team)
+                .where(team.name.startsWith("batchTeam"))
+                .fetch();
+        int total = 0;
+        for (Team t : teams) {
+            total += t.getMembers().size();
+        }
+
+        QueryCount count = QueryCounter.current();
+        assertThat(total).isEqualTo(TEAMS * MEMBERS_PER_TEAM);
+        assertThat(count.getSelectCount()).as("%s", count).isLessThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.querydsl.monitor;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트랜잭션 메트릭은 commit/rollback 시점에 기록되기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.jdbc-metrics.slow-query-threshold=1ns", // 모든 statement 를 느린 쿼리로 남긴다.
+        "querydsl.jdbc-metrics.slow-query-capacity=1000"})
+class JdbcMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    JdbcMetrics jdbcMetrics;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 4; i++) {
+                em.persist(new Member("member" + i, 10 + i, teamA));
+            }
+        });
+        jdbcMetrics.clearSlowQueries();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void statementLatencyAndRows() {
+        tx.execute(status -> queryFactory.selectFrom(member).where(member.age.goe(11)).fetch());
+
+        Timer timer = memberSelectTimer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.getId().getTag("type")).isEqualTo("select");
+        DistributionSummary rows = meterRegistry.get("jdbc.statement.rows")
+                .tag("sql", timer.getId().getTag("sql"))
+                .summary();
+        assertThat(rows.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    public void transactionDuration() {
+        Timer commits = meterRegistry.get("jdbc.transactions").tag("outcome", "commit").timer();
+        Timer rollbacks = meterRegistry.get("jdbc.transactions").tag("outcome", "rollback").timer();
+        long committed = commits.count();
+        long rolledBack = rollbacks.count();
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member9", 90)));
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member10", 100));
+            status.setRollbackOnly();
+        });
+
+        assertThat(commits.count()).isEqualTo(committed + 1);
+        assertThat(rollbacks.count()).isEqualTo(rolledBack + 1);
+    }
+
+    @Test
+    public void slowQueryWithParameters() {
+        tx.execute(status -> queryFactory.selectFrom(member).where(member.username.eq("member2")).fetchOne());
+
+        assertThat(jdbcMetrics.getSlowQueries())
+                .filteredOn(query -> query.getSql().contains("username=?"))
+                .singleElement()
+                .satisfies(query -> {
+                    assertThat(query.getParameters()).containsExactly("member2");
+                    assertThat(query.isSuccess()).isTrue();
+                });
+    }
+
+    /**
+     * 커넥션을 얻기까지 기다린 시간은 Hikari 가 남긴다.
+     */
+    @Test
+    public void connectionAcquireTime() {
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+    }
+
+    private Timer memberSelectTimer() {
+        return meterRegistry.find("jdbc.statements").tag("outcome", "success").timers().stream()
+                .filter(t -> t.getId().getTag("sql").startsWith("select")
+                        && t.getId().getTag("sql").contains("from member")
+                        && t.getId().getTag("sql").contains("age>=?"))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.querydsl.monitor;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트 메서드 실행 동안 QueryCounter 를 strict 모드로 켠다.
+ * - N+1 이 감지되면 NPlusOneQueryException 으로 테스트가 실패한다.
+ * - '@MaxQueries' 가 있으면 select 쿼리 수가 상한을 넘는지 검사한다.
+ */
+public class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter.start(true);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCount count = QueryCounter.stop();
+        MaxQueries maxQueries = context.getRequiredTestMethod().getAnnotation(MaxQueries.class);
+        if (maxQueries != null && count != null && context.getExecutionException().isEmpty()) {
+            assertThat(count.getSelectCount())
+                    .as("select 쿼리 수 %s", count)
+                    .isLessThanOrEqualTo(maxQueries.value());
+        }
+    }
+}
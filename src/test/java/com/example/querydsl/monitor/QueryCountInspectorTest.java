@@ -0,0 +1,109 @@
+package com.example.querydsl.monitor;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1") // N+1 을 재현하기 위해 배치 로딩을 끈다.
+@Transactional
+class QueryCountInspectorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+    }
+
+    @Test
+    public void normalize() {
+        assertThat(SqlShape.normalize("/* select m from Member m */ select member0_.member_id as member_i1_1_\n  from member member0_ where member0_.username='member1' and member0_.age=10"))
+                .isEqualTo("select member0_.member_id as member_i1_1_ from member member0_ where member0_.username=? and member0_.age=?");
+        assertThat(SqlShape.normalize("select t.name from team t where t.team_id in (?, ?, ?)"))
+                .isEqualTo(SqlShape.normalize("select t.name from team t where t.team_id in (?)"));
+    }
+
+    /**
+     * 실행 순서대로는 처음 MAX_STATEMENTS 개만 남기고, 횟수는 모두 센다.
+     */
+    @Test
+    public void statementsAreCapped() {
+        QueryCount count = new QueryCount(false);
+        int executed = QueryCount.MAX_STATEMENTS + 500;
+        for (int i = 0; i < executed; i++) {
+            count.record(i % 2 == 0 ? "select a from b where c=?" : "update b set a=? where c=?");
+        }
+
+        assertThat(count.getTotal()).isEqualTo(executed);
+        assertThat(count.getSelectCount()).isEqualTo(executed / 2);
+        assertThat(count.getStatements()).hasSize(QueryCount.MAX_STATEMENTS);
+        assertThat(count.isTruncated()).isTrue();
+        assertThat(count.getShapes()).containsEntry("select a from b where c=?", executed / 2);
+    }
+
+    @Test
+    public void lazyLoadingIsDetected() {
+        QueryCounter.start();
+        List<Member> members = queryFactory.selectFrom(member).fetch();
+        for (Member m : members) {
+            m.getTeam().getName(); // 회원마다 team 조회 쿼리가 실행된다.
+        }
+        QueryCount count = QueryCounter.stop();
+
+        assertThat(count.getSelectCount()).isEqualTo(1 + members.size());
+        assertThat(count.getShapes()).containsValue(members.size());
+    }
+
+    @Test
+    public void strictModeFailsOnNPlusOne() {
+        QueryCounter.start(true);
+        List<Member> members = queryFactory.selectFrom(member).fetch();
+
+        assertThatThrownBy(() -> members.forEach(m -> m.getTeam().getName()))
+                .hasMessageContaining("N+1");
+    }
+
+    @Test
+    public void fetchJoinIsNotDetected() {
+        QueryCounter.start(true);
+        List<Member> members = queryFactory.selectFrom(member).join(member.team, team).fetchJoin().fetch();
+        members.forEach(m -> m.getTeam().getName());
+
+        assertThat(QueryCounter.stop().getSelectCount()).isEqualTo(1);
+    }
+
+    @Test
+    @MaxQueries(1)
+    public void maxQueries() {
+        queryFactory.selectFrom(member).join(member.team, team).fetchJoin().fetch();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.querydsl.paging;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * offset 페이징 vs keyset 페이징 (1 페이지, 10,000 페이지)
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+@Transactional
+class KeysetPagerBenchmarkTest {
+
+    static final int PAGE_SIZE = 20;
+    static final int DEEP_PAGE = 10_000;
+    static final int ROWS = PAGE_SIZE * (DEEP_PAGE + 1);
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    KeysetPager keysetPager;
+
+    @Test
+    public void offsetVsKeyset() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        for (int i = 0; i < ROWS; i++) {
+            em.persist(new Member("member" + i, i % 100, team));
+            if (i % 1_000 == 0) {
+                em.flush();
+                em.clear();
+                team = em.getReference(Team.class, team.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+
+        // 10,000 페이지 직전 row 의 커서 (클라이언트가 앞 페이지를 넘기면서 받아온 값이라고 가정)
+        Member lastOfPrevPage = offsetPage((long) (DEEP_PAGE - 1) * PAGE_SIZE + PAGE_SIZE - 1, 1).get(0);
+        String deepCursor = keysetPager.cursorOf(lastOfPrevPage, member.id,
+                member.age.desc(), member.username.asc().nullsLast()).encode();
+
+        assertThat(keysetPage(deepCursor)).containsExactlyElementsOf(offsetPage((long) DEEP_PAGE * PAGE_SIZE, PAGE_SIZE));
+
+        System.out.printf("offset page 1      : %8.3f ms%n", measure(() -> offsetPage(0, PAGE_SIZE)));
+        System.out.printf("offset page %d : %8.3f ms%n", DEEP_PAGE, measure(() -> offsetPage((long) DEEP_PAGE * PAGE_SIZE, PAGE_SIZE)));
+        System.out.printf("keyset page 1      : %8.3f ms%n", measure(() -> keysetPage(null)));
+        System.out.printf("keyset page %d : %8.3f ms%n", DEEP_PAGE, measure(() -> keysetPage(deepCursor)));
+    }
+
+    private List<Member> offsetPage(long offset, int limit) {
+        return queryFactory
+                .selectFrom(member)
+                .orderBy(member.age.desc(), member.username.asc().nullsLast(), member.id.asc())
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+
+    private List<Member> keysetPage(String cursor) {
+        return keysetPager.fetchPage(member, member.id, null, cursor, PAGE_SIZE,
+                member.age.desc(), member.username.asc().nullsLast()).getContent();
+    }
+
+    private double measure(Supplier<List<Member>> page) {
+        for (int i = 0; i < 5; i++) { // warm up
+            page.get();
+            em.clear();
+        }
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            page.get();
+            em.clear();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / runs;
+    }
+}
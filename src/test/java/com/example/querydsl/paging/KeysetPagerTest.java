@@ -0,0 +1,103 @@
+package com.example.querydsl.paging;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class KeysetPagerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    KeysetPager keysetPager;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        // 정렬 키가 같은 row 와 null 이 섞여 있어야 tiebreaker 와 nulls 처리를 확인할 수 있다.
+        em.persist(new Member(null, 100));
+        em.persist(new Member("member5", 100));
+        em.persist(new Member("member6", 100));
+        em.persist(new Member("member6", 100));
+        em.persist(new Member(null, 20));
+    }
+
+    @Test
+    public void keysetPagesMatchOffsetOrder() {
+        assertSameOrderAsOffset(member.age.desc(), member.username.asc().nullsLast());
+    }
+
+    @Test
+    public void keysetPagesMatchOffsetOrder_nullsFirst() {
+        assertSameOrderAsOffset(member.username.desc().nullsFirst(), member.age.asc());
+    }
+
+    @Test
+    public void keysetPagesMatchOffsetOrder_defaultNullHandling() {
+        assertSameOrderAsOffset(member.username.asc());
+        assertSameOrderAsOffset(member.username.desc());
+    }
+
+    @Test
+    public void lastPageHasNoCursor() {
+        KeysetPage<Member> page = keysetPager.fetchPage(member, member.id, member.age.eq(10), null, 2,
+                member.username.asc());
+
+        assertThat(page.getContent()).extracting("username").containsExactly("member1");
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void invalidCursor() {
+        assertThatThrownBy(() -> keysetPager.fetchPage(member, member.id, null, "not-a-cursor", 2, member.age.asc()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void assertSameOrderAsOffset(OrderSpecifier<?>... orders) {
+        List<OrderSpecifier<?>> offsetOrders = new ArrayList<>(List.of(orders));
+        offsetOrders.add(member.id.asc());
+        List<Member> expected = queryFactory
+                .selectFrom(member)
+                .orderBy(offsetOrders.toArray(new OrderSpecifier<?>[0]))
+                .fetch();
+
+        List<Member> actual = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPage<Member> page = keysetPager.fetchPage(member, member.id, null, cursor, 2, orders);
+            actual.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+}
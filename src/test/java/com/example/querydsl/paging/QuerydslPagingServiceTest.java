@@ -0,0 +1,258 @@
+package com.example.querydsl.paging;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitor.QueryCounter;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.ManyToOne;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class QuerydslPagingServiceTest {
+
+    static final PathBuilder<MemberCard> CARD = new PathBuilder<>(MemberCard.class, "memberCard");
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    QuerydslPagingService pagingService;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+        QueryCounter.start();
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+    }
+
+    /**
+     * where 절에서 team 을 참조하기 때문에 조인은 남고, order by 만 빠진다.
+     */
+    @Test
+    public void join() {
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamA"))
+                .orderBy(member.username.desc());
+
+        assertThat(pagingService.count(query)).isEqualTo(2);
+        String countSql = lastSelect();
+        assertThat(countSql).startsWith("select count(");
+        assertThat(countSql).contains("inner join team");
+        assertThat(countSql).doesNotContain("order by");
+    }
+
+    /**
+     * to-one left join 은 회원 수를 바꾸지 않기 때문에 on 절이 있어도 조인을 제거한다.
+     */
+    @Test
+    public void join_on_filtering() {
+        JPAQuery<Tuple> query = queryFactory
+                .select(member, team)
+                .from(member)
+                .leftJoin(member.team, team).on(team.name.eq("teamA"));
+
+        assertThat(pagingService.count(query)).isEqualTo(4);
+        String countSql = lastSelect();
+        assertThat(countSql).doesNotContain("join");
+        assertThat(countSql).doesNotContain("team");
+    }
+
+    /**
+     * Member.team 은 optional 이라서 inner join 은 남지만(팀 없는 회원이 걸러진다), 페치 조인은 일반 조인이 되어 team 컬럼은 조회하지 않는다.
+     */
+    @Test
+    public void fetchJoinUse() {
+        em.persist(new Member("member1", 50)); // 팀이 없는 회원
+
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.username.eq("member1"));
+
+        assertThat(pagingService.count(query)).isEqualTo(1);
+        String countSql = lastSelect();
+        assertThat(countSql).contains("inner join team");
+        assertThat(countSql).doesNotContain("team1_.name");
+        assertThat(countSql).doesNotContain("team1_.team_id as");
+    }
+
+    @Test
+    public void leftFetchJoinIsDropped() {
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.age.goe(20));
+
+        assertThat(pagingService.count(query)).isEqualTo(3);
+        assertThat(lastSelect()).doesNotContain("join");
+    }
+
+    /**
+     * 필수 연관관계라도 on 절이 있는 inner join 은 조건에 맞지 않는 row 를 빼기 때문에 남긴다.
+     */
+    @Test
+    public void innerJoinWithOnIsKept() {
+        JPAQuery<MemberCard> query = queryFactory
+                .select(CARD)
+                .from(CARD)
+                .join(CARD.get("member", Member.class), member).on(member.age.goe(30));
+
+        assertThat(pagingService.countQuery(query).getMetadata().getJoins())
+                .extracting(JoinExpression::getType)
+                .containsExactly(JoinType.DEFAULT, JoinType.JOIN);
+    }
+
+    /**
+     * right join 은 조인 대상(회원) 쪽 row 가 남기 때문에 필수 연관관계라도 제거하지 않는다.
+     */
+    @Test
+    public void rightJoinIsKept() {
+        JPAQuery<MemberCard> query = queryFactory
+                .select(CARD)
+                .from(CARD)
+                .rightJoin(CARD.get("member", Member.class), member);
+
+        assertThat(pagingService.countQuery(query).getMetadata().getJoins())
+                .extracting(JoinExpression::getType)
+                .containsExactly(JoinType.DEFAULT, JoinType.RIGHTJOIN);
+    }
+
+    @Test
+    public void unrelatedEntityJoinIsKept() {
+        JPAQuery<Tuple> query = queryFactory
+                .select(member, team)
+                .from(member)
+                .leftJoin(team).on(member.username.eq(team.name));
+
+        assertThat(pagingService.count(query)).isEqualTo(4);
+        assertThat(lastSelect()).contains("left outer join team");
+    }
+
+    @Test
+    public void countSkippedWhenFirstPageIsNotFull() {
+        Page<Member> page = pagingService.fetchPage(
+                queryFactory.selectFrom(member).orderBy(member.username.desc()), PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(QueryCounter.current().getSelects()).hasSize(1);
+    }
+
+    @Test
+    public void countSkippedOnLastPage() {
+        Page<Member> page = pagingService.fetchPage(
+                queryFactory.selectFrom(member).orderBy(member.username.desc()), PageRequest.of(1, 3));
+
+        assertThat(page.getContent()).extracting("username").containsExactly("member1");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(QueryCounter.current().getSelects()).hasSize(1);
+    }
+
+    @Test
+    public void countExecutedWhenPageIsFull() {
+        Page<Member> page = pagingService.fetchPage(
+                queryFactory.selectFrom(member).orderBy(member.username.desc()), PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        assertThat(QueryCounter.current().getSelects()).hasSize(2);
+    }
+
+    @Test
+    public void groupByCount() {
+        JPAQuery<Tuple> query = queryFactory
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name);
+
+        assertThat(pagingService.count(query)).isEqualTo(2);
+        assertThat(QueryCounter.current().getSelects()).hasSize(1); // 그룹을 읽지 않고 count(distinct) 한 번
+        assertThat(lastSelect()).startsWith("select count(distinct");
+    }
+
+    /**
+     * 팀이 없는 회원은 team.name 이 null 인 그룹 하나가 된다.
+     */
+    @Test
+    public void groupByCountWithNullGroup() {
+        em.persist(new Member("member5", 50)); // 팀이 없는 회원
+        JPAQuery<Tuple> query = queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name);
+
+        assertThat(pagingService.count(query)).isEqualTo(query.fetch().size()).isEqualTo(3);
+    }
+
+    @Test
+    public void groupByUnsupported() {
+        assertThatThrownBy(() -> pagingService.count(queryFactory
+                .select(team.name, member.age)
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name, member.age)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pagingService.count(queryFactory
+                .select(team.name)
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .having(member.count().gt(1))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String lastSelect() {
+        List<String> selects = QueryCounter.current().getSelects();
+        return selects.get(selects.size() - 1);
+    }
+
+    /**
+     * 회원이 꼭 있어야 하는(optional = false) to-one 연관관계, 엔티티에는 없어서 count 쿼리를 만들기만 하고 실행하지 않는다.
+     */
+    static class MemberCard {
+
+        @ManyToOne(optional = false)
+        Member member;
+    }
+}
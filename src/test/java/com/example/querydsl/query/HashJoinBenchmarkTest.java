@@ -0,0 +1,158 @@
+package com.example.querydsl.query;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 100만 명 x 팀 1만 개, 회원 이름 = 팀 이름 조인 (1만 건이 짝이 있다)
+ * 1. 인덱스(idx_member_username, idx_team_name)가 있는 컬럼: SQL 세타 조인/외부 조인 vs HashJoin
+ * 2. 인덱스를 쓸 수 없는 조건(lower(username) = lower(name)): SQL 은 회원마다 팀 전체를 비교한다.
+ *    100만 명으로는 끝나지 않기 때문에 SQL 은 회원 1만 명만 조인하고, HashJoin 은 100만 명 전체를 조인한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class HashJoinBenchmarkTest {
+
+    static final int MEMBERS = 1_000_000;
+    static final int TEAMS = 10_000;
+    static final int NO_INDEX_MEMBERS = 10_000;
+    static final int RUNS = 3;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    TransactionTemplate readOnly;
+    Long firstMemberId;
+
+    @BeforeEach
+    public void before() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < TEAMS; i++) {
+                em.persist(new Team("name" + i * (MEMBERS / TEAMS)));
+            }
+        });
+        memberBulkInsertService.insertAllJdbc(() -> new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < MEMBERS;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                return new MemberImportRow("name" + i++, i % 100, null);
+            }
+        });
+        firstMemberId = readOnly.execute(status -> queryFactory.select(member.id.min()).from(member).fetchOne());
+    }
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void sqlJoinVsHashJoin() {
+        long inner = measure("sql theta join", () -> count(queryFactory
+                .select(member.id, team.id)
+                .from(member, team)
+                .where(member.username.eq(team.name))));
+        long hashInner = measure("hash inner join", () -> HashJoin.innerJoin(
+                queryFactory.select(member.id).from(member), member.username,
+                queryFactory.select(team.id).from(team), team.name).forEach(t -> {
+        }));
+        assertThat(hashInner).isEqualTo(inner).isEqualTo(TEAMS);
+
+        long outer = measure("sql left join", () -> count(queryFactory
+                .select(member.id, team.id)
+                .from(member)
+                .leftJoin(team).on(member.username.eq(team.name))));
+        long hashOuter = measure("hash left join", () -> HashJoin.leftJoin(
+                queryFactory.select(member.id).from(member), member.username,
+                queryFactory.select(team.id).from(team), team.name).forEach(t -> {
+        }));
+        assertThat(hashOuter).isEqualTo(outer).isEqualTo(MEMBERS);
+
+        Predicate firstMembers = member.id.lt(firstMemberId + NO_INDEX_MEMBERS);
+        measure("sql theta join, no index (" + NO_INDEX_MEMBERS + " members)", () -> count(queryFactory
+                .select(member.id, team.id)
+                .from(member, team)
+                .where(firstMembers, member.username.lower().eq(team.name.lower()))));
+        measure("hash inner join, no index (" + MEMBERS + " members)", () -> HashJoin.innerJoin(
+                queryFactory.select(member.id).from(member), member.username.lower(),
+                queryFactory.select(team.id).from(team), team.name.lower()).forEach(t -> {
+        }));
+    }
+
+    private long count(JPAQuery<Tuple> query) {
+        try (Stream<Tuple> rows = query.setHint(QueryHints.FETCH_SIZE, 1000).stream()) {
+            return rows.count();
+        }
+    }
+
+    /**
+     * 한 번 실행해서 데운 뒤 중앙값을 출력한다.
+     *
+     * @return 조인 결과 수
+     */
+    private long measure(String name, LongSupplier join) {
+        long rows = readOnly.execute(status -> join.getAsLong());
+        double[] millis = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            readOnly.execute(status -> join.getAsLong());
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-45s: p50 %9.1f ms (%d rows)%n", name, millis[RUNS / 2], rows);
+        return rows;
+    }
+}
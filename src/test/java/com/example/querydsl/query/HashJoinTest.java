@@ -0,0 +1,141 @@
+package com.example.querydsl.query;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * QuerydslBasicTest.theta_join, join_on_no_relation 과 같은 데이터로 SQL 조인 결과와 비교한다.
+ */
+@SpringBootTest
+@Transactional
+class HashJoinTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.persist(new Member("teamA"));
+        em.persist(new Member("teamB"));
+        em.persist(new Member("teamC"));
+        em.persist(new Member(null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void innerJoin_sameAsThetaJoin() {
+        List<Tuple> sql = queryFactory
+                .select(member, team)
+                .from(member, team)
+                .where(member.username.eq(team.name))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<Tuple> result = HashJoin.innerJoin(
+                queryFactory.selectFrom(member).orderBy(member.id.asc()), member.username,
+                queryFactory.selectFrom(team), team.name).fetch();
+
+        assertThat(result)
+                .extracting(t -> t.get(member).getUsername(), t -> t.get(team).getName())
+                .containsExactly(tuple("teamA", "teamA"), tuple("teamB", "teamB"));
+        assertThat(result).isEqualTo(sql);
+    }
+
+    @Test
+    public void leftJoin_sameAsJoinOnNoRelation() {
+        List<Tuple> sql = queryFactory
+                .select(member, team)
+                .from(member)
+                .leftJoin(team).on(member.username.eq(team.name))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<Tuple> result = HashJoin.leftJoin(
+                queryFactory.selectFrom(member).orderBy(member.id.asc()), member.username,
+                queryFactory.selectFrom(team), team.name).fetch();
+
+        assertThat(result).hasSize(8);
+        assertThat(result).isEqualTo(sql);
+        assertThat(result)
+                .filteredOn(t -> t.get(team) == null)
+                .extracting(t -> t.get(member).getUsername())
+                .containsExactly("member1", "member2", "member3", "member4", "teamC", null);
+    }
+
+    @Test
+    public void duplicateBuildKeys() {
+        em.persist(new Team("teamA"));
+        em.flush();
+
+        List<Tuple> result = HashJoin.innerJoin(
+                queryFactory.selectFrom(member).orderBy(member.id.asc()), member.username,
+                queryFactory.selectFrom(team).orderBy(team.id.asc()), team.name).fetch();
+
+        assertThat(result)
+                .extracting(t -> t.get(member).getUsername(), t -> t.get(team).getName())
+                .containsExactly(tuple("teamA", "teamA"), tuple("teamA", "teamA"), tuple("teamB", "teamB"));
+    }
+
+    /**
+     * 정수 키, Tuple 프로젝션은 안쪽 표현식으로 값을 꺼낸다.
+     */
+    @Test
+    public void longKeysWithTupleProjection() {
+        JPAQuery<Tuple> members = queryFactory
+                .select(Projections.tuple(member.username, member.age))
+                .from(member)
+                .where(member.team.isNotNull())
+                .orderBy(member.id.asc());
+        List<Tuple> result = HashJoin.innerJoin(
+                members, member.team.id,
+                queryFactory.select(team.name).from(team), team.id).fetch();
+
+        assertThat(result)
+                .extracting(t -> t.get(member.username), t -> t.get(member.age), t -> t.get(team.name))
+                .containsExactly(
+                        tuple("member1", 10, "teamA"),
+                        tuple("member2", 20, "teamA"),
+                        tuple("member3", 30, "teamB"),
+                        tuple("member4", 40, "teamB"));
+    }
+
+    @Test
+    public void forEachWithoutList() {
+        long count = HashJoin.leftJoin(
+                queryFactory.select(member.id).from(member), member.username,
+                queryFactory.select(team.id).from(team), team.name).forEach(t -> assertThat(t.get(member.id)).isNotNull());
+
+        assertThat(count).isEqualTo(8);
+    }
+}
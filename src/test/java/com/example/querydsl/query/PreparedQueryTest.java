@@ -0,0 +1,107 @@
+package com.example.querydsl.query;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ParamNotSetException;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class PreparedQueryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    Param<String> username = new Param<>(String.class, "username");
+    Param<Integer> age = new Param<>(Integer.class, "age");
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void bindParams() {
+        PreparedQuery<Member> query = PreparedQuery.of(em, queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username), member.age.eq(age)));
+
+        assertThat(query.bind(username, "member1").bind(age, 10).fetchOne().getUsername()).isEqualTo("member1");
+        assertThat(query.bind(username, "member2").bind(age, 20).fetchOne().getUsername()).isEqualTo("member2");
+        assertThat(query.bind(username, "member1").bind(age, 20).fetchOne()).isNull();
+    }
+
+    /**
+     * 상수(teamA)는 만들 때 값이 고정되고, Param 만 실행할 때 바인딩한다.
+     */
+    @Test
+    public void constantsAndModifiers() {
+        PreparedQuery<Member> query = PreparedQuery.of(em, queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamA"), member.age.goe(age))
+                .orderBy(member.age.desc())
+                .limit(1));
+
+        assertThat(query.bind(age, 0).fetch()).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    public void projections() {
+        PreparedQuery<Tuple> stats = PreparedQuery.of(em, queryFactory
+                .select(team.name, member.age.sum())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc()));
+
+        assertThat(stats.fetch()).extracting(t -> t.get(team.name), t -> t.get(member.age.sum()))
+                .containsExactly(tuple("teamA", 30), tuple("teamB", 70));
+
+        List<MemberTeamDto> dtos = memberQueryRepository.findMemberTeamsByUsername("member3");
+        assertThat(dtos).extracting("username", "teamName").containsExactly(tuple("member3", "teamB"));
+    }
+
+    @Test
+    public void unboundParam() {
+        PreparedQuery<Member> query = PreparedQuery.of(em, queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username)));
+
+        assertThatThrownBy(query::fetch).isInstanceOf(ParamNotSetException.class);
+    }
+}
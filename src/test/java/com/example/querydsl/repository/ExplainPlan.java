@@ -0,0 +1,81 @@
+package com.example.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Querydsl 쿼리를 SQL 로 바꿔서 H2 EXPLAIN 으로 실행 계획을 확인한다.
+ *
+ * H2 는 prepare 할 때 인덱스를 고르기 때문에 파라미터는 모두 null 로 바인딩해도 계획이 같다.
+ * 계획의 테이블마다 붙는 주석으로 접근 방법을 알 수 있다.
+ * - PUBLIC.IDX_MEMBER_AGE: AGE >= ?1  인덱스 조건으로 찾는다.
+ * - PUBLIC.MEMBER.tableScan           테이블 전체를 읽는다.
+ * - PUBLIC.PRIMARY_KEY_8              조건 없이 인덱스 전체를 읽는다. (전체 스캔과 같다)
+ */
+final class ExplainPlan {
+
+    private static final Pattern ACCESS = Pattern.compile("/\\* (PUBLIC\\.[\\w.]+)(: [^*]*)? \\*/");
+
+    private ExplainPlan() {
+    }
+
+    static List<String> sql(EntityManager em, JPAQuery<?> query) {
+        String hql = query.createQuery().unwrap(org.hibernate.query.Query.class).getQueryString();
+        String[] sql = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getQueryPlanCache()
+                .getHQLQueryPlan(hql, false, Collections.emptyMap())
+                .getSqlStrings();
+        return List.of(sql);
+    }
+
+    static List<String> explain(EntityManager em, JPAQuery<?> query) {
+        List<String> plans = new ArrayList<>();
+        for (String sql : sql(em, query)) {
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+                    int parameters = ps.getParameterMetaData().getParameterCount();
+                    for (int i = 1; i <= parameters; i++) {
+                        ps.setObject(i, null);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            plans.add(rs.getString(1));
+                        }
+                    }
+                }
+            });
+        }
+        return plans;
+    }
+
+    /**
+     * 조건 없이 테이블이나 인덱스 전체를 읽는 부분이 있으면 실패한다.
+     */
+    static void assertNoFullScan(EntityManager em, JPAQuery<?> query) {
+        for (String plan : explain(em, query)) {
+            Matcher matcher = ACCESS.matcher(plan);
+            List<String> fullScans = new ArrayList<>();
+            int accesses = 0;
+            while (matcher.find()) {
+                accesses++;
+                if (matcher.group(2) == null) {
+                    fullScans.add(matcher.group(1));
+                }
+            }
+            assertThat(accesses).as("실행 계획에서 테이블 접근 방법을 찾을 수 없습니다.\n%s", plan).isPositive();
+            assertThat(fullScans).as("전체 스캔이 있습니다.\n%s", plan).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 엔티티 조회 vs DTO 프로젝션 (10만 건), 할당된 힙 크기와 지연 시간
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberQueryRepositoryBenchmarkTest {
+
+    static final int ROWS = 100_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Test
+    public void entityVsDto() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team[] teams = new Team[10];
+            for (int i = 0; i < teams.length; i++) {
+                teams[i] = new Team("benchTeam" + i);
+                em.persist(teams[i]);
+            }
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("bench" + i, i % 100, em.getReference(Team.class, teams[i % teams.length].getId())));
+                if (i % 1_000 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            // 측정이 끝나면 롤백한다.
+            status.setRollbackOnly();
+            em.flush();
+            em.clear();
+
+            // 엔티티는 트랜잭션(영속성 컨텍스트)이 끝나야 메모리에서 사라지기 때문에 조회 + flush 까지 측정한다.
+            measure("entity fetch", ROWS, () -> {
+                List<Member> members = em.createQuery(
+                        "select m from Member m left join fetch m.team where m.username like 'bench%'", Member.class)
+                        .getResultList();
+                em.flush();
+                em.clear();
+                return members;
+            });
+            measure("entity read-only", ROWS, () -> {
+                List<Member> members = memberQueryRepository.findMembersReadOnly(member.username.startsWith("bench"));
+                em.flush();
+                em.clear();
+                return members;
+            });
+            measure("dto projection", ROWS, () -> {
+                List<MemberTeamDto> dtos = memberQueryRepository.findMemberTeams(member.username.startsWith("bench"));
+                em.flush();
+                return dtos;
+            });
+        });
+    }
+
+    private void measure(String name, int expectedRows, Supplier<List<?>> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 3; i++) { // warm up
+            assertThat(query.get()).hasSize(expectedRows);
+        }
+        int runs = 5;
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        System.out.printf("%-18s: %8.1f ms, %8.1f MB allocated%n",
+                name, elapsed / 1_000_000.0 / runs, allocated / 1024.0 / 1024.0 / runs);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void findMemberTeams() {
+        List<MemberTeamDto> result = memberQueryRepository.findMemberTeams(member.age.goe(30));
+
+        assertThat(result).extracting("username", "age", "teamName")
+                .containsExactlyInAnyOrder(
+                        tuple("member3", 30, "teamB"),
+                        tuple("member4", 40, "teamB"),
+                        tuple("member5", 50, null));
+        // DTO 조회는 영속성 컨텍스트에 엔티티를 올리지 않는다.
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void readOnlyEntitiesAreNotDirtyChecked() {
+        List<Member> result = memberQueryRepository.findMembersReadOnly(member.username.eq("member1"));
+        Member member1 = result.get(0);
+        member1.setAge(99);
+        em.flush();
+        em.clear();
+
+        assertThat(em.find(Member.class, member1.getId()).getAge()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSearchCondition.Sort;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberSearchRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchRepository memberSearchRepository;
+
+    /**
+     * 실행 계획이 실제 데이터 분포와 비슷하도록 팀 20개, 회원 2000명을 넣는다. (나이 0~99)
+     * 검색 대상: member1~4 (teamA, teamB), member5 (팀 없음)
+     */
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+
+        for (int i = 0; i < 20; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            for (int j = 0; j < 100; j++) {
+                em.persist(new Member("user" + i + "_" + j, j, t));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        Page<MemberTeamDto> result = memberSearchRepository.search(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting("username", "age", "teamName")
+                .containsExactly(tuple("member4", 40, "teamB"), tuple("member3", 30, "teamB"));
+    }
+
+    /**
+     * 팀 조건이 없으면 조인하지 않고, 팀 이름은 따로 채운다.
+     */
+    @Test
+    public void searchWithoutTeamJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(ExplainPlan.sql(em, memberSearchRepository.contentQuery(condition)))
+                .allSatisfy(sql -> assertThat(sql).doesNotContain(" join "));
+        assertThat(memberSearchRepository.search(condition, PageRequest.of(0, 10)).getContent())
+                .extracting("username", "teamName")
+                .containsExactly(tuple("member1", "teamA"));
+    }
+
+    /**
+     * 팀 이름 정렬은 팀이 없는 회원도 나오도록 left join 한다.
+     */
+    @Test
+    public void sortByTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(50);
+        condition.setAgeLoe(50);
+        condition.setSort(Sort.TEAM_NAME);
+
+        Page<MemberTeamDto> result = memberSearchRepository.search(condition, PageRequest.of(0, 30));
+
+        assertThat(result.getTotalElements()).isEqualTo(21);
+        assertThat(result.getContent().get(0).getTeamName()).isEqualTo("team0");
+        assertThat(result.getContent().get(20).getTeamName()).isNull();
+    }
+
+    /**
+     * 검색 조건 조합마다 전체 스캔이 없어야 한다.
+     */
+    @Test
+    public void plansUseIndexes() {
+        assertNoFullScan("member1", null, null, null, Sort.ID_DESC);
+        assertNoFullScan(null, 20, 30, null, Sort.ID_DESC);
+        assertNoFullScan(null, 20, null, null, Sort.USERNAME);
+        assertNoFullScan(null, null, 30, null, Sort.AGE);
+        assertNoFullScan(null, null, null, "teamA", Sort.ID_DESC);
+        assertNoFullScan("member1", 10, 20, "teamA", Sort.TEAM_NAME);
+    }
+
+    private void assertNoFullScan(String username, Integer ageGoe, Integer ageLoe, String teamName, Sort sort) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        condition.setTeamName(teamName);
+        condition.setSort(sort);
+        ExplainPlan.assertNoFullScan(em, memberSearchRepository.contentQuery(condition));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.TeamAgeStatsDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitor.QueryCounter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 2차 캐시, 쿼리 캐시는 커밋된 데이터만 저장하기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void teamEntityCache() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamAId)); // 캐시에 올린다.
+
+        QueryCounter.start();
+        String name = tx.execute(status -> em.find(Member.class, member1Id).getTeam().getName());
+
+        assertThat(name).isEqualTo("teamA");
+        // 회원 조회 1번, 팀은 캐시에서 꺼낸다.
+        assertThat(QueryCounter.stop().getSelectCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", Team.class.getName()).tag("result", "hit")
+                .functionCounter().count()).isGreaterThan(0);
+    }
+
+    @Test
+    public void findByName() {
+        teamQueryRepository.findByName("teamA");
+
+        QueryCounter.start();
+        Team teamA = teamQueryRepository.findByName("teamA");
+
+        assertThat(teamA.getId()).isEqualTo(teamAId);
+        assertThat(QueryCounter.stop().getSelectCount()).isZero();
+    }
+
+    /**
+     * 회원이 팀을 옮기면 member 테이블이 수정되기 때문에 팀별 통계 캐시가 무효화된다.
+     */
+    @Test
+    public void ageStatsInvalidatedWhenMemberChangesTeam() {
+        teamQueryRepository.findAgeStats();
+
+        QueryCounter.start();
+        List<TeamAgeStatsDto> warm = teamQueryRepository.findAgeStats();
+        assertThat(QueryCounter.stop().getSelectCount()).isZero();
+        assertThat(warm).extracting("teamName", "count", "avg")
+                .containsExactly(tuple("teamA", 2L, 15.0), tuple("teamB", 2L, 35.0));
+
+        tx.executeWithoutResult(status ->
+                em.find(Member.class, member1Id).setTeam(em.getReference(Team.class, teamBId)));
+
+        QueryCounter.start();
+        List<TeamAgeStatsDto> changed = teamQueryRepository.findAgeStats();
+        assertThat(QueryCounter.stop().getSelectCount()).isEqualTo(1);
+        assertThat(changed).extracting("teamName", "count", "min")
+                .containsExactly(tuple("teamA", 1L, 20), tuple("teamB", 3L, 10));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.querydsl.routing;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 메모리 H2 끼리의 복제 흉내, 주 DB 의 SCRIPT(스키마 + 데이터)를 레플리카에서 다시 실행한다.
+ * 레플리카에는 복제 지연(초)을 저장하는 replica_lag 테이블도 만든다.
+ */
+final class H2Replication {
+
+    private H2Replication() {
+    }
+
+    static void copy(String primaryUrl, String replicaUrl) {
+        try (Connection primary = DriverManager.getConnection(primaryUrl, "sa", "");
+             Connection replica = DriverManager.getConnection(replicaUrl, "sa", "");
+             Statement script = primary.createStatement();
+             Statement target = replica.createStatement()) {
+            target.execute("drop all objects");
+            try (ResultSet rs = script.executeQuery("script")) {
+                while (rs.next()) {
+                    target.execute(rs.getString(1));
+                }
+            }
+            target.execute("create table replica_lag(lag_seconds double)");
+            target.execute("insert into replica_lag values (0)");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void setLag(String replicaUrl, double seconds) {
+        try (Connection replica = DriverManager.getConnection(replicaUrl, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.executeUpdate("update replica_lag set lag_seconds = " + seconds);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
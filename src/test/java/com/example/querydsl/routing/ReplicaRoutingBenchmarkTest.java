@@ -0,0 +1,96 @@
+package com.example.querydsl.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레플리카 수(0, 1, 2, 4)별 읽기 처리량 (queries/s)
+ *
+ * DB 마다 커넥션 풀을 2개로 제한하고 16개 스레드가 읽기 전용 트랜잭션으로 팀별 평균 나이를 조회한다.
+ * 레플리카가 늘어나면 동시에 실행할 수 있는 쿼리 수가 늘어난다.
+ * 참고: 메모리 H2 는 같은 JVM 의 CPU 를 나눠 쓰기 때문에 코어 수 이상으로는 늘지 않는다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class ReplicaRoutingBenchmarkTest {
+
+    static final int ROWS = 200_000;
+    static final int THREADS = 16;
+    static final int POOL_SIZE = 2;
+    static final long MILLIS = 3_000;
+
+    @Test
+    public void readThroughputByReplicaCount() throws Exception {
+        for (int replicas : new int[]{0, 1, 2, 4}) {
+            measure(replicas);
+        }
+    }
+
+    private void measure(int replicaCount) throws Exception {
+        String primaryUrl = "jdbc:h2:mem:bench-primary-" + replicaCount + ";DB_CLOSE_DELAY=-1";
+        HikariDataSource primary = pool(primaryUrl);
+        new JdbcTemplate(primary).execute("create table member(id bigint primary key, age int, team_id bigint)");
+        new JdbcTemplate(primary).update("insert into member select x, mod(x, 100), mod(x, 50) from system_range(1, " + ROWS + ")");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaCount; i++) {
+            String replicaUrl = "jdbc:h2:mem:bench-replica-" + replicaCount + "-" + i + ";DB_CLOSE_DELAY=-1";
+            H2Replication.copy(primaryUrl, replicaUrl);
+            replicas.add(pool(replicaUrl));
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary, replicas, ReplicaRoutingDataSource.Balance.LEAST_LOADED, null, null);
+        try {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            readOnly.setReadOnly(true);
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            long deadline = System.currentTimeMillis() + MILLIS;
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                counts.add(executor.submit(() -> {
+                    long count = 0;
+                    while (System.currentTimeMillis() < deadline) {
+                        readOnly.execute(status -> jdbcTemplate.queryForList(
+                                "select team_id, avg(age) from member group by team_id"));
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> count : counts) {
+                total += count.get();
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            System.out.printf("replicas %d: %,8.0f queries/s%n", replicaCount, total * 1000.0 / MILLIS);
+        } finally {
+            routing.close();
+        }
+    }
+
+    private HikariDataSource pool(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        return dataSource;
+    }
+}
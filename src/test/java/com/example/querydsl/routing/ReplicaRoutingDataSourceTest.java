@@ -0,0 +1,141 @@
+package com.example.querydsl.routing;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Set;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 주 DB 하나, 레플리카 두 개를 각각 메모리 H2 로 띄운다.
+ * 복제는 H2Replication.copy() 를 호출할 때만 일어나기 때문에, 새로 넣은 회원이 보이는지로 어느 DB 에서 읽었는지 알 수 있다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY,
+        "querydsl.routing.enabled=true",
+        "querydsl.routing.replicas[0].url=" + ReplicaRoutingDataSourceTest.REPLICA0,
+        "querydsl.routing.replicas[0].username=sa",
+        "querydsl.routing.replicas[1].url=" + ReplicaRoutingDataSourceTest.REPLICA1,
+        "querydsl.routing.replicas[1].username=sa",
+        "querydsl.routing.lag-query=select lag_seconds from replica_lag",
+        "querydsl.routing.lag-check-interval=1h"}) // 지연은 테스트에서 refreshHealth() 로 확인한다.
+class ReplicaRoutingDataSourceTest {
+
+    static final String PRIMARY = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA0 = "jdbc:h2:mem:routing-replica0;DB_CLOSE_DELAY=-1";
+    static final String REPLICA1 = "jdbc:h2:mem:routing-replica1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    TransactionTemplate tx;
+    TransactionTemplate readOnly;
+    ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void before() throws SQLException {
+        tx = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+        H2Replication.copy(PRIMARY, REPLICA0);
+        H2Replication.copy(PRIMARY, REPLICA1);
+        routing.refreshHealth();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    /**
+     * 아직 복제되지 않은 회원은 읽기 전용 트랜잭션(레플리카)에서 보이지 않는다.
+     */
+    @Test
+    public void readOnlyTransactionReadsReplica() {
+        insertMember("member3");
+
+        Long replicaCount = readOnly.execute(status -> count());
+        Long primaryCount = tx.execute(status -> count());
+
+        assertThat(memberQueryRepository.countMembers(null)).isEqualTo(2);
+        assertThat(replicaCount).isEqualTo(2);
+        assertThat(primaryCount).isEqualTo(3);
+    }
+
+    @Test
+    public void roundRobin() {
+        insertMember("member3");
+        H2Replication.copy(PRIMARY, REPLICA0);
+
+        Long first = readOnly.execute(status -> count());
+        Long second = readOnly.execute(status -> count());
+
+        assertThat(Set.of(first, second)).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    /**
+     * 모든 레플리카의 복제 지연이 max-lag 를 넘으면 주 DB 에서 읽는다.
+     */
+    @Test
+    public void fallsBackToPrimaryWhenReplicasLag() {
+        insertMember("member3");
+        H2Replication.setLag(REPLICA0, 60);
+        H2Replication.setLag(REPLICA1, 60);
+        routing.refreshHealth();
+
+        Long lagging = readOnly.execute(status -> count());
+        assertThat(lagging).isEqualTo(3);
+
+        H2Replication.setLag(REPLICA0, 0);
+        routing.refreshHealth();
+
+        Long recovered = readOnly.execute(status -> count());
+        assertThat(recovered).isEqualTo(2);
+    }
+
+    private void insertMember(String username) {
+        tx.executeWithoutResult(status -> em.persist(new Member(username, 30)));
+    }
+
+    private Long count() {
+        return queryFactory.select(member.count()).from(member).fetchOne();
+    }
+}
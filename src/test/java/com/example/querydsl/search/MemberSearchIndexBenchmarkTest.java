@@ -0,0 +1,142 @@
+package com.example.querydsl.search;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 100만 건, 이름 앞부분/부분 일치 검색 100건: like vs MemberSearchIndex (id 를 찾은 뒤 회원 테이블과 다시 조인)
+ * - like 'x%': idx_member_username 범위 검색
+ * - lower(username) like 'x%', like '%x%': 회원 전체를 읽는다.
+ *
+ * 벤치마크 태스크 힙(512m)에 메모리 DB 와 색인이 같이 올라가야 해서 100만 건으로 측정한다.
+ * 500만 건은 ROWS 를 바꾸고 maxHeapSize 를 2g 이상으로 늘려서 실행한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberSearchIndexBenchmarkTest {
+
+    static final int ROWS = 1_000_000;
+    static final int QUERIES = 20;
+    static final int LIMIT = 100;
+    static final int RUNS = 5;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    TransactionTemplate readOnly;
+    List<String> prefixes = new ArrayList<>();
+    List<String> infixes = new ArrayList<>();
+
+    /**
+     * 이름은 영문 소문자, 숫자 8~12글자, 검색어는 실제 이름에서 앞 4글자(앞부분 일치), 가운데 4글자(부분 일치)를 뽑는다.
+     */
+    @BeforeEach
+    public void before() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Random random = new Random(42);
+        memberBulkInsertService.insertAllJdbc(() -> new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < ROWS;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                char[] name = new char[8 + random.nextInt(5)];
+                for (int c = 0; c < name.length; c++) {
+                    name[c] = Character.forDigit(random.nextInt(36), 36);
+                }
+                String username = new String(name);
+                if (i++ % (ROWS / QUERIES) == 0) {
+                    prefixes.add(username.substring(0, 4));
+                    infixes.add(username.substring(3, 7));
+                }
+                return new MemberImportRow(username, i % 100, null);
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queryFactory.delete(member).execute());
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void likeVsIndex() {
+        System.out.println("indexed usernames: " + memberSearchIndex.findMemberIds("", TextMatch.PREFIX, Integer.MAX_VALUE).size());
+
+        measure("like 'x%'", prefixes, q -> findIds(member.username.startsWith(q)));
+        measure("lower() like 'x%'", prefixes, q -> findIds(member.username.startsWithIgnoreCase(q)));
+        measure("index prefix", prefixes, q -> findIds(member.id.in(memberSearchIndex.findMemberIds(q, TextMatch.PREFIX, LIMIT))));
+        measure("like '%x%'", infixes, q -> findIds(member.username.contains(q)));
+        measure("index contains", infixes, q -> findIds(member.id.in(memberSearchIndex.findMemberIds(q, TextMatch.CONTAINS, LIMIT))));
+
+        // 이름이 모두 소문자라서 like 와 결과가 같다.
+        for (String q : infixes) {
+            assertThat(findIds(member.id.in(memberSearchIndex.findMemberIds(q, TextMatch.CONTAINS, LIMIT))))
+                    .isEqualTo(findIds(member.username.contains(q)));
+        }
+    }
+
+    private List<Long> findIds(Predicate condition) {
+        return readOnly.execute(status -> queryFactory
+                .select(member.id)
+                .from(member)
+                .where(condition)
+                .orderBy(member.id.asc())
+                .limit(LIMIT)
+                .fetch());
+    }
+
+    /**
+     * 검색어마다 한 번씩 실행해서 데운 뒤, 검색어 하나당 지연 시간의 중앙값을 출력한다.
+     */
+    private void measure(String name, List<String> queries, Function<String, List<Long>> search) {
+        queries.forEach(search::apply);
+        double[] millis = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            queries.forEach(search::apply);
+            millis[i] = (System.nanoTime() - start) / 1e6 / queries.size();
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-18s: p50 %8.3f ms%n", name, millis[RUNS / 2]);
+    }
+}
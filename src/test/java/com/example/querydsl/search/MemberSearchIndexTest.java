@@ -0,0 +1,198 @@
+package com.example.querydsl.search;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.example.querydsl.service.MemberBulkMutationService;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 색인은 커밋된 변경만 반영하기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class MemberSearchIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberBulkMutationService memberBulkMutationService;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long member1Id;
+    Long member2Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        memberSearchIndex.rebuild(); // 다른 테스트가 벌크 삭제로 남긴 이름을 정리한다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("Member2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(new Member("user_member3", 30, teamB));
+            em.persist(new Member(null, 40, teamB));
+
+            teamAId = teamA.getId();
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    /**
+     * like 와 같은 결과, 대소문자는 구분하지 않는다.
+     */
+    @Test
+    public void sameAsLike() {
+        assertThat(findUsernames(memberSearchIndex.username("member", TextMatch.PREFIX)))
+                .containsExactly("member1", "Member2");
+        assertThat(findUsernames(memberSearchIndex.username("member", TextMatch.CONTAINS)))
+                .containsExactlyElementsOf(findUsernames(member.username.containsIgnoreCase("member")));
+        assertThat(findUsernames(memberSearchIndex.username("ber3", TextMatch.CONTAINS)))
+                .containsExactly("user_member3");
+        assertThat(findUsernames(memberSearchIndex.username("nobody", TextMatch.CONTAINS))).isEmpty();
+    }
+
+    /**
+     * 팀 이름으로 찾은 팀 id 로 회원을 조회한다. (팀을 조인하지 않는다)
+     */
+    @Test
+    public void teamName() {
+        assertThat(memberSearchIndex.findTeamIds("teama", TextMatch.PREFIX, 10)).containsExactly(teamAId);
+        assertThat(findUsernames(memberSearchIndex.teamName("mA", TextMatch.CONTAINS)))
+                .containsExactly("member1", "Member2");
+    }
+
+    /**
+     * 이름을 바꾸면 커밋한 뒤에는 이전 이름으로 검색되지 않는다.
+     */
+    @Test
+    public void rename() {
+        tx.executeWithoutResult(status -> em.find(Member.class, member1Id).setUsername("renamed1"));
+
+        assertThat(memberSearchIndex.findMemberIds("member1", TextMatch.PREFIX, 10)).isEmpty();
+        assertThat(memberSearchIndex.findMemberIds("renamed", TextMatch.PREFIX, 10)).containsExactly(member1Id);
+    }
+
+    /**
+     * 롤백한 변경은 색인에 반영하지 않는다.
+     */
+    @Test
+    public void rollback() {
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, member1Id).setUsername("renamed1");
+            em.persist(new Member("rolledBack", 50));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberSearchIndex.findMemberIds("member1", TextMatch.PREFIX, 10)).containsExactly(member1Id);
+        assertThat(memberSearchIndex.findMemberIds("renamed", TextMatch.CONTAINS, 10)).isEmpty();
+        assertThat(memberSearchIndex.findMemberIds("rolled", TextMatch.PREFIX, 10)).isEmpty();
+    }
+
+    @Test
+    public void delete() {
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member2Id)));
+
+        assertThat(memberSearchIndex.findMemberIds("member", TextMatch.CONTAINS, 10))
+                .doesNotContain(member2Id)
+                .hasSize(2);
+    }
+
+    /**
+     * JDBC insert 는 이벤트가 발생하지 않기 때문에 커밋한 뒤 색인을 다시 만든다.
+     */
+    @Test
+    public void jdbcInsert() {
+        memberBulkInsertService.insertAllJdbc(List.of(new MemberImportRow("imported1", 60, teamAId)));
+
+        assertThat(findUsernames(memberSearchIndex.username("port", TextMatch.CONTAINS))).containsExactly("imported1");
+    }
+
+    /**
+     * 찾은 회원이 많으면 in 절 대신 like 로 조회한다. 결과는 같다.
+     */
+    @Test
+    public void tooManyIds() {
+        int count = MemberSearchIndex.IN_LIST_LIMIT + 1;
+        memberBulkInsertService.insertAllJdbc(IntStream.range(0, count)
+                .mapToObj(i -> new MemberImportRow("many" + i, i % 100, teamAId))
+                .toList());
+
+        BooleanExpression many = memberSearchIndex.username("MANY", TextMatch.PREFIX);
+        assertThat(((Operation<?>) many).getOperator()).isEqualTo(Ops.STARTS_WITH_IC);
+        assertThat(findUsernames(many)).hasSize(count);
+        assertThat(((Operation<?>) memberSearchIndex.username("many1", TextMatch.PREFIX)).getOperator()).isEqualTo(Ops.IN);
+    }
+
+    /**
+     * 벌크 update/delete 도 이벤트가 발생하지 않기 때문에 커밋한 뒤 색인을 맞춘다.
+     */
+    @Test
+    public void bulkRenameAndDelete() {
+        tx.executeWithoutResult(status -> memberBulkMutationService.update(member.id.eq(member1Id),
+                update -> update.set(member.username, "bulk1")));
+        tx.executeWithoutResult(status -> memberBulkMutationService.delete(member.id.eq(member2Id)));
+
+        assertThat(memberSearchIndex.findMemberIds("member1", TextMatch.PREFIX, 10)).isEmpty();
+        assertThat(memberSearchIndex.findMemberIds("bulk", TextMatch.PREFIX, 10)).containsExactly(member1Id);
+        assertThat(memberSearchIndex.findMemberIds("member2", TextMatch.PREFIX, 10)).isEmpty();
+    }
+
+    private List<String> findUsernames(Predicate condition) {
+        return tx.execute(status -> queryFactory
+                .select(member.username)
+                .from(member)
+                .where(condition)
+                .orderBy(member.id.asc())
+                .fetch());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.querydsl.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NgramIndexTest {
+
+    @Test
+    public void prefixAndInfix() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "member1");
+        index.put(2, "Member12");
+        index.put(3, "team_member");
+        index.put(4, "me");
+
+        assertThat(index.startsWith("mem", 10)).containsExactly(1, 2);
+        assertThat(index.startsWith("MEMBER1", 10)).containsExactly(1, 2); // 대소문자 구분 없음
+        assertThat(index.contains("member", 10)).containsExactly(1, 2, 3);
+        assertThat(index.contains("ber12", 10)).containsExactly(2);
+        assertThat(index.contains("xyz", 10)).isEmpty();
+    }
+
+    /**
+     * trigram 이 없는 짧은 검색어는 전체를 훑는다.
+     */
+    @Test
+    public void shortQuery() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "member1");
+        index.put(2, "team");
+        index.put(3, "me");
+
+        assertThat(index.startsWith("m", 10)).containsExactly(1, 3);
+        assertThat(index.contains("me", 10)).containsExactly(1, 3);
+        assertThat(index.contains("", 2)).containsExactly(1, 2);
+    }
+
+    /**
+     * 이름을 바꾼 문서는 뒤에 다시 추가되지만 결과는 id 순서로 limit 개를 돌려준다.
+     */
+    @Test
+    public void updateKeepsIdOrder() {
+        NgramIndex index = new NgramIndex();
+        for (int i = 1; i <= 5; i++) {
+            index.put(i, "member" + i);
+        }
+        index.put(2, "renamed2");
+        index.put(1, "member1_renamed");
+
+        assertThat(index.contains("member", 3)).containsExactly(1, 3, 4);
+        assertThat(index.startsWith("member2", 10)).isEmpty();
+        assertThat(index.startsWith("renamed", 10)).containsExactly(2);
+
+        index.remove(3);
+        index.put(4, null);
+        assertThat(index.contains("member", 10)).containsExactly(1, 5);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    /**
+     * 지운 문서가 절반을 넘으면 다시 색인해도 결과가 같다.
+     */
+    @Test
+    public void compaction() {
+        NgramIndex index = new NgramIndex();
+        for (int i = 0; i < 10_000; i++) {
+            index.put(i, "user" + i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            index.remove(i);
+        }
+        for (int i = 1; i < 10_000; i += 4) {
+            index.put(i, "renamed" + i);
+        }
+
+        assertThat(index.size()).isEqualTo(5_000);
+        assertThat(index.startsWith("user1", 3)).containsExactly(11, 15, 19);
+        assertThat(index.contains("amed99", 10)).containsExactly(993, 997, 9901, 9905, 9909, 9913, 9917, 9921, 9925, 9929);
+        assertThat(index.contains("user9999", 10)).containsExactly(9999);
+    }
+}
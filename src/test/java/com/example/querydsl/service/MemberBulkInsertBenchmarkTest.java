@@ -0,0 +1,91 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * 회원 100만 건 insert 처리량 (rows/s)
+ * - 기존 방식: before() 처럼 한 건씩 persist, 한 건마다 insert 가 실행된다. (오래 걸려서 10만 건으로 측정)
+ * - persistAll: pooled 시퀀스 + JDBC batch + 주기적인 flush/clear
+ * - insertAllJdbc: JdbcTemplate batchUpdate
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberBulkInsertBenchmarkTest {
+
+    static final int ROWS = 1_000_000;
+    static final int BASELINE_ROWS = 100_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Test
+    public void rowsPerSecond() {
+        measure("persist loop", BASELINE_ROWS, rows -> {
+            long count = 0;
+            for (MemberImportRow row : rows) {
+                Member member = new Member(row.getUsername(), row.getAge());
+                member.setTeam(em.getReference(Team.class, row.getTeamId()));
+                em.persist(member);
+                em.flush(); // 배치 없이 한 건씩 insert
+                em.detach(member);
+                count++;
+            }
+            return count;
+        });
+        measure("persistAll", ROWS, memberBulkInsertService::persistAll);
+        measure("insertAllJdbc", ROWS, memberBulkInsertService::insertAllJdbc);
+    }
+
+    private void measure(String name, int size, ToLongFunction<Iterable<MemberImportRow>> insert) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            Team team = new Team("bulkTeam");
+            em.persist(team);
+            em.flush();
+
+            long start = System.nanoTime();
+            long count = insert.applyAsLong(() -> rows(size, team.getId()));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-14s: %,9d rows in %6.1f s = %,10.0f rows/s%n", name, count, seconds, count / seconds);
+        });
+    }
+
+    private Iterator<MemberImportRow> rows(int size, Long teamId) {
+        return new Iterator<>() {
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public MemberImportRow next() {
+                i++;
+                return new MemberImportRow("bulk" + i, i % 100, teamId);
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitor.QueryCount;
+import com.example.querydsl.monitor.QueryCounter;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkInsertServiceTest {
+
+    static final int ROWS = 2_500;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    Team teamA;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        em.persist(teamA);
+        em.flush();
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+    }
+
+    @Test
+    public void persistAll() {
+        QueryCounter.start();
+        long count = memberBulkInsertService.persistAll(rows("bulk"));
+        QueryCount queryCount = QueryCounter.stop();
+
+        assertThat(count).isEqualTo(ROWS);
+        assertInserted("bulk");
+        // 1000건씩 batch 로 실행되기 때문에 insert 문은 3번만 준비된다. 시퀀스는 50건마다 한 번 조회한다.
+        assertThat(countOf(queryCount, "insert into member")).isLessThanOrEqualTo(3);
+        assertThat(countOf(queryCount, "next value for member_seq")).isLessThanOrEqualTo(ROWS / 50 + 1);
+    }
+
+    @Test
+    public void insertAllJdbc() {
+        long count = memberBulkInsertService.insertAllJdbc(rows("jdbc"));
+
+        assertThat(count).isEqualTo(ROWS);
+        assertInserted("jdbc");
+    }
+
+    @Test
+    public void jdbcAndJpaIdsDoNotCollide() {
+        memberBulkInsertService.insertAllJdbc(rows("jdbc"));
+        memberBulkInsertService.persistAll(rows("bulk"));
+
+        Long distinctIds = queryFactory.select(member.id.countDistinct()).from(member).fetchOne();
+        Long members = queryFactory.select(member.count()).from(member).fetchOne();
+        assertThat(distinctIds).isEqualTo(members);
+    }
+
+    private List<MemberImportRow> rows(String prefix) {
+        return IntStream.range(0, ROWS)
+                .mapToObj(i -> new MemberImportRow(prefix + i, i % 100, i % 2 == 0 ? teamA.getId() : null))
+                .collect(Collectors.toList());
+    }
+
+    private void assertInserted(String prefix) {
+        List<Tuple> result = queryFactory
+                .select(member.count(), team.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith(prefix))
+                .fetch();
+        assertThat(result.get(0).get(member.count())).isEqualTo(ROWS);
+        assertThat(result.get(0).get(team.count())).isEqualTo(ROWS / 2);
+    }
+
+    private int countOf(QueryCount queryCount, String fragment) {
+        return queryCount.getShapes().entrySet().stream()
+                .filter(e -> e.getKey().contains(fragment))
+                .mapToInt(e -> e.getValue())
+                .sum();
+    }
+}
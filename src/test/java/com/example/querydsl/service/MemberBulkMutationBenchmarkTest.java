@@ -0,0 +1,97 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 나이가 30 이상인 회원의 나이 + 1 (20만 건 중 14만 건)
+ * - 엔티티 조회 후 setter: 변경 감지로 한 건씩 update (JDBC batch 는 적용된다)
+ * - 벌크 update 한 번
+ * - 벌크 update 를 id 범위로 나눠서 범위마다 커밋
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberBulkMutationBenchmarkTest {
+
+    static final int ROWS = 200_000;
+    static final int AFFECTED = ROWS * 70 / 100;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkMutationService memberBulkMutationService;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("mutationTeam");
+            em.persist(team);
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("mutation" + i, i % 100, em.getReference(Team.class, team.getId())));
+                if (i % 1_000 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        // 범위마다 커밋하기 때문에 롤백 대신 직접 지운다.
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void bulkVsEntityIteration() {
+        measure("entity iteration", () -> tx.execute(status -> {
+            List<Member> members = queryFactory.selectFrom(member).where(member.age.goe(30)).fetch();
+            members.forEach(m -> m.setAge(m.getAge() + 1));
+            return (long) members.size();
+        }));
+        measure("bulk update", () -> tx.execute(status -> memberBulkMutationService.addAge(member.age.goe(30), 1)));
+        measure("bulk update chunks", () -> memberBulkMutationService.updateInChunks(member.age.goe(30),
+                update -> update.set(member.age, member.age.add(1))));
+    }
+
+    private void measure(String name, LongSupplier mutation) {
+        long start = System.nanoTime();
+        long count = mutation.getAsLong();
+        double millis = (System.nanoTime() - start) / 1e6;
+        assertThat(count).isEqualTo(AFFECTED);
+        System.out.printf("%-18s: %,9d rows in %8.1f ms%n", name, count, millis);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitor.QueryCount;
+import com.example.querydsl.monitor.QueryCounter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberBulkMutationServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberBulkMutationService memberBulkMutationService;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+    Member member2;
+    Member member3;
+    Member member4;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        member1 = new Member("member1", 10, teamA);
+        member2 = new Member("member2", 20, teamA);
+        member3 = new Member("member3", 30, teamB);
+        member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        em.flush();
+    }
+
+    @AfterEach
+    public void after() {
+        QueryCounter.stop();
+    }
+
+    /**
+     * em.clear() 없이 영향받은 회원만 다시 읽는다.
+     */
+    @Test
+    public void addAge() {
+        QueryCounter.start();
+        long count = memberBulkMutationService.addAge(member.age.goe(30), 1);
+        QueryCount queryCount = QueryCounter.stop();
+
+        assertThat(count).isEqualTo(2);
+        assertThat(member3.getAge()).isEqualTo(31);
+        assertThat(member4.getAge()).isEqualTo(41);
+        assertThat(member1.getAge()).isEqualTo(10);
+        assertThat(em.contains(member1)).isTrue();
+        // 영속성 컨텍스트의 영향받을 회원 조회 1번 + 통계를 다시 계산할 팀 id 조회 1번 (영속성 컨텍스트에 없는 회원의 팀도 필요하다)
+        // + 영향받은 회원 refresh 2번 + members 컬렉션이 초기화된 teamB refresh 1번
+        assertThat(queryCount.getSelectCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void moveTeam() {
+        assertThat(teamA.getMembers()).hasSize(2);
+        assertThat(teamB.getMembers()).hasSize(2);
+
+        long count = memberBulkMutationService.moveTeam(teamB, teamA);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(member3.getTeam().getId()).isEqualTo(teamA.getId());
+        assertThat(teamA.getMembers()).containsExactlyInAnyOrder(member1, member2, member3, member4);
+        assertThat(teamB.getMembers()).isEmpty();
+    }
+
+    /**
+     * 영속성 컨텍스트에 없던 회원이 들어와도 to 팀 컬렉션에 보여야 한다.
+     */
+    @Test
+    public void moveTeamNotManaged() {
+        em.clear();
+        Team a = em.find(Team.class, teamA.getId());
+        assertThat(a.getMembers()).hasSize(2);
+        Team b = em.getReference(Team.class, teamB.getId());
+
+        memberBulkMutationService.moveTeam(b, a);
+
+        assertThat(Hibernate.isInitialized(b)).isFalse();
+        assertThat(a.getMembers()).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+    }
+
+    @Test
+    public void delete() {
+        assertThat(teamA.getMembers()).hasSize(2);
+
+        long count = memberBulkMutationService.delete(member.age.lt(20));
+
+        assertThat(count).isEqualTo(1);
+        assertThat(em.contains(member1)).isFalse();
+        assertThat(teamA.getMembers()).containsExactly(member2);
+        assertThat(queryFactory.selectFrom(member).fetch()).containsExactlyInAnyOrder(member2, member3, member4);
+    }
+
+    @Test
+    public void chunksRequireNoTransaction() {
+        assertThatThrownBy(() -> memberBulkMutationService.deleteInChunks(member.age.lt(20)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.dto.MemberDashboardDto;
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.example.querydsl.repository.TeamQueryRepository;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 대시보드(조회 세 개) 응답 시간, 50만 건
+ * - 쿼리별 단독 실행 시간
+ * - 한 트랜잭션에서 차례로 실행 (세 쿼리 시간의 합)
+ * - fetchAll 로 동시에 실행 (가장 느린 쿼리 시간 정도)
+ * 쿼리 캐시를 끄고 측정한다. ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+class MemberDashboardBenchmarkTest {
+
+    static final int TEAMS = 50;
+    static final int ROWS = 500_000;
+    static final int RUNS = 20;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    MemberDashboardService memberDashboardService;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    TransactionTemplate tx;
+    TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<Long> teamIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < TEAMS; i++) {
+                Team t = new Team("team" + i);
+                em.persist(t);
+                ids.add(t.getId());
+            }
+            return ids;
+        });
+        List<MemberImportRow> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberImportRow("member" + i, i % 100, teamIds.get(i % TEAMS)));
+        }
+        memberBulkInsertService.insertAllJdbc(rows);
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void sequentialVsConcurrent() {
+        Predicate condition = team.name.eq("team7");
+
+        measure("recent members", () -> readOnly.execute(status -> memberQueryRepository.findRecentMemberTeams(condition, 20)));
+        measure("count", () -> readOnly.execute(status -> memberQueryRepository.countMembers(condition)));
+        measure("team age stats", () -> readOnly.execute(status -> teamQueryRepository.findAgeStats()));
+        measure("sequential", () -> readOnly.execute(status -> new MemberDashboardDto(
+                memberQueryRepository.findRecentMemberTeams(condition, 20),
+                memberQueryRepository.countMembers(condition),
+                teamQueryRepository.findAgeStats())));
+        measure("fetchAll", () -> memberDashboardService.findDashboard("team7", 20));
+    }
+
+    /**
+     * 몇 번 실행해서 JIT, 커넥션 풀을 데운 뒤 중앙값을 출력한다.
+     */
+    private void measure(String name, Supplier<?> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        double[] millis = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-15s: p50 %7.1f ms, max %7.1f ms%n", name, millis[RUNS / 2], millis[RUNS - 1]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 대용량 내보내기 중 힙 사용량이 일정한지 확인한다.
+ * ./gradlew benchmark 로 실행한다. (-Xmx512m)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberExportBenchmarkTest {
+
+    static final int ROWS = 500_000;
+    static final int SAMPLE_INTERVAL = 50_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Test
+    public void heapStaysFlat() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            Team team = new Team("exportTeam");
+            em.persist(team);
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("export" + i, i % 100, em.getReference(Team.class, team.getId())));
+                if (i % 1_000 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+
+            HeapSamplingOutputStream out = new HeapSamplingOutputStream();
+            long start = System.nanoTime();
+            try {
+                assertThat(memberExportService.export(out, ExportFormat.NDJSON)).isGreaterThanOrEqualTo(ROWS);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+
+            System.out.printf("exported %d MB in %.1f s, used heap min %d MB / max %d MB%n",
+                    out.bytes / 1024 / 1024, (System.nanoTime() - start) / 1e9,
+                    out.minUsed / 1024 / 1024, out.maxUsed / 1024 / 1024);
+            assertThat(out.maxUsed - out.minUsed).isLessThan(64L * 1024 * 1024);
+        });
+    }
+
+    /**
+     * 결과는 버리고, 줄 수를 세면서 일정 간격으로 GC 후 사용 중인 힙 크기를 기록한다.
+     */
+    static class HeapSamplingOutputStream extends OutputStream {
+
+        long bytes;
+        long lines;
+        long minUsed = Long.MAX_VALUE;
+        long maxUsed;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n' && ++lines % SAMPLE_INTERVAL == 0) {
+                System.gc();
+                Runtime runtime = Runtime.getRuntime();
+                long used = runtime.totalMemory() - runtime.freeMemory();
+                minUsed = Math.min(minUsed, used);
+                maxUsed = Math.max(maxUsed, used);
+            }
+        }
+    }
+}
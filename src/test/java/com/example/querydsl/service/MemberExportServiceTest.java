@@ -0,0 +1,108 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.columnar.ColumnarResult;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// @AutoConfigureMockMvc 를 붙이면 설정이 달라져서 다른 테스트와 스프링 컨텍스트를 같이 쓰지 못한다. MockMvc 는 직접 만든다.
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Autowired
+    WebApplicationContext context;
+
+    MockMvc mockMvc;
+
+    Member member1;
+    Member junior;
+
+    @BeforeEach
+    public void before() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        junior = new Member("kim, \"junior\"", 20);
+        em.persist(junior);
+        em.flush();
+    }
+
+    @Test
+    public void exportNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = memberExportService.export(out, ExportFormat.NDJSON);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(lines.length);
+        assertThat(lines).contains(
+                "{\"memberId\":" + member1.getId() + ",\"username\":\"member1\",\"age\":10,\"teamName\":\"teamA\"}");
+    }
+
+    @Test
+    public void exportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memberExportService.export(out, ExportFormat.CSV);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines[0]).isEqualTo("memberId,username,age,teamName");
+        assertThat(lines).contains(
+                member1.getId() + ",member1,10,teamA",
+                junior.getId() + ",\"kim, \"\"junior\"\"\",20,");
+    }
+
+    @Test
+    public void exportEndpoint() throws Exception {
+        mockMvc.perform(get("/members/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string(containsString(",member1,10,teamA")));
+    }
+
+    @Test
+    public void unknownFormat() throws Exception {
+        mockMvc.perform(get("/members/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportColumnar() throws Exception {
+        byte[] body = mockMvc.perform(get("/members/export").param("format", "columnar"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ColumnarResult.CONTENT_TYPE + ";charset=UTF-8"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        assertThat(buffer.getInt()).isEqualTo(0x51434F4C); // "QCOL"
+        assertThat(buffer.getInt()).isEqualTo(1);
+        assertThat(buffer.getInt()).isEqualTo((int) memberExportService.export(new ByteArrayOutputStream(), ExportFormat.COLUMNAR));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.stats.TeamStatsService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 여러 스레드가 적은 수의 회원을 적은 수의 팀 사이로 계속 옮긴다. (같은 회원, 같은 팀끼리 자주 충돌한다)
+ * 이동이 사라지지 않았는지는 버전으로 확인한다. 성공한 이동마다 회원 버전이 1 올라간다.
+ * 팀 회원 수는 members 컬렉션, 팀 통계(TeamStats)와 회원 테이블을 비교한다.
+ * 커밋해야 다른 스레드가 볼 수 있기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class MemberTransferServiceTest {
+
+    static final int TEAMS = 4;
+    static final int MEMBERS = 20;
+    static final int THREADS = 8;
+    static final int MOVES_PER_THREAD = 100;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTransferService memberTransferService;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    TransactionTemplate tx;
+    List<Long> teamIds = new ArrayList<>();
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamStatsService.rebuild(); // 다른 테스트가 벌크 삭제로 남긴 통계를 정리한다.
+        tx.executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAMS; i++) {
+                Team t = new Team("team" + i);
+                em.persist(t);
+                teams.add(t);
+                teamIds.add(t.getId());
+            }
+            for (int i = 0; i < MEMBERS; i++) {
+                Member m = new Member("member" + i, i, teams.get(i % TEAMS));
+                em.persist(m);
+                memberIds.add(m.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void staleUpdateRejected() {
+        Long memberId = memberIds.get(0);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            Member stale = em.find(Member.class, memberId);
+            inner.executeWithoutResult(s -> em.find(Member.class, memberId).setAge(100)); // 다른 트랜잭션이 먼저 커밋
+            stale.setAge(200);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        Member found = tx.execute(status -> em.find(Member.class, memberId));
+        assertThat(found.getAge()).isEqualTo(100);
+        assertThat(found.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void moveTeam() {
+        Long memberId = memberIds.get(0);
+        assertThat(memberTransferService.moveTeam(memberId, teamIds.get(1))).isTrue();
+        assertThat(memberTransferService.moveTeam(memberId, teamIds.get(1))).isFalse();
+
+        tx.executeWithoutResult(status -> {
+            Member m = em.find(Member.class, memberId);
+            assertThat(m.getTeam().getId()).isEqualTo(teamIds.get(1));
+            assertThat(m.getVersion()).isEqualTo(1);
+        });
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    @Test
+    public void moveTeamInTransaction() {
+        assertThatThrownBy(() -> tx.executeWithoutResult(status ->
+                memberTransferService.moveTeam(memberIds.get(0), teamIds.get(1))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void concurrentMovesOptimistic() throws Exception {
+        stress("optimistic", memberTransferService::moveTeam);
+    }
+
+    @Test
+    public void concurrentMovesPessimistic() throws Exception {
+        stress("pessimistic", memberTransferService::moveTeamPessimistic);
+    }
+
+    private void stress(String name, BiPredicate<Long, Long> move) throws Exception {
+        AtomicLong moved = new AtomicLong();
+        AtomicLong unchanged = new AtomicLong();
+        AtomicLong failed = new AtomicLong(); // max-attempts 번 모두 충돌한 경우 (낙관적 락)
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < MOVES_PER_THREAD; i++) {
+                        Long memberId = memberIds.get(random.nextInt(MEMBERS));
+                        Long teamId = teamIds.get(random.nextInt(TEAMS));
+                        try {
+                            (move.test(memberId, teamId) ? moved : unchanged).incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-11s: %6.0f moves/s (moved %d, unchanged %d, failed %d)%n",
+                name, THREADS * MOVES_PER_THREAD / seconds, moved.get(), unchanged.get(), failed.get());
+
+        assertThat(moved.get() + unchanged.get() + failed.get()).isEqualTo(THREADS * MOVES_PER_THREAD);
+        tx.executeWithoutResult(status -> {
+            long memberVersions = queryFactory.select(member.version.sum()).from(member).fetchOne();
+            assertThat(memberVersions).isEqualTo(moved.get());
+
+            long total = 0;
+            for (Long teamId : teamIds) {
+                long count = queryFactory.selectFrom(member).where(member.team.id.eq(teamId)).fetch().size();
+                assertThat(em.find(Team.class, teamId).getMembers()).hasSize((int) count);
+                total += count;
+            }
+            assertThat(total).isEqualTo(MEMBERS);
+        });
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.querydsl.startup;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * fast 프로필은 db/migration 스크립트로 스키마를 만들고 ddl-auto: validate 로 엔티티와 비교한다.
+ * 엔티티를 바꾸고 마이그레이션 스크립트를 추가하지 않으면 컨텍스트가 뜨지 않아서 이 테스트가 실패한다.
+ */
+@SpringBootTest
+@ActiveProfiles("fast")
+@Transactional
+class FastStartupProfileTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    Flyway flyway;
+
+    @Test
+    public void migrated() {
+        assertThat(flyway.info().applied()).isNotEmpty();
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    public void persistAndQuery() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        Member found = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.username.eq("member1"))
+                .fetchOne();
+
+        assertThat(found.getAge()).isEqualTo(10);
+        assertThat(found.getTeam().getName()).isEqualTo("teamA");
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.querydsl.startup;
+
+import com.example.querydsl.QuerydslApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 기본 설정 vs fast 프로필, 애플리케이션을 띄우기 시작해서 첫 요청(GET /)의 응답을 받을 때까지 걸린 시간
+ * ready: SpringApplication.run() 이 끝날 때까지 (ApplicationReadyEvent 리스너 포함)
+ * first request: ready 이후 첫 요청, lazy-initialization 이면 이때 컨트롤러 등을 만든다.
+ *
+ * 같은 JVM 에서 번갈아 띄우기 때문에 클래스 로딩은 처음 한 번만 한다. 각각 한 번씩 띄워서 데운 뒤 중앙값을 출력한다.
+ * 테스트 전체 실행 시간은 ./gradlew test 마지막에 출력된다. (build.gradle)
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    static final int RUNS = 5;
+
+    final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void timeToFirstRequest() throws Exception {
+        start(null);
+        start("fast");
+
+        double[][] defaults = new double[2][RUNS];
+        double[][] fast = new double[2][RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            record(defaults, i, start(null));
+            record(fast, i, start("fast"));
+        }
+        print("default", defaults);
+        print("fast", fast);
+    }
+
+    /**
+     * @return {ready, first request} (ms)
+     */
+    private double[] start(String profile) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(QuerydslApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:startup-" + UUID.randomUUID(), // 매번 빈 DB 에서 시작한다.
+                        "logging.level.org.hibernate.SQL=info",
+                        "logging.level.org.hibernate.type=info",
+                        "decorator.datasource.p6spy.enable-logging=false");
+        if (profile != null) {
+            builder.profiles(profile);
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = builder.run()) {
+            long ready = System.nanoTime();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            long firstRequest = System.nanoTime();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            return new double[]{(ready - start) / 1e6, (firstRequest - start) / 1e6};
+        }
+    }
+
+    private void record(double[][] millis, int run, double[] result) {
+        millis[0][run] = result[0];
+        millis[1][run] = result[1];
+    }
+
+    private void print(String name, double[][] millis) {
+        Arrays.sort(millis[0]);
+        Arrays.sort(millis[1]);
+        System.out.printf("%-8s: ready p50 %8.1f ms, first request p50 %8.1f ms%n", name, millis[0][RUNS / 2], millis[1][RUNS / 2]);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.querydsl.stats;
+
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.dto.TeamAgeStatsDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.TeamStats;
+import com.example.querydsl.repository.TeamQueryRepository;
+import com.example.querydsl.service.MemberBulkInsertService;
+import com.example.querydsl.service.MemberBulkMutationService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamStats.teamStats;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 통계는 커밋 직전에 반영되기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class TeamStatsServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    MemberBulkMutationService memberBulkMutationService;
+
+    @Autowired
+    MemberBulkInsertService memberBulkInsertService;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+    Long member4Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamStatsService.rebuild(); // 다른 테스트가 벌크 삭제로 남긴 통계를 정리한다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            Member member4 = new Member("member4", 40, teamB);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(member4);
+
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+            member4Id = member4.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        teamStatsService.rebuild();
+    }
+
+    /**
+     * group() 과 같은 결과
+     */
+    @Test
+    public void insert() {
+        assertThat(teamStatsService.findAgeStats())
+                .extracting("teamName", "count", "sum", "avg", "min", "max")
+                .containsExactly(
+                        tuple("teamA", 2L, 30L, 15.0, 10, 20),
+                        tuple("teamB", 2L, 70L, 35.0, 30, 40));
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    @Test
+    public void changeTeamAndAge() {
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setTeam(em.getReference(Team.class, teamBId));
+            member1.setAge(50);
+        });
+
+        assertThat(teamStatsService.findAgeStats())
+                .extracting("teamName", "count", "sum", "min", "max")
+                .containsExactly(
+                        tuple("teamA", 1L, 20L, 20, 20),
+                        tuple("teamB", 3L, 120L, 30, 50));
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    /**
+     * 최댓값인 회원이 빠지면 표시만 해두고 조회할 때 다시 계산한다.
+     */
+    @Test
+    public void deleteRecomputesMinMaxLazily() {
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member4Id)));
+
+        TeamStats stats = tx.execute(status -> em.find(TeamStats.class, teamBId));
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.isMinMaxStale()).isTrue();
+
+        assertThat(teamStatsService.findAgeStats())
+                .extracting("teamName", "count", "min", "max")
+                .containsExactly(tuple("teamA", 2L, 10, 20), tuple("teamB", 1L, 30, 30));
+        assertThat(tx.execute(status -> em.find(TeamStats.class, teamBId)).isMinMaxStale()).isFalse();
+    }
+
+    @Test
+    public void deleteTeam() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.eq(teamBId)).execute();
+            em.remove(em.find(Team.class, teamBId));
+        });
+
+        assertThat(queryFactory.selectFrom(teamStats).where(teamStats.teamId.eq(teamBId)).fetch()).isEmpty();
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    /**
+     * 벌크 update 는 이벤트가 발생하지 않기 때문에 대상 팀을 다시 계산한다.
+     */
+    @Test
+    public void bulkMoveTeam() {
+        tx.executeWithoutResult(status -> memberBulkMutationService.moveTeam(
+                em.find(Team.class, teamBId), em.find(Team.class, teamAId)));
+
+        assertThat(teamStatsService.findAgeStats())
+                .extracting("teamName", "count", "sum")
+                .containsExactly(tuple("teamA", 4L, 100L));
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    /**
+     * JDBC insert 도 대상 팀을 다시 계산하고, 쿼리 캐시에 올라간 group by 결과를 무효화한다.
+     */
+    @Test
+    public void jdbcInsert() {
+        assertThat(teamQueryRepository.findAgeStats()) // 쿼리 캐시에 올린다.
+                .extracting(TeamAgeStatsDto::getSum).containsExactly(30L, 70L);
+
+        memberBulkInsertService.insertAllJdbc(List.of(new MemberImportRow("member5", 50, teamAId)));
+
+        assertThat(teamQueryRepository.findAgeStats())
+                .extracting(TeamAgeStatsDto::getSum).containsExactly(80L, 70L);
+        assertThat(teamStatsService.findAgeStats())
+                .extracting("teamName", "count", "sum")
+                .containsExactly(tuple("teamA", 3L, 80L), tuple("teamB", 2L, 70L));
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    /**
+     * 팀을 저장할 때 빈 통계를 만든다. 첫 회원을 동시에 넣는 트랜잭션끼리 통계를 만들다 충돌하지 않는다.
+     */
+    @Test
+    public void newTeamHasEmptyStats() {
+        Long teamCId = tx.execute(status -> {
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            return teamC.getId();
+        });
+
+        TeamStats stats = tx.execute(status -> em.find(TeamStats.class, teamCId));
+        assertThat(stats.getMemberCount()).isZero();
+        assertThat(stats.getAgeSum()).isZero();
+        assertThat(stats.getMinAge()).isNull();
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member5", 50, em.getReference(Team.class, teamCId))));
+
+        assertThat(teamStatsService.findAgeStats())
+                .extracting("teamName", "count", "sum", "min", "max")
+                .contains(tuple("teamC", 1L, 50L, 50, 50));
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    @Test
+    public void checkerFindsMismatch() {
+        tx.executeWithoutResult(status -> em.createNativeQuery("update team_stats set member_count = 99 where team_id = ?")
+                .setParameter(1, teamAId)
+                .executeUpdate());
+
+        assertThat(teamStatsService.findInconsistentTeams()).containsExactly(teamAId);
+    }
+}
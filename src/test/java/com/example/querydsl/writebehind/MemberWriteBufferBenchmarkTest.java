@@ -0,0 +1,159 @@
+package com.example.querydsl.writebehind;
+
+import com.example.querydsl.concurrency.OptimisticRetryExecutor;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.stats.TeamStatsService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 1000명의 나이를 8개 스레드가 무작위로 바꾼다. (스레드마다 5000번)
+ * 1. 변경마다 트랜잭션: em.find + setAge + 커밋, 낙관적 락 충돌은 다시 시도한다.
+ * 2. MemberWriteBuffer: updateAge 후 마지막에 flush() 까지
+ * 처리량(변경/초), 커밋 수, 실제 update 된 row 수(버전 증가 합)를 비교한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { // SQL, 바인딩 파라미터 로그가 측정값을 왜곡하지 않도록 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+class MemberWriteBufferBenchmarkTest {
+
+    static final int TEAMS = 10;
+    static final int MEMBERS = 1000;
+    static final int THREADS = 8;
+    static final int UPDATES_PER_THREAD = 5000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAMS; i++) {
+                Team t = new Team("team" + i);
+                em.persist(t);
+                teams.add(t);
+            }
+            for (int i = 0; i < MEMBERS; i++) {
+                Member m = new Member("member" + i, 0, teams.get(i % TEAMS));
+                em.persist(m);
+                memberIds.add(m.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        teamStatsService.rebuild();
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void transactionPerUpdateVsWriteBehind() throws Exception {
+        measure("transaction per update", (id, age) -> optimisticRetryExecutor.executeInTransaction(status -> {
+            em.find(Member.class, id).setAge(age);
+            return null;
+        }), () -> {
+        });
+
+        WriteBehindProperties properties = new WriteBehindProperties(); // 기본 설정 (100ms 또는 1000명마다 반영)
+        MemberWriteBuffer buffer = new MemberWriteBuffer(transactionManager, jdbcTemplate, em, queryFactory, teamStatsService, properties);
+        buffer.start();
+        try {
+            measure("write-behind", buffer::updateAge, buffer::flush);
+        } finally {
+            buffer.close();
+        }
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    private void measure(String name, BiConsumer<Long, Integer> update, Runnable flush) throws Exception {
+        double commitsBefore = commits();
+        long versionsBefore = versionSum();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(threads.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        update.accept(memberIds.get(random.nextInt(MEMBERS)), random.nextInt(100));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            flush.run();
+        } finally {
+            threads.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int updates = THREADS * UPDATES_PER_THREAD;
+        System.out.printf("%-23s: %9.0f updates/s, %6.0f commits, %6d rows updated (%.2f s)%n",
+                name, updates / seconds, commits() - commitsBefore, versionSum() - versionsBefore, seconds);
+    }
+
+    private double commits() {
+        return meterRegistry.get("jdbc.transactions").tag("outcome", "commit").timer().count();
+    }
+
+    private long versionSum() {
+        return jdbcTemplate.queryForObject("select coalesce(sum(version), 0) from member", Long.class);
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.querydsl.writebehind;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.TeamAgeStatsDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.example.querydsl.repository.TeamQueryRepository;
+import com.example.querydsl.search.MemberSearchIndex;
+import com.example.querydsl.service.MemberBulkMutationService;
+import com.example.querydsl.stats.TeamStatsService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 반영은 별도 트랜잭션에서 커밋하기 때문에 테스트 트랜잭션(롤백) 없이 직접 커밋하고 지운다.
+ * 테스트에서는 주기 flush 를 끄고(flush-interval=1h) 직접 flush() 한다.
+ */
+@SpringBootTest
+class MemberWriteBufferTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberWriteBuffer memberWriteBuffer;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    MemberBulkMutationService memberBulkMutationService;
+
+    TransactionTemplate tx;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamStatsService.rebuild(); // 다른 테스트가 벌크 삭제로 남긴 통계를 정리한다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 4; i++) {
+                Member m = new Member("member" + i, i * 10, i <= 2 ? teamA : teamB);
+                em.persist(m);
+                memberIds.add(m.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.execute("drop trigger if exists member_crash");
+        memberWriteBuffer.flush();
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        teamStatsService.rebuild();
+        memberSearchIndex.rebuild();
+    }
+
+    @Test
+    public void coalesce() {
+        Long id = memberIds.get(0);
+        long version = versionOf(id);
+        for (int age = 0; age < 100; age++) {
+            memberWriteBuffer.updateAge(id, age);
+        }
+
+        assertThat(memberWriteBuffer.pendingCount()).isEqualTo(1);
+        assertThat(memberWriteBuffer.getAge(id)).isEqualTo(99);
+        assertThat(memberWriteBuffer.flush()).isEqualTo(1);
+
+        // 100번 바꿨지만 update 는 한 번
+        assertThat(ageOf(id)).isEqualTo(99);
+        assertThat(versionOf(id)).isEqualTo(version + 1);
+        assertThat(memberWriteBuffer.pendingCount()).isZero();
+    }
+
+    @Test
+    public void readYourWrites() {
+        Long id = memberIds.get(0);
+        memberWriteBuffer.updateAge(id, 77);
+
+        // 아직 DB 에는 반영되지 않았지만 리포지토리로 조회하면 보인다.
+        assertThat(ageOf(id)).isEqualTo(10);
+        assertThat(memberQueryRepository.findMemberTeams(member.id.eq(id)))
+                .extracting(MemberTeamDto::getAge).containsExactly(77);
+        assertThat(memberQueryRepository.findMemberTeamsByUsername("member1"))
+                .extracting(MemberTeamDto::getAge).containsExactly(77);
+        assertThat(memberQueryRepository.findRecentMemberTeams(member.username.startsWith("member"), 10))
+                .extracting(MemberTeamDto::getAge).containsExactly(40, 30, 20, 77);
+        assertThat(ageOf(id)).isEqualTo(10);
+
+        // 나이로 검색하면 먼저 반영한다.
+        assertThat(memberQueryRepository.findMemberTeams(member.age.eq(77)))
+                .extracting(MemberTeamDto::getUsername).containsExactly("member1");
+        assertThat(ageOf(id)).isEqualTo(77);
+
+        // 엔티티 조회도 먼저 반영하고 다시 읽는다.
+        memberWriteBuffer.updateAge(memberIds.get(1), 55);
+        assertThat(memberQueryRepository.findByUsername("member2").getAge()).isEqualTo(55);
+        memberWriteBuffer.updateAge(memberIds.get(2), 66);
+        assertThat(memberQueryRepository.findMembersReadOnly(member.username.eq("member3")))
+                .extracting(Member::getAge).containsExactly(66);
+    }
+
+    /**
+     * JDBC 로 반영하기 때문에 팀 통계, 2차 캐시, 쿼리 캐시를 직접 맞춰야 한다.
+     */
+    @Test
+    public void statsAndCachesAfterFlush() {
+        Long id = memberIds.get(0);
+        Integer cached = tx.execute(status -> em.find(Member.class, id).getAge()); // 2차 캐시에 올린다.
+        assertThat(cached).isEqualTo(10);
+        assertThat(teamQueryRepository.findAgeStats()) // 쿼리 캐시에 올린다.
+                .extracting(TeamAgeStatsDto::getSum).containsExactly(30L, 70L);
+
+        memberWriteBuffer.updateAge(id, 100);
+        memberWriteBuffer.updateAge(memberIds.get(3), 0);
+        memberWriteBuffer.flush();
+
+        Integer flushed = tx.execute(status -> em.find(Member.class, id).getAge());
+        assertThat(flushed).isEqualTo(100);
+        assertThat(teamQueryRepository.findAgeStats())
+                .extracting(TeamAgeStatsDto::getSum).containsExactly(120L, 30L);
+        assertThat(teamStatsService.findAgeStats())
+                .extracting(TeamAgeStatsDto::getSum, TeamAgeStatsDto::getMax, TeamAgeStatsDto::getMin)
+                .containsExactly(tuple(120L, 100, 20), tuple(30L, 30, 0));
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    /**
+     * 벌크 update 전에 버퍼를 먼저 반영한다. 나중에 반영하면 버퍼의 나이(절대값)가 벌크 update 결과를 덮어쓴다.
+     */
+    @Test
+    public void flushBeforeBulkUpdate() {
+        Long id = memberIds.get(0);
+        memberWriteBuffer.updateAge(id, 50);
+
+        tx.executeWithoutResult(status -> memberBulkMutationService.addAge(member.id.eq(id), 1));
+        memberWriteBuffer.flush();
+
+        assertThat(ageOf(id)).isEqualTo(51);
+        assertThat(memberWriteBuffer.getAge(id)).isNull();
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    @Test
+    public void backpressure() {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setMaxSize(2);
+        properties.setMaxWait(Duration.ofMillis(50));
+        MemberWriteBuffer buffer = newBuffer(properties); // start() 하지 않아서 백그라운드 flush 가 없다.
+
+        buffer.updateAge(memberIds.get(0), 1);
+        buffer.updateAge(memberIds.get(1), 2);
+        buffer.updateAge(memberIds.get(1), 3); // 이미 있는 회원은 자리가 필요 없다.
+        assertThatThrownBy(() -> buffer.updateAge(memberIds.get(2), 4)).isInstanceOf(RejectedExecutionException.class);
+
+        assertThat(buffer.flush()).isEqualTo(2);
+        buffer.updateAge(memberIds.get(2), 4);
+        buffer.close();
+        assertThat(ageOf(memberIds.get(1))).isEqualTo(3);
+        assertThat(ageOf(memberIds.get(2))).isEqualTo(4);
+    }
+
+    @Test
+    public void closeFlushesRemaining() {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setFlushInterval(Duration.ofHours(1));
+        MemberWriteBuffer buffer = newBuffer(properties);
+        buffer.start();
+        buffer.updateAge(memberIds.get(0), 11);
+        buffer.updateAge(memberIds.get(1), 22);
+
+        buffer.close();
+
+        assertThat(ageOf(memberIds.get(0))).isEqualTo(11);
+        assertThat(ageOf(memberIds.get(1))).isEqualTo(22);
+        assertThatThrownBy(() -> buffer.updateAge(memberIds.get(0), 33)).isInstanceOf(IllegalStateException.class);
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    /**
+     * 반영 도중(3번째 row update)에 DB 오류가 나도 일부만 반영되지 않는다.
+     * 변경은 버퍼에 남아 계속 조회되고, 다음 flush 에서 모두 반영된다.
+     */
+    @Test
+    public void crashDuringFlush() {
+        List<Long> versions = memberIds.stream().map(this::versionOf).toList();
+        for (Long id : memberIds) {
+            memberWriteBuffer.updateAge(id, 99);
+        }
+        FailOnUpdate.remaining.set(2);
+        jdbcTemplate.execute("create trigger member_crash before update on member for each row call \""
+                + FailOnUpdate.class.getName() + "\"");
+
+        assertThatThrownBy(() -> memberWriteBuffer.flush()).isInstanceOf(DataAccessException.class);
+
+        assertThat(memberIds).extracting(this::ageOf).containsExactly(10, 20, 30, 40);
+        assertThat(memberIds).extracting(this::versionOf).isEqualTo(versions);
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+        assertThat(memberWriteBuffer.pendingCount()).isEqualTo(memberIds.size());
+        assertThat(memberQueryRepository.findMemberTeams(member.id.in(memberIds)))
+                .extracting(MemberTeamDto::getAge).containsOnly(99);
+
+        // 실패한 뒤에 들어온 변경이 더 최신이다.
+        memberWriteBuffer.updateAge(memberIds.get(0), 1);
+        jdbcTemplate.execute("drop trigger member_crash");
+        assertThat(memberWriteBuffer.flush()).isEqualTo(memberIds.size());
+
+        assertThat(memberIds).extracting(this::ageOf).containsExactly(1, 99, 99, 99);
+        assertThat(teamStatsService.findInconsistentTeams()).isEmpty();
+    }
+
+    private MemberWriteBuffer newBuffer(WriteBehindProperties properties) {
+        return new MemberWriteBuffer(transactionManager, jdbcTemplate, em, queryFactory, teamStatsService, properties);
+    }
+
+    private int ageOf(Long id) {
+        return jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, id);
+    }
+
+    private long versionOf(Long id) {
+        return jdbcTemplate.queryForObject("select version from member where member_id = ?", Long.class, id);
+    }
+
+    /**
+     * remaining 건을 update 한 다음 row 에서 실패한다. (반영 도중 장애)
+     */
+    public static class FailOnUpdate implements Trigger {
+
+        static final AtomicInteger remaining = new AtomicInteger();
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type) {
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            if (remaining.getAndDecrement() <= 0) {
+                throw new SQLException("회원 update 중 장애");
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void remove() {
+        }
+    }
+}